@@ -0,0 +1,90 @@
+package com.example.lumiapp;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Transaction;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Append-only activity/{id} entries, one per event on a property: ticket
+ * created, status changed, message sent. Written when the event happens so
+ * the PM dashboard reads a single ordered collection (newest first, one
+ * small page at a time) instead of scanning tickets and conversations.
+ *
+ * activity/{id}:
+ *   propertyId, type, refId, actorId, actorName, subtitle, status, createdAt
+ */
+public final class ActivityLog {
+
+    private static final String TAG = "ActivityLog";
+
+    public static final String COLLECTION = "activity";
+
+    public static final String TYPE_COMPLAINT   = "complaint";    // refId = complaints/{id}
+    public static final String TYPE_FIX_REQUEST = "fixRequest";   // refId = fixRequests/{id}
+    public static final String TYPE_COMPLAINT_STATUS   = "complaintStatus";
+    public static final String TYPE_FIX_REQUEST_STATUS = "fixRequestStatus";
+    public static final String TYPE_MESSAGE     = "message";      // refId = conversations/{id}
+
+    private ActivityLog() {
+    }
+
+    /**
+     * @param subtitle second line on the dashboard row (room / address / message text)
+     * @param status   new ticket status for status entries, else null
+     */
+    public static Map<String, Object> entry(String propertyId,
+                                            String type,
+                                            String refId,
+                                            @Nullable String actorId,
+                                            @Nullable String actorName,
+                                            @Nullable String subtitle,
+                                            @Nullable String status) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("propertyId", propertyId);
+        data.put("type", type);
+        data.put("refId", refId);
+        data.put("actorId", actorId);
+        data.put("actorName", actorName);
+        data.put("subtitle", subtitle);
+        if (status != null) data.put("status", status);
+        data.put("createdAt", Timestamp.now());
+        return data;
+    }
+
+    /** Add the entry to a batch, so it commits together with the event itself. */
+    public static void addTo(WriteBatch batch, @Nullable Map<String, Object> entry) {
+        if (entry == null || entry.get("propertyId") == null) return;
+        batch.set(FirebaseFirestore.getInstance().collection(COLLECTION).document(), entry);
+    }
+
+    /** Same, inside a transaction. */
+    public static void addTo(Transaction tx, @Nullable Map<String, Object> entry) {
+        if (entry == null || entry.get("propertyId") == null) return;
+        tx.set(FirebaseFirestore.getInstance().collection(COLLECTION).document(), entry);
+    }
+
+    /**
+     * Inside a transaction, under a fixed id: a write that may be replayed
+     * (ChatOutbox) overwrites its own entry instead of adding another row.
+     */
+    public static void addTo(Transaction tx, String id, @Nullable Map<String, Object> entry) {
+        if (entry == null || entry.get("propertyId") == null) return;
+        tx.set(FirebaseFirestore.getInstance().collection(COLLECTION).document(id), entry);
+    }
+
+    /** Write the entry on its own (after the event was already saved). */
+    public static void record(@Nullable Map<String, Object> entry) {
+        if (entry == null || entry.get("propertyId") == null) return;
+        FirebaseFirestore.getInstance().collection(COLLECTION)
+                .add(entry)
+                .addOnFailureListener(e -> Log.w(TAG, "Activity entry not written", e));
+    }
+}
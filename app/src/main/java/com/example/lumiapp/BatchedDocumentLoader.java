@@ -0,0 +1,109 @@
+package com.example.lumiapp;
+
+import android.text.TextUtils;
+
+import androidx.annotation.NonNull;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Loads a set of documents by id from one collection.
+ *
+ * Ids are split into whereIn(documentId) chunks of at most {@link #MAX_IN_SIZE},
+ * all chunks run at the same time and the documents come back in the order the
+ * ids were given. A failed chunk doesn't fail the whole load; its ids are
+ * reported in {@link Result#failedIds}.
+ */
+public class BatchedDocumentLoader {
+
+    /** Firestore's limit for the number of values in an `in` filter. */
+    public static final int MAX_IN_SIZE = 30;
+
+    public interface Callback {
+        void onComplete(@NonNull Result result);
+    }
+
+    public static class Result {
+        /** Documents that exist, in the same order as the requested ids. */
+        public final List<DocumentSnapshot> documents = new ArrayList<>();
+        /** Ids whose chunk loaded fine but that have no document. */
+        public final List<String> missingIds = new ArrayList<>();
+        /** Ids whose chunk failed to load. */
+        public final List<String> failedIds = new ArrayList<>();
+        public final List<Exception> errors = new ArrayList<>();
+
+        public boolean isPartial() {
+            return !failedIds.isEmpty();
+        }
+    }
+
+    private BatchedDocumentLoader() {
+    }
+
+    public static void load(CollectionReference collection,
+                            Collection<String> ids,
+                            Callback callback) {
+        // de-dupe, keep caller order, drop blanks (whereIn rejects them)
+        List<String> ordered = new ArrayList<>();
+        for (String id : new LinkedHashSet<>(ids)) {
+            if (!TextUtils.isEmpty(id)) ordered.add(id);
+        }
+
+        if (ordered.isEmpty()) {
+            callback.onComplete(new Result());
+            return;
+        }
+
+        List<List<String>> chunks = new ArrayList<>();
+        List<Task<QuerySnapshot>> tasks = new ArrayList<>();
+        for (int i = 0; i < ordered.size(); i += MAX_IN_SIZE) {
+            List<String> chunk = new ArrayList<>(
+                    ordered.subList(i, Math.min(i + MAX_IN_SIZE, ordered.size())));
+            chunks.add(chunk);
+            tasks.add(collection.whereIn(FieldPath.documentId(), chunk).get());
+        }
+
+        Tasks.whenAllComplete(tasks).addOnCompleteListener(all -> {
+            Result result = new Result();
+            Map<String, DocumentSnapshot> byId = new HashMap<>();
+
+            for (int i = 0; i < tasks.size(); i++) {
+                Task<QuerySnapshot> t = tasks.get(i);
+                if (t.isSuccessful() && t.getResult() != null) {
+                    for (DocumentSnapshot d : t.getResult().getDocuments()) {
+                        byId.put(d.getId(), d);
+                    }
+                } else {
+                    result.failedIds.addAll(chunks.get(i));
+                    if (t.getException() != null) result.errors.add(t.getException());
+                }
+            }
+
+            Set<String> failed = new HashSet<>(result.failedIds);
+            for (String id : ordered) {
+                DocumentSnapshot d = byId.get(id);
+                if (d != null) {
+                    result.documents.add(d);
+                } else if (!failed.contains(id)) {
+                    result.missingIds.add(id);
+                }
+            }
+
+            callback.onComplete(result);
+        });
+    }
+}
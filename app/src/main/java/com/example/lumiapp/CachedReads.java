@@ -0,0 +1,98 @@
+package com.example.lumiapp;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Cache-first one-shot reads (stale-while-revalidate).
+ *
+ * The Firestore local cache answers first, so a warm start paints without
+ * waiting on the network; the server read runs right after and the callback
+ * fires again only if the data actually changed. With nothing cached the
+ * server answer is the first (and only) one.
+ *
+ * Callbacks run on the main thread and may fire twice: check {@code fromCache}
+ * where acting twice would be wrong (navigation).
+ */
+public final class CachedReads {
+
+    private static final String TAG = "CachedReads";
+
+    public interface DocCallback {
+        /** {@code doc} may not exist. */
+        void onDoc(DocumentSnapshot doc, boolean fromCache);
+    }
+
+    public interface QueryCallback {
+        void onResult(QuerySnapshot qs, boolean fromCache);
+    }
+
+    public interface ErrorCallback {
+        /** Only called when neither the cache nor the server had an answer. */
+        void onError(Exception e);
+    }
+
+    private CachedReads() {
+    }
+
+    public static void get(DocumentReference ref, DocCallback callback, @Nullable ErrorCallback error) {
+        ref.get(Source.CACHE).addOnCompleteListener(cacheTask -> {
+            // a doc that was never read isn't in the cache: that's a failed task, not an error
+            DocumentSnapshot cached = cacheTask.isSuccessful() ? cacheTask.getResult() : null;
+            if (cached != null) callback.onDoc(cached, true);
+
+            ref.get(Source.SERVER)
+                    .addOnSuccessListener(fresh -> {
+                        if (cached == null || !sameDoc(cached, fresh)) callback.onDoc(fresh, false);
+                    })
+                    .addOnFailureListener(e -> {
+                        Log.w(TAG, "Revalidate failed: " + ref.getPath(), e);
+                        if (cached == null && error != null) error.onError(e);
+                    });
+        });
+    }
+
+    /** An empty cached result is treated as "not cached" (the query may never have run). */
+    public static void get(Query query, QueryCallback callback, @Nullable ErrorCallback error) {
+        query.get(Source.CACHE).addOnCompleteListener(cacheTask -> {
+            QuerySnapshot cached = cacheTask.isSuccessful() ? cacheTask.getResult() : null;
+            if (cached != null && cached.isEmpty()) cached = null;
+            if (cached != null) callback.onResult(cached, true);
+
+            QuerySnapshot shown = cached;
+            query.get(Source.SERVER)
+                    .addOnSuccessListener(fresh -> {
+                        if (shown == null || !sameDocs(shown.getDocuments(), fresh.getDocuments())) {
+                            callback.onResult(fresh, false);
+                        }
+                    })
+                    .addOnFailureListener(e -> {
+                        Log.w(TAG, "Revalidate failed (query)", e);
+                        if (shown == null && error != null) error.onError(e);
+                    });
+        });
+    }
+
+    private static boolean sameDoc(DocumentSnapshot a, DocumentSnapshot b) {
+        return a.exists() == b.exists() && Objects.equals(a.getData(), b.getData());
+    }
+
+    private static boolean sameDocs(List<DocumentSnapshot> a, List<DocumentSnapshot> b) {
+        if (a.size() != b.size()) return false;
+        for (int i = 0; i < a.size(); i++) {
+            if (!a.get(i).getId().equals(b.get(i).getId())) return false;
+            if (!sameDoc(a.get(i), b.get(i))) return false;
+        }
+        return true;
+    }
+}
@@ -1,7 +1,11 @@
 package com.example.lumiapp;
 
+import android.content.Intent;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.text.TextUtils;
+import android.util.Log;
 import android.view.KeyEvent;
 import android.view.inputmethod.EditorInfo;
 import android.widget.EditText;
@@ -9,34 +13,59 @@ import android.widget.ImageButton;
 import android.widget.ImageView;
 import android.widget.TextView;
 
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.Timestamp;
 import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.DocumentChange;
 import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.MetadataChanges;
 import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QueryDocumentSnapshot;
-import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.WriteBatch;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
-public class ChatActivity extends AppCompatActivity {
+public class ChatActivity extends AppCompatActivity implements ChatOutbox.Listener {
+
+    private static final String TAG = "ChatActivity";
+
+    // Paging: live listener only on the newest page, older pages on demand
+    private static final int PAGE_SIZE = 30;
+    private static final int MAX_WINDOW = 150;          // max messages kept in the adapter
+    private static final int LOAD_MORE_THRESHOLD = 5;   // rows from the edge before we fetch
+    private static final long RECEIPT_DELAY_MS = 500;   // coalesce receipt writes while scrolling
 
     public static final String EXTRA_OTHER_USER_ID   = "otherUserId";
     public static final String EXTRA_OTHER_USER_NAME = "otherUserName";
     public static final String EXTRA_OTHER_PHOTO_URL = "otherPhotoUrl";
     public static final String EXTRA_PROPERTY_ID     = "propertyId"; // optional
 
+    // optional: open the history around this message (search results)
+    public static final String EXTRA_ANCHOR_MESSAGE_ID = "anchorMessageId";
+    public static final String EXTRA_ANCHOR_SECONDS    = "anchorSeconds";
+    public static final String EXTRA_ANCHOR_NANOS      = "anchorNanos";
+
     private FirebaseAuth auth;
     private FirebaseFirestore db;
 
@@ -55,6 +84,42 @@ public class ChatActivity extends AppCompatActivity {
     private MessageAdapter adapter;
 
     private ListenerRegistration messageListener;
+    private ChatOutbox outbox;
+    @Nullable
+    private MessageSearchIndex searchIndex;
+
+    private final ActivityResultLauncher<Intent> searchLauncher = registerForActivityResult(
+            new ActivityResultContracts.StartActivityForResult(),
+            result -> {
+                Intent data = result.getData();
+                if (result.getResultCode() != RESULT_OK || data == null) return;
+                openAtAnchor(
+                        data.getStringExtra(MessageSearchActivity.RESULT_MESSAGE_ID),
+                        new Timestamp(
+                                data.getLongExtra(MessageSearchActivity.RESULT_SECONDS, 0),
+                                data.getIntExtra(MessageSearchActivity.RESULT_NANOS, 0)));
+            });
+
+    // window state
+    @Nullable
+    private QuerySnapshot latestPage;        // last snapshot of the live page, mapped only when needed
+    private boolean followingLatest = true;  // false while the window is scrolled away from the live page
+    private boolean hasOlder = true;
+    private boolean initialPageLoaded = false;  // hasOlder settled by a page from the server
+    private boolean loadingOlder = false;
+    private boolean loadingNewer = false;
+
+    // queued messages whose flush was rejected; kept on screen until retried
+    private final Map<String, Message> failedMessages = new HashMap<>();
+
+    // read receipts already written this session, so a row is only marked once
+    private final Set<String> markedSeen = new HashSet<>();
+    private final Set<String> markedDelivered = new HashSet<>();
+    private final Handler receiptHandler = new Handler(Looper.getMainLooper());
+    private final Runnable receiptRunnable = this::writeReceipts;
+
+    private boolean resumed = false;
+    private boolean clearingUnread = false;
 
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
@@ -88,7 +153,39 @@ public class ChatActivity extends AppCompatActivity {
         setupRecycler();
         setupSend();
 
+        outbox = ChatOutbox.get(this);
+        outbox.addListener(this);
+
+        // the outbox copies both cached profiles into participantInfo when it
+        // sends; the other side is observed by the header, warm up our own
+        UserProfileRepository.get(this).get(currentUserId, ignored -> { });
+
+        searchIndex = MessageSearchIndex.get(this);
+
+        String anchorId = getIntent().getStringExtra(EXTRA_ANCHOR_MESSAGE_ID);
+        if (!TextUtils.isEmpty(anchorId)) {
+            openAtAnchor(anchorId, new Timestamp(
+                    getIntent().getLongExtra(EXTRA_ANCHOR_SECONDS, 0),
+                    getIntent().getIntExtra(EXTRA_ANCHOR_NANOS, 0)));
+        }
+
         listenForMessages();
+        if (followingLatest) showQueuedMessages();
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        resumed = true;
+        clearUnread();
+        scheduleReceipts();
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        resumed = false;
+        receiptHandler.removeCallbacks(receiptRunnable);
     }
 
     @Override
@@ -97,6 +194,9 @@ public class ChatActivity extends AppCompatActivity {
         if (messageListener != null) {
             messageListener.remove();
         }
+        if (outbox != null) {
+            outbox.removeListener(this);
+        }
     }
 
     private void bindViews() {
@@ -108,18 +208,34 @@ public class ChatActivity extends AppCompatActivity {
         rvMessages      = findViewById(R.id.rvMessages);
 
         btnBack.setOnClickListener(v -> finish());
+
+        findViewById(R.id.btnSearchChat).setOnClickListener(v -> {
+            Intent i = new Intent(this, MessageSearchActivity.class);
+            i.putExtra(MessageSearchActivity.EXTRA_CONVERSATION_ID, conversationId);
+            searchLauncher.launch(i);
+        });
     }
 
     private void setupHeader() {
+        bindHeader(otherUserName, otherPhotoUrl);
+
+        // Keep name/avatar current if the other user edits their profile
+        UserProfileRepository.get(this).observe(this, otherUserId, profile -> {
+            if (profile != null) bindHeader(profile.name, profile.profileImageUrl);
+        });
+    }
+
+    private void bindHeader(@Nullable String name, @Nullable String photoUrl) {
         tvOtherName.setText(
-                !TextUtils.isEmpty(otherUserName)
-                        ? otherUserName
+                !TextUtils.isEmpty(name)
+                        ? name
                         : "Conversation"
         );
 
-        if (!TextUtils.isEmpty(otherPhotoUrl)) {
+        if (!TextUtils.isEmpty(photoUrl)) {
             Glide.with(this)
-                    .load(otherPhotoUrl)
+                    .load(photoUrl)
+                    .apply(LumiGlideModule.SMALL)
                     .centerCrop()
                     .placeholder(R.drawable.ic_profile)
                     .into(imgOtherProfile);
@@ -129,11 +245,34 @@ public class ChatActivity extends AppCompatActivity {
     }
 
     private void setupRecycler() {
-        adapter = new MessageAdapter();
+        adapter = new MessageAdapter(this::retryMessage);
         LinearLayoutManager lm = new LinearLayoutManager(this);
         lm.setStackFromEnd(true); // start list at bottom like real chat apps
         rvMessages.setLayoutManager(lm);
         rvMessages.setAdapter(adapter);
+
+        // Fetch older pages when nearing the top, newer ones when nearing the bottom
+        rvMessages.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                int first = lm.findFirstVisibleItemPosition();
+                int last  = lm.findLastVisibleItemPosition();
+                if (first == RecyclerView.NO_POSITION) return;
+
+                if (dy < 0 && first <= LOAD_MORE_THRESHOLD) {
+                    loadOlderMessages();
+                }
+                if (dy > 0 && !followingLatest
+                        && last >= adapter.getItemCount() - 1 - LOAD_MORE_THRESHOLD) {
+                    loadNewerMessages();
+                }
+            }
+
+            @Override
+            public void onScrollStateChanged(@NonNull RecyclerView rv, int newState) {
+                if (newState == RecyclerView.SCROLL_STATE_IDLE) scheduleReceipts();
+            }
+        });
     }
 
     private void setupSend() {
@@ -168,60 +307,389 @@ public class ChatActivity extends AppCompatActivity {
         });
     }
 
+    private Query messagesQuery() {
+        return db.collection("conversations")
+                .document(conversationId)
+                .collection("messages")
+                .orderBy("createdAt", Query.Direction.ASCENDING);
+    }
+
+    /**
+     * Live listener on the newest page only. Older history is fetched
+     * page by page in {@link #loadOlderMessages()}.
+     * Metadata changes are included so the snapshot that confirms a cached
+     * page with the server arrives even when no message changed.
+     */
     private void listenForMessages() {
-        DocumentReference convoRef = db.collection("conversations")
-                .document(conversationId);
+        messageListener = messagesQuery()
+                .limitToLast(PAGE_SIZE)
+                .addSnapshotListener(MetadataChanges.INCLUDE, (qs, e) -> {
+                    if (e != null) {
+                        Log.e(TAG, "Message listen failed", e);
+                        return;
+                    }
+                    if (qs == null) return;
 
-        messageListener = convoRef
-                .collection("messages")
-                .orderBy("createdAt", Query.Direction.ASCENDING)
-                .addSnapshotListener((qs, e) -> {
-                    if (e != null || qs == null) return;
+                    latestPage = qs;
+
+                    // a page from the cache can be short only because the cache is
+                    if (!initialPageLoaded) {
+                        hasOlder = qs.size() >= PAGE_SIZE;
+                        initialPageLoaded = !qs.getMetadata().isFromCache();
+                    }
+
+                    // every message we receive goes into the local search index,
+                    // even while the window is scrolled away
+                    indexForSearch(qs.getDocumentChanges());
 
-                    List<Message> list = new ArrayList<>();
-                    for (QueryDocumentSnapshot d : qs) {
-                        Message m = d.toObject(Message.class);
+                    // Scrolled back into history → keep the page for when we return
+                    if (!followingLatest) return;
+
+                    boolean wasAtBottom = isNearBottom();
+                    boolean incoming = false;
+                    Timestamp pageStart = qs.isEmpty()
+                            ? null
+                            : qs.getDocuments().get(0).getTimestamp("createdAt");
+
+                    for (DocumentChange dc : qs.getDocumentChanges(MetadataChanges.INCLUDE)) {
+                        Message m = toMessage(dc.getDocument());
                         if (m == null) continue;
-                        m.id = d.getId();
-                        list.add(m);
+
+                        // A rejected write is rolled back locally; keep the failed bubble
+                        if (dc.getType() == DocumentChange.Type.REMOVED
+                                && failedMessages.containsKey(m.id)) {
+                            continue;
+                        }
+
+                        // limitToLast reports the oldest row sliding out of the page as
+                        // REMOVED; it's still valid history, so keep it on screen
+                        if (dc.getType() == DocumentChange.Type.REMOVED
+                                && pageStart != null && m.createdAt != null
+                                && m.createdAt.compareTo(pageStart) < 0) {
+                            continue;
+                        }
+                        if (dc.getType() == DocumentChange.Type.ADDED
+                                && otherUserId.equals(m.senderId)) {
+                            incoming = true;
+                        }
+                        adapter.applyChange(dc.getType(), m);
+                    }
+                    if (adapter.trimOldest(MAX_WINDOW) > 0) hasOlder = true;
+
+                    if (wasAtBottom) scrollToBottom();
+
+                    // reading along: new messages don't count as unread
+                    if (incoming && resumed) clearUnread();
+                    scheduleReceipts();
+                });
+    }
+
+    private void loadOlderMessages() {
+        Message oldest = adapter.getOldest();
+        if (loadingOlder || !hasOlder || oldest == null || oldest.createdAt == null) return;
+        loadingOlder = true;
+
+        // cursor on the snapshot, not just the timestamp: two messages can
+        // share createdAt, and the snapshot pins the edge by createdAt then id
+        Query page = oldest.snapshot != null
+                ? messagesQuery().endBefore(oldest.snapshot)
+                : messagesQuery().endBefore(oldest.createdAt);
+        page.limitToLast(PAGE_SIZE)
+                .get()
+                .addOnSuccessListener(qs -> {
+                    loadingOlder = false;
+                    List<Message> older = toMessages(qs);
+                    hasOlder = older.size() >= PAGE_SIZE;
+                    if (searchIndex != null) searchIndex.index(conversationId, otherUserId, older);
+
+                    adapter.prependOlder(older);
+                    // Window full → drop the newest rows, live page is no longer shown
+                    if (adapter.trimNewest(MAX_WINDOW) > 0) {
+                        followingLatest = false;
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    loadingOlder = false;
+                    Log.e(TAG, "Loading older messages failed", e);
+                });
+    }
+
+    private void loadNewerMessages() {
+        Message newest = adapter.getNewest();
+        if (loadingNewer || followingLatest || newest == null || newest.createdAt == null) return;
+        loadingNewer = true;
+
+        // same as loadOlderMessages: a timestamp alone would skip tied rows
+        Query page = newest.snapshot != null
+                ? messagesQuery().startAfter(newest.snapshot)
+                : messagesQuery().startAfter(newest.createdAt);
+        page.limit(PAGE_SIZE)
+                .get()
+                .addOnSuccessListener(qs -> {
+                    loadingNewer = false;
+                    List<Message> newer = toMessages(qs);
+                    if (searchIndex != null) searchIndex.index(conversationId, otherUserId, newer);
+
+                    adapter.appendNewer(newer);
+                    if (adapter.trimOldest(MAX_WINDOW) > 0) hasOlder = true;
+
+                    // Caught up with the live page → follow it again
+                    if (newer.size() < PAGE_SIZE) {
+                        followingLatest = true;
+                        adapter.mergeLatest(latestMessages());
+                        if (adapter.trimOldest(MAX_WINDOW) > 0) hasOlder = true;
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    loadingNewer = false;
+                    Log.e(TAG, "Loading newer messages failed", e);
+                });
+    }
+
+    /**
+     * Show the history around one message (a search hit): the page ending at
+     * it plus the page after it, with the live page kept aside until the user
+     * scrolls down to it.
+     */
+    private void openAtAnchor(String messageId, Timestamp at) {
+        if (TextUtils.isEmpty(messageId)) return;
+        followingLatest = false;
+        initialPageLoaded = true;
+
+        Task<QuerySnapshot> olderTask = messagesQuery().endAt(at).limitToLast(PAGE_SIZE).get();
+        Task<QuerySnapshot> newerTask = messagesQuery().startAfter(at).limit(PAGE_SIZE).get();
+
+        Tasks.whenAllSuccess(olderTask, newerTask)
+                .addOnSuccessListener(results -> {
+                    List<Message> older = toMessages(olderTask.getResult());
+                    List<Message> newer = toMessages(newerTask.getResult());
+
+                    List<Message> window = new ArrayList<>(older);
+                    window.addAll(newer);
+                    adapter.setMessages(window);
+                    hasOlder = older.size() >= PAGE_SIZE;
+
+                    // anchor is close to the end → the live page picks up from here
+                    if (newer.size() < PAGE_SIZE) {
+                        followingLatest = true;
+                        adapter.mergeLatest(latestMessages());
+                        if (adapter.trimOldest(MAX_WINDOW) > 0) hasOlder = true;
+                    }
+
+                    int pos = adapter.indexOf(messageId);
+                    if (pos >= 0) {
+                        adapter.setHighlightedId(messageId);
+                        LinearLayoutManager lm = (LinearLayoutManager) rvMessages.getLayoutManager();
+                        if (lm != null) lm.scrollToPositionWithOffset(pos, rvMessages.getHeight() / 3);
                     }
-                    adapter.setMessages(list);
-                    rvMessages.scrollToPosition(Math.max(list.size() - 1, 0));
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Loading messages around anchor failed", e);
+                    jumpToLatest();
                 });
     }
 
+    private void indexForSearch(List<DocumentChange> changes) {
+        if (searchIndex == null) return;
+        List<Message> list = new ArrayList<>();
+        for (DocumentChange dc : changes) {
+            if (dc.getType() == DocumentChange.Type.REMOVED) continue;
+            Message m = toMessage(dc.getDocument());
+            if (m != null) list.add(m);
+        }
+        searchIndex.index(conversationId, otherUserId, list);
+    }
+
+    /** Drop the scrolled-back window and show the live page again. */
+    private void jumpToLatest() {
+        if (!followingLatest) {
+            followingLatest = true;
+            adapter.setMessages(latestMessages());
+            hasOlder = true;
+        }
+        scrollToBottom();
+    }
+
+    private List<Message> latestMessages() {
+        return latestPage != null ? toMessages(latestPage) : new ArrayList<>();
+    }
+
+    private List<Message> toMessages(QuerySnapshot qs) {
+        List<Message> list = new ArrayList<>();
+        for (QueryDocumentSnapshot d : qs) {
+            Message m = toMessage(d);
+            if (m != null) list.add(m);
+        }
+        return list;
+    }
+
+    @Nullable
+    private Message toMessage(DocumentSnapshot d) {
+        Message m = d.toObject(Message.class);
+        if (m == null) return null;
+        m.id = d.getId();
+        m.snapshot = d;
+        // sends go through the outbox transaction, which has no local pending
+        // write; queued rows are shown from the outbox until onMessagesSent
+        if (failedMessages.containsKey(m.id)) m.state = Message.STATE_FAILED;
+        return m;
+    }
+
+    private boolean isNearBottom() {
+        LinearLayoutManager lm = (LinearLayoutManager) rvMessages.getLayoutManager();
+        if (lm == null || adapter.getItemCount() == 0) return true;
+        return lm.findLastVisibleItemPosition() >= adapter.getItemCount() - 2;
+    }
+
+    private void scrollToBottom() {
+        rvMessages.scrollToPosition(Math.max(adapter.getItemCount() - 1, 0));
+    }
+
     private void sendMessage(String text) {
         // Clear input immediately for snappy UX
         etMessage.setText("");
+        jumpToLatest();
 
-        DocumentReference convoRef = db.collection("conversations")
-                .document(conversationId);
+        // Pre-allocate the id so a replay rewrites the same document
+        DocumentReference msgRef = db.collection("conversations")
+                .document(conversationId)
+                .collection("messages")
+                .document();
 
-        // Build message object
         Message msg = new Message(
                 text,
                 currentUserId,
                 otherUserId,
                 Timestamp.now()
         );
+        msg.id = msgRef.getId();
+        msg.state = Message.STATE_PENDING;
+
+        // Show it right away; the outbox persists it and sends when online
+        adapter.applyChange(DocumentChange.Type.ADDED, msg);
+        scrollToBottom();
+        outbox.enqueue(conversationId, msg, propertyId);
+        if (searchIndex != null) searchIndex.index(conversationId, otherUserId, Collections.singletonList(msg));
+    }
 
-        // Ensure conversation doc exists + update lastMessage
-        HashMap<String, Object> convoData = new HashMap<>();
-        convoData.put("participants", Arrays.asList(currentUserId, otherUserId));
-        convoData.put("lastMessageText", text);
-        convoData.put("lastMessageAt", msg.createdAt);
-        convoData.put("lastSenderId", currentUserId);
-        convoData.put("propertyId", propertyId); // can be null, that's okay
+    /** Messages queued by an earlier session (possibly a killed process). */
+    private void showQueuedMessages() {
+        outbox.loadPending(conversationId, pending -> {
+            if (isFinishing() || !followingLatest) return;
+            for (Message m : pending) {
+                adapter.applyChange(DocumentChange.Type.ADDED, m);
+            }
+            if (!pending.isEmpty()) scrollToBottom();
+        });
+    }
 
-        convoRef.set(convoData, SetOptions.merge());
+    private void retryMessage(Message msg) {
+        failedMessages.remove(msg.id);
+        msg.state = Message.STATE_PENDING;
+        adapter.applyChange(DocumentChange.Type.MODIFIED, msg);
+        // re-queued if the server rejected it and it was dropped
+        outbox.retry(conversationId, msg, propertyId);
+    }
 
-        // Add message in subcollection
-        convoRef.collection("messages")
-                .add(msg)
-                .addOnFailureListener(e -> {
-                    // Optional: show a Toast if you want to notify user of failure
-                    // Toast.makeText(this, "Failed to send: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                });
+    @Override
+    public void onMessagesSent(List<String> messageIds) {
+        for (String id : messageIds) {
+            failedMessages.remove(id);
+            // the server snapshot can arrive first and map the row from failedMessages
+            Message m = adapter.findById(id);
+            if (m == null || m.state == Message.STATE_SENT) continue;
+            m.state = Message.STATE_SENT;
+            adapter.applyChange(DocumentChange.Type.MODIFIED, m);
+        }
+    }
+
+    @Override
+    public void onMessagesFailed(List<String> messageIds, Exception e) {
+        for (String id : messageIds) {
+            Message m = adapter.findById(id);
+            if (m == null) continue;
+            m.state = Message.STATE_FAILED;
+            failedMessages.put(id, m);
+            adapter.applyChange(DocumentChange.Type.MODIFIED, m);
+        }
+    }
+
+    // ─────────────────────────────────────────────
+    //  Unread counter + read receipts
+    // ─────────────────────────────────────────────
+
+    /**
+     * Zero unreadCounts.{me} on the conversation and take the same amount off
+     * users/{me}.unreadTotal. Done in a transaction so a message arriving in
+     * between is never lost from either counter.
+     */
+    private void clearUnread() {
+        if (clearingUnread) return;
+        clearingUnread = true;
+
+        DocumentReference convoRef = db.collection("conversations").document(conversationId);
+        DocumentReference meRef    = db.collection("users").document(currentUserId);
+        String field = "unreadCounts." + currentUserId;
+
+        db.runTransaction(tx -> {
+            DocumentSnapshot convo = tx.get(convoRef);
+            Long unread = convo.exists() ? convo.getLong(field) : null;
+            if (unread == null || unread <= 0) return null;
+
+            tx.update(convoRef, field, 0);
+            tx.update(meRef, "unreadTotal", FieldValue.increment(-unread));
+            return null;
+        }).addOnCompleteListener(task -> {
+            clearingUnread = false;
+            if (!task.isSuccessful()) {
+                Log.w(TAG, "Could not reset unread count", task.getException());
+            }
+        });
+    }
+
+    private void scheduleReceipts() {
+        if (!resumed) return;
+        receiptHandler.removeCallbacks(receiptRunnable);
+        receiptHandler.postDelayed(receiptRunnable, RECEIPT_DELAY_MS);
+    }
+
+    /**
+     * One batch for the rows on screen: incoming messages there become seen
+     * (and delivered). Nothing outside the visible range is touched, so a
+     * long loaded window never turns into a burst of writes.
+     */
+    private void writeReceipts() {
+        LinearLayoutManager lm = (LinearLayoutManager) rvMessages.getLayoutManager();
+        if (lm == null || !resumed) return;
+
+        int first = lm.findFirstVisibleItemPosition();
+        int last  = lm.findLastVisibleItemPosition();
+        if (first == RecyclerView.NO_POSITION) return;
+
+        WriteBatch batch = db.batch();
+        int writes = 0;
+
+        for (int i = first; i <= last && i < adapter.getItemCount(); i++) {
+            Message m = adapter.getItem(i);
+            if (m == null || m.id == null || !otherUserId.equals(m.senderId)) continue;
+
+            DocumentReference ref = db.collection("conversations")
+                    .document(conversationId)
+                    .collection("messages")
+                    .document(m.id);
+
+            if (!m.seen && markedSeen.add(m.id)) {
+                markedDelivered.add(m.id);
+                batch.update(ref, "seen", true, "delivered", true);
+                writes++;
+            } else if (!m.delivered && markedDelivered.add(m.id)) {
+                batch.update(ref, "delivered", true);
+                writes++;
+            }
+        }
+
+        if (writes == 0) return;
+        batch.commit().addOnFailureListener(e -> Log.w(TAG, "Read receipts failed", e));
     }
 
     /**
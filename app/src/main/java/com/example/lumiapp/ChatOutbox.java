@@ -0,0 +1,472 @@
+package com.example.lumiapp;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.SetOptions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Persistent queue of outgoing chat messages.
+ *
+ * Messages are stored in SQLite before anything is sent, so they survive the
+ * app being killed while offline. When a network is available the queue is
+ * flushed in order as one transaction: every queued message plus a single
+ * lastMessage / participantInfo / unread counter update per conversation. Failed flushes back off exponentially.
+ * A flush the server rejects outright (permission, invalid data) is retried
+ * one row at a time; the row that is refused is dropped from the queue and
+ * reported as failed, so it can't hold back everything queued after it.
+ *
+ * Message ids are allocated up front. A row that already reached the server
+ * (its ack was lost) is found by id inside the transaction and not written
+ * again, so the receiver's seen / delivered flags survive a replay.
+ */
+public class ChatOutbox extends SQLiteOpenHelper {
+
+    private static final String TAG = "ChatOutbox";
+
+    private static final String DB_NAME = "chat_outbox.db";
+    private static final int DB_VERSION = 1;
+    private static final String TABLE = "outbox";
+
+    private static final long BASE_BACKOFF_MS = 2_000;
+    private static final long MAX_BACKOFF_MS  = 5 * 60_000;
+    // each message can also touch its conversation and its receiver's users doc,
+    // so 160 keeps even the worst case under the 500 writes/commit limit
+    private static final int MAX_MESSAGES_PER_FLUSH = 160;
+
+    /** Notified on the main thread when queued messages are confirmed or rejected. */
+    public interface Listener {
+        void onMessagesSent(List<String> messageIds);
+
+        /**
+         * The server refused these messages and they were dropped from the
+         * queue. Flushes that merely failed (offline, contention) are not
+         * reported: the messages stay queued and are retried with backoff.
+         */
+        void onMessagesFailed(List<String> messageIds, Exception e);
+    }
+
+    private static ChatOutbox instance;
+
+    public static synchronized ChatOutbox get(Context context) {
+        if (instance == null) {
+            instance = new ChatOutbox(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private final Context appContext;
+    private final ExecutorService io = Executors.newSingleThreadExecutor();
+    private final Handler main = new Handler(Looper.getMainLooper());
+    private final List<Listener> listeners = new ArrayList<>();
+
+    private boolean started = false;
+    private boolean flushing = false;
+    private int attempts = 0;
+    private int isolateRemaining = 0;   // rows still to send one by one after a rejected flush
+    private final Runnable retryRunnable = this::flush;
+
+    private ChatOutbox(Context context) {
+        super(context, DB_NAME, null, DB_VERSION);
+        this.appContext = context;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE + " ("
+                + "seq INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + "message_id TEXT NOT NULL UNIQUE, "
+                + "conversation_id TEXT NOT NULL, "
+                + "sender_id TEXT NOT NULL, "
+                + "receiver_id TEXT NOT NULL, "
+                + "property_id TEXT, "
+                + "text TEXT, "
+                + "created_seconds INTEGER NOT NULL, "
+                + "created_nanos INTEGER NOT NULL)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // first version, nothing to migrate yet
+    }
+
+    // ─────────────────────────────────────────────
+    //  Lifecycle
+    // ─────────────────────────────────────────────
+
+    /** Start watching connectivity and replay anything left from a previous process. */
+    public void start() {
+        if (started) return;
+        started = true;
+
+        ConnectivityManager cm = appContext.getSystemService(ConnectivityManager.class);
+        if (cm != null) {
+            cm.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+                @Override
+                public void onAvailable(@NonNull Network network) {
+                    main.post(() -> {
+                        attempts = 0;
+                        flush();
+                    });
+                }
+            });
+        }
+        flush();
+    }
+
+    public void addListener(Listener l) {
+        listeners.add(l);
+    }
+
+    public void removeListener(Listener l) {
+        listeners.remove(l);
+    }
+
+    // ─────────────────────────────────────────────
+    //  Queue
+    // ─────────────────────────────────────────────
+
+    /** Persist one outgoing message, then try to send it. */
+    public void enqueue(String conversationId, Message msg, @Nullable String propertyId) {
+        insert(conversationId, msg, propertyId, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    /**
+     * Send a failed message again. A row that is still queued keeps its
+     * place; one the server rejected (and that was dropped) is queued anew.
+     */
+    public void retry(String conversationId, Message msg, @Nullable String propertyId) {
+        main.removeCallbacks(retryRunnable);
+        attempts = 0;
+        insert(conversationId, msg, propertyId, SQLiteDatabase.CONFLICT_IGNORE);
+    }
+
+    private void insert(String conversationId, Message msg, @Nullable String propertyId, int conflict) {
+        ContentValues cv = new ContentValues();
+        cv.put("message_id", msg.id);
+        cv.put("conversation_id", conversationId);
+        cv.put("sender_id", msg.senderId);
+        cv.put("receiver_id", msg.receiverId);
+        cv.put("property_id", propertyId);
+        cv.put("text", msg.text);
+        cv.put("created_seconds", msg.createdAt.getSeconds());
+        cv.put("created_nanos", msg.createdAt.getNanoseconds());
+
+        io.execute(() -> {
+            getWritableDatabase().insertWithOnConflict(TABLE, null, cv, conflict);
+            main.post(this::flush);
+        });
+    }
+
+    /** Messages for one conversation that haven't been confirmed yet, oldest first. */
+    public void loadPending(String conversationId, PendingCallback callback) {
+        io.execute(() -> {
+            List<QueuedMessage> rows = query("conversation_id = ?", new String[]{conversationId}, null);
+            List<Message> list = new ArrayList<>();
+            for (QueuedMessage q : rows) list.add(q.message);
+            main.post(() -> callback.onLoaded(list));
+        });
+    }
+
+    public interface PendingCallback {
+        void onLoaded(List<Message> messages);
+    }
+
+    /** Skip the current backoff and try again now (e.g. user tapped retry). */
+    public void retryNow() {
+        main.removeCallbacks(retryRunnable);
+        attempts = 0;
+        flush();
+    }
+
+    // ─────────────────────────────────────────────
+    //  Flush
+    // ─────────────────────────────────────────────
+
+    private void flush() {
+        if (flushing || !isOnline()) return;
+        flushing = true;
+
+        io.execute(() -> {
+            int limit = isolateRemaining > 0 ? 1 : MAX_MESSAGES_PER_FLUSH;
+            List<QueuedMessage> rows = query(null, null, String.valueOf(limit));
+            main.post(() -> {
+                if (rows.isEmpty()) {
+                    flushing = false;
+                    return;
+                }
+                commit(rows);
+            });
+        });
+    }
+
+    private void commit(List<QueuedMessage> rows) {
+        FirebaseFirestore db = FirebaseFirestore.getInstance();
+        UserProfileRepository profiles = UserProfileRepository.get(appContext);
+
+        List<String> ids = new ArrayList<>();
+        for (QueuedMessage q : rows) ids.add(q.message.id);
+
+        // profiles are main-thread only; the transaction body runs on a worker
+        Map<String, Map<String, Object>> participantInfoPerConversation = new HashMap<>();
+        Map<String, String> senderNamePerConversation = new HashMap<>();
+        for (QueuedMessage last : lastPerConversation(rows).values()) {
+            // denormalized names/avatars for the inbox lists; merge() keeps
+            // entries we don't have a cached profile for
+            Map<String, Object> participantInfo = new HashMap<>();
+            for (String uid : Arrays.asList(last.message.senderId, last.message.receiverId)) {
+                Map<String, Object> info = ParticipantInfo.of(profiles.peek(uid));
+                if (info != null) participantInfo.put(uid, info);
+            }
+            participantInfoPerConversation.put(last.conversationId, participantInfo);
+
+            UserProfile sender = profiles.peek(last.message.senderId);
+            senderNamePerConversation.put(last.conversationId, sender != null ? sender.name : null);
+        }
+
+        db.runTransaction(tx -> {
+            // 🔹 A message that already exists reached the server in an earlier
+            //    flush whose success never got back to us (process killed, app
+            //    offline before the ack). Rewriting it would reset the receiver's
+            //    seen / delivered flags, so only new ones are written.
+            List<QueuedMessage> fresh = new ArrayList<>();
+            for (QueuedMessage q : rows) {
+                if (!tx.get(messageRef(db, q)).exists()) fresh.add(q);
+            }
+
+            // conversation → receiver → messages they haven't read yet; counted
+            // from new messages only, so a replay never bumps a badge twice
+            Map<String, Map<String, Long>> unreadPerConversation = new HashMap<>();
+            Map<String, Long> unreadPerUser = new HashMap<>();
+            for (QueuedMessage q : fresh) {
+                tx.set(messageRef(db, q), q.message);
+
+                Map<String, Long> unread = unreadPerConversation.get(q.conversationId);
+                if (unread == null) {
+                    unread = new HashMap<>();
+                    unreadPerConversation.put(q.conversationId, unread);
+                }
+                String to = q.message.receiverId;
+                unread.put(to, unread.containsKey(to) ? unread.get(to) + 1 : 1L);
+                unreadPerUser.put(to, unreadPerUser.containsKey(to) ? unreadPerUser.get(to) + 1 : 1L);
+            }
+
+            // conversations with nothing new keep their lastMessage / counters
+            for (Map.Entry<String, QueuedMessage> entry : lastPerConversation(fresh).entrySet()) {
+                QueuedMessage last = entry.getValue();
+
+                Map<String, Object> convoData = new HashMap<>();
+                convoData.put("participants", Arrays.asList(last.message.senderId, last.message.receiverId));
+                convoData.put("lastMessageText", last.message.text);
+                convoData.put("lastMessageAt", last.message.createdAt);
+                convoData.put("lastSenderId", last.message.senderId);
+                if (last.propertyId != null) {
+                    convoData.put("propertyId", last.propertyId);
+                }
+
+                Map<String, Object> participantInfo = participantInfoPerConversation.get(entry.getKey());
+                if (!participantInfo.isEmpty()) {
+                    convoData.put(ParticipantInfo.FIELD, participantInfo);
+                }
+
+                // unreadCounts.{receiverUid} += n; ChatActivity resets it when opened
+                Map<String, Object> unreadCounts = new HashMap<>();
+                for (Map.Entry<String, Long> u : unreadPerConversation.get(entry.getKey()).entrySet()) {
+                    unreadCounts.put(u.getKey(), FieldValue.increment(u.getValue()));
+                }
+                convoData.put("unreadCounts", unreadCounts);
+
+                tx.set(db.collection("conversations").document(entry.getKey()),
+                        convoData, SetOptions.merge());
+
+                // one dashboard entry per conversation and flush, not per message;
+                // keyed by the flush's last message so a replay lands on the same row
+                ActivityLog.addTo(tx, "message_" + last.message.id, ActivityLog.entry(last.propertyId, ActivityLog.TYPE_MESSAGE,
+                        entry.getKey(), last.message.senderId, senderNamePerConversation.get(entry.getKey()),
+                        last.message.text, null));
+            }
+
+            // one counter per user feeds the tab bar badge without touching conversations
+            for (Map.Entry<String, Long> u : unreadPerUser.entrySet()) {
+                Map<String, Object> userData = new HashMap<>();
+                userData.put("unreadTotal", FieldValue.increment(u.getValue()));
+                tx.set(db.collection("users").document(u.getKey()), userData, SetOptions.merge());
+            }
+            return null;
+        })
+                .addOnSuccessListener(unused -> {
+                    attempts = 0;
+                    if (isolateRemaining > 0) isolateRemaining--;
+                    io.execute(() -> {
+                        delete(ids);
+                        main.post(() -> {
+                            flushing = false;
+                            for (Listener l : new ArrayList<>(listeners)) l.onMessagesSent(ids);
+                            // more may have been queued meanwhile
+                            flush();
+                        });
+                    });
+                })
+                .addOnFailureListener(e -> {
+                    if (isRejected(e)) {
+                        onRejected(rows, ids, e);
+                        return;
+                    }
+                    // still queued: the rows stay "sending" until the backoff retry lands
+                    flushing = false;
+                    Log.e(TAG, "Outbox flush failed (attempt " + (attempts + 1) + ")", e);
+                    scheduleRetry();
+                });
+    }
+
+    /** The server refused the flush; retrying the same rows can't succeed. */
+    private void onRejected(List<QueuedMessage> rows, List<String> ids, Exception e) {
+        if (rows.size() > 1) {
+            // one of them is bad: send them one at a time to find it
+            Log.w(TAG, "Outbox flush rejected, retrying " + rows.size() + " messages one by one", e);
+            isolateRemaining = rows.size();
+            flushing = false;
+            flush();
+            return;
+        }
+
+        // 🔹 This message will never be accepted: drop it so the rest of the queue moves on
+        Log.e(TAG, "Outbox message rejected, dropped: " + ids.get(0), e);
+        if (isolateRemaining > 0) isolateRemaining--;
+        io.execute(() -> {
+            delete(ids);
+            main.post(() -> {
+                flushing = false;
+                for (Listener l : new ArrayList<>(listeners)) l.onMessagesFailed(ids, e);
+                flush();
+            });
+        });
+    }
+
+    /** Errors a retry won't fix. Anything else (offline, contention, quota) backs off. */
+    private static boolean isRejected(Exception e) {
+        if (!(e instanceof FirebaseFirestoreException)) return false;
+        switch (((FirebaseFirestoreException) e).getCode()) {
+            case PERMISSION_DENIED:
+            case INVALID_ARGUMENT:
+            case OUT_OF_RANGE:
+            case UNIMPLEMENTED:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /** Rows are in send order, so the last one per conversation wins. */
+    private static Map<String, QueuedMessage> lastPerConversation(List<QueuedMessage> rows) {
+        Map<String, QueuedMessage> last = new LinkedHashMap<>();
+        for (QueuedMessage q : rows) last.put(q.conversationId, q);
+        return last;
+    }
+
+    private static DocumentReference messageRef(FirebaseFirestore db, QueuedMessage q) {
+        return db.collection("conversations")
+                .document(q.conversationId)
+                .collection("messages")
+                .document(q.message.id);
+    }
+
+    private void scheduleRetry() {
+        long delay = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << Math.min(attempts, 16));
+        // +/- 20% jitter so many devices don't retry in lockstep
+        delay += (long) (delay * 0.2 * (Math.random() * 2 - 1));
+        attempts++;
+
+        main.removeCallbacks(retryRunnable);
+        main.postDelayed(retryRunnable, delay);
+    }
+
+    private boolean isOnline() {
+        ConnectivityManager cm = appContext.getSystemService(ConnectivityManager.class);
+        if (cm == null) return true;
+        NetworkCapabilities caps = cm.getNetworkCapabilities(cm.getActiveNetwork());
+        return caps != null && caps.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET);
+    }
+
+    // ─────────────────────────────────────────────
+    //  SQLite helpers (io thread only)
+    // ─────────────────────────────────────────────
+
+    private List<QueuedMessage> query(@Nullable String selection,
+                                      @Nullable String[] args,
+                                      @Nullable String limit) {
+        List<QueuedMessage> out = new ArrayList<>();
+        try (Cursor c = getReadableDatabase().query(TABLE, null, selection, args,
+                null, null, "seq ASC", limit)) {
+            while (c.moveToNext()) {
+                Message m = new Message(
+                        c.getString(c.getColumnIndexOrThrow("text")),
+                        c.getString(c.getColumnIndexOrThrow("sender_id")),
+                        c.getString(c.getColumnIndexOrThrow("receiver_id")),
+                        new Timestamp(
+                                c.getLong(c.getColumnIndexOrThrow("created_seconds")),
+                                c.getInt(c.getColumnIndexOrThrow("created_nanos")))
+                );
+                m.id = c.getString(c.getColumnIndexOrThrow("message_id"));
+                m.state = Message.STATE_PENDING;
+
+                out.add(new QueuedMessage(
+                        c.getString(c.getColumnIndexOrThrow("conversation_id")),
+                        c.getString(c.getColumnIndexOrThrow("property_id")),
+                        m));
+            }
+        }
+        return out;
+    }
+
+    private void delete(List<String> messageIds) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (String id : messageIds) {
+                db.delete(TABLE, "message_id = ?", new String[]{id});
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private static class QueuedMessage {
+        final String conversationId;
+        final String propertyId;
+        final Message message;
+
+        QueuedMessage(String conversationId, String propertyId, Message message) {
+            this.conversationId = conversationId;
+            this.propertyId = propertyId;
+            this.message = message;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.lumiapp;
 
+import android.graphics.drawable.Drawable;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -7,30 +8,68 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.util.ViewPreloadSizeProvider;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 
-public class ComplaintAdapter extends RecyclerView.Adapter<ComplaintAdapter.VH> {
+public class ComplaintAdapter extends ListAdapter<Complaint, ComplaintAdapter.VH>
+        implements ListPreloader.PreloadModelProvider<String> {
 
     public interface OnItemClick {
         void onClick(Complaint c);
     }
 
-    private final ArrayList<Complaint> items = new ArrayList<>();
+    // 🔹 Same doc id → same row; equals() decides whether it needs a rebind
+    private static final DiffUtil.ItemCallback<Complaint> DIFF = new DiffUtil.ItemCallback<Complaint>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Complaint a, @NonNull Complaint b) {
+            return Objects.equals(a.id, b.id);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Complaint a, @NonNull Complaint b) {
+            return a.equals(b);
+        }
+    };
+
     private final OnItemClick click;
+    private final ViewPreloadSizeProvider<String> preloadSizes = new ViewPreloadSizeProvider<>();
+    private RequestManager glide;
 
     public ComplaintAdapter(OnItemClick click) {
+        super(DIFF);
         this.click = click;
+        setHasStableIds(true);
+    }
+
+    /** Diffed on a background thread; only rows that changed are rebound. */
+    public void setItems(@NonNull List<Complaint> list) {
+        submitList(new ArrayList<>(list));
+    }
+
+    @Override
+    public long getItemId(int position) {
+        String id = getItem(position).id;
+        return id != null ? id.hashCode() : RecyclerView.NO_ID;
     }
 
-    public void setItems(@NonNull java.util.List<Complaint> list) {
-        items.clear();
-        items.addAll(list);
-        notifyDataSetChanged();
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        glide = Glide.with(recyclerView);
     }
 
     @NonNull
@@ -44,7 +83,7 @@ public class ComplaintAdapter extends RecyclerView.Adapter<ComplaintAdapter.VH>
 
     @Override
     public void onBindViewHolder(@NonNull VH h, int position) {
-        Complaint c = items.get(position);
+        Complaint c = getItem(position);
 
         // Title: "Complaint #ABC123"
         String shortId = c.shortId;
@@ -63,7 +102,7 @@ public class ComplaintAdapter extends RecyclerView.Adapter<ComplaintAdapter.VH>
         h.tvProperty.setText(c.propertyAddress != null ? c.propertyAddress : "—");
 
         // Status + pill background
-        String st = c.status != null ? c.status.toLowerCase(Locale.US) : "open";
+        String st = c.shownStatus() != null ? c.shownStatus().toLowerCase(Locale.US) : "open";
         h.tvStatus.setText(st);
         if ("closed".equals(st)) {
             h.tvStatus.setBackgroundResource(R.drawable.bg_status_closed);
@@ -75,12 +114,8 @@ public class ComplaintAdapter extends RecyclerView.Adapter<ComplaintAdapter.VH>
 
         // 🔹 Image or placeholder
         if (c.imageUrl != null && !c.imageUrl.isEmpty()) {
-            Glide.with(h.itemView.getContext())
-                    .load(c.imageUrl)
-                    .centerCrop()
-                    .placeholder(R.drawable.ic_complaint_placeholder)
-                    .error(R.drawable.ic_complaint_placeholder)
-                    .into(h.ivComplaintImage);
+            preloadSizes.setView(h.ivComplaintImage);
+            thumbnail(glide, c.thumbOrFull()).into(h.ivComplaintImage);
         } else {
             // No image uploaded → show placeholder
             h.ivComplaintImage.setImageResource(R.drawable.ic_complaint_placeholder);
@@ -92,9 +127,35 @@ public class ComplaintAdapter extends RecyclerView.Adapter<ComplaintAdapter.VH>
         });
     }
 
+    // ─────────────────────────────────────────────
+    //  Preloading (RecyclerViewPreloader)
+    // ─────────────────────────────────────────────
+
+    /** Same request for bind and preload, so the preloaded bitmap is a cache hit. */
+    private static RequestBuilder<Drawable> thumbnail(RequestManager glide, String url) {
+        return glide.load(url)
+                .apply(LumiGlideModule.SMALL)
+                .centerCrop()
+                .placeholder(R.drawable.ic_complaint_placeholder)
+                .error(R.drawable.ic_complaint_placeholder);
+    }
+
+    public ViewPreloadSizeProvider<String> preloadSizes() {
+        return preloadSizes;
+    }
+
+    @NonNull
+    @Override
+    public List<String> getPreloadItems(int position) {
+        if (position >= getItemCount()) return Collections.emptyList();
+        String url = getItem(position).thumbOrFull();
+        return url != null && !url.isEmpty() ? Collections.singletonList(url) : Collections.emptyList();
+    }
+
+    @Nullable
     @Override
-    public int getItemCount() {
-        return items.size();
+    public RequestBuilder<?> getPreloadRequestBuilder(@NonNull String url) {
+        return glide != null ? thumbnail(glide, url) : null;
     }
 
     static class VH extends RecyclerView.ViewHolder {
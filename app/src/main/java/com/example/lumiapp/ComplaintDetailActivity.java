@@ -1,7 +1,10 @@
 package com.example.lumiapp;
 
+import android.content.Intent;
+import android.net.Uri;
 import android.os.Bundle;
 import android.text.TextUtils;
+import android.util.Log;
 import android.view.Gravity;
 import android.view.View;
 import android.widget.ImageButton;
@@ -17,13 +20,15 @@ import androidx.appcompat.app.AppCompatActivity;
 import com.bumptech.glide.Glide;
 import com.google.android.material.button.MaterialButton;
 import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
 
 import java.util.Locale;
 
 public class ComplaintDetailActivity extends AppCompatActivity {
 
+    private static final String TAG = "ComplaintDetail";
+
     public static final String EXTRA_COMPLAINT_ID = "complaintId";
 
     private ImageButton backBtn;
@@ -39,6 +44,10 @@ public class ComplaintDetailActivity extends AppCompatActivity {
     private String myUid;
     private String myRole;         // "renter" | "manager"
 
+    private ListenerRegistration complaintReg;   // live doc while we're visible
+    private boolean deleting;
+    private long awaitVersion;   // statusVersion our last change will produce; button waits for it
+
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -56,9 +65,28 @@ public class ComplaintDetailActivity extends AppCompatActivity {
 
         bindViews();
         wireClicks();
+
+        // 🔹 Opened from a list → the complaint is already in memory; render it
+        //    right away, the live listener reconciles in the background
+        complaint = TicketCache.get().peekComplaint(complaintId);
         loadUserRoleThenComplaint();
     }
 
+    @Override
+    protected void onStart() {
+        super.onStart();
+        listenComplaint();
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        if (complaintReg != null) {
+            complaintReg.remove();
+            complaintReg = null;
+        }
+    }
+
     private void bindViews() {
         backBtn = findViewById(R.id.back_btn);
         tvTitle = findViewById(R.id.tvTitle);
@@ -124,45 +152,57 @@ public class ComplaintDetailActivity extends AppCompatActivity {
             return;
         }
 
-        db.collection("users").document(myUid).get()
-                .addOnSuccessListener(snap -> {
-                    // IMPORTANT: use userType (same as CreateComplaint & PMAccSetup)
-                    myRole = snap.getString("userType");
-                    if (myRole == null) myRole = "renter";
-                    loadComplaint();
-                })
-                .addOnFailureListener(e -> {
-                    myRole = "renter";
-                    loadComplaint();
-                });
+        // IMPORTANT: use userType (same as CreateComplaint & PMAccSetup); no read once the session is loaded
+        UserSession.get().whenReady(session -> {
+            myRole = session.getUserType();
+            if (myRole == null) myRole = "renter";
+            if (complaint != null) bindDataToUI();
+        });
     }
 
-    private void loadComplaint() {
-        DocumentReference ref = db.collection("complaints").document(complaintId);
-        ref.get().addOnSuccessListener(doc -> {
-            if (!doc.exists()) {
-                Toast.makeText(this, "Complaint not found", Toast.LENGTH_SHORT).show();
-                finish();
-                return;
-            }
-            complaint = doc.toObject(Complaint.class);
-            if (complaint == null) {
-                finish();
-                return;
-            }
-            complaint.id = doc.getId();
-
-            // derive shortId if missing
-            if ((complaint.shortId == null || complaint.shortId.isEmpty())
-                    && complaint.id != null && complaint.id.length() >= 6) {
-                complaint.shortId = complaint.id.substring(0, 6).toUpperCase(Locale.US);
-            }
-            bindDataToUI();
-
-        }).addOnFailureListener(e -> {
-            Toast.makeText(this, "Failed to load complaint", Toast.LENGTH_SHORT).show();
-            finish();
-        });
+    /**
+     * Live complaints/{id}. Every snapshot (our own writes included) also
+     * goes to {@link TicketCache}, so the list underneath patches the row.
+     */
+    private void listenComplaint() {
+        if (complaintReg != null || complaintId == null) return;
+
+        complaintReg = db.collection("complaints").document(complaintId)
+                .addSnapshotListener((doc, e) -> {
+                    if (e != null) {
+                        Log.e(TAG, "Complaint listen failed", e);
+                        if (complaint == null) {
+                            Toast.makeText(this, "Failed to load complaint", Toast.LENGTH_SHORT).show();
+                            finish();
+                        }
+                        return;
+                    }
+                    if (doc == null) return;
+                    TicketCache.get().publish(TicketCache.COMPLAINTS, doc);
+
+                    if (!doc.exists()) {
+                        if (deleting) return;   // our own delete; its handler closes the screen
+                        Toast.makeText(this, "Complaint not found", Toast.LENGTH_SHORT).show();
+                        finish();
+                        return;
+                    }
+
+                    Complaint c = doc.toObject(Complaint.class);
+                    if (c == null) {
+                        finish();
+                        return;
+                    }
+                    c.id = doc.getId();
+
+                    // derive shortId if missing
+                    if ((c.shortId == null || c.shortId.isEmpty())
+                            && c.id != null && c.id.length() >= 6) {
+                        c.shortId = c.id.substring(0, 6).toUpperCase(Locale.US);
+                    }
+                    complaint = c;
+                    TicketCache.get().putComplaint(c);
+                    if (myRole != null) bindDataToUI();
+                });
     }
 
     private void bindDataToUI() {
@@ -173,12 +213,13 @@ public class ComplaintDetailActivity extends AppCompatActivity {
         tvDesc.setText(complaint.description != null ? complaint.description : "—");
         tvProperty.setText(complaint.propertyAddress != null ? complaint.propertyAddress : "—");
 
-        // reflect status on the button
-        String status = complaint.status != null ? complaint.status : "open";
-        btnStatus.setText("Status  ▾   " + status);
+        // reflect status on the button (a change in flight shows as already made)
+        String status = TicketCache.get().effectiveStatus(TicketCache.COMPLAINTS,
+                complaint.id, complaint.status, complaint.statusVersion);
+        btnStatus.setText("Status  ▾   " + (status != null ? status : "open"));
 
-        // non-managers can't change status
-        if (!"manager".equalsIgnoreCase(myRole)) {
+        // non-managers can't change status; nobody can while a change is in flight
+        if (!"manager".equalsIgnoreCase(myRole) || complaint.statusVersion < awaitVersion) {
             btnStatus.setEnabled(false);
             btnStatus.setAlpha(0.85f);
         } else {
@@ -191,41 +232,86 @@ public class ComplaintDetailActivity extends AppCompatActivity {
             if (!TextUtils.isEmpty(complaint.imageUrl)) {
                 ivComplaintImage.setVisibility(View.VISIBLE);
                 Glide.with(this)
-                        .load(complaint.imageUrl)
+                        .load(complaint.mediumOrFull())
                         .centerCrop()
                         .into(ivComplaintImage);
+
+                // 🔹 full-size original only when opened full screen
+                String full = complaint.imageUrl;
+                ivComplaintImage.setOnClickListener(v -> {
+                    try {
+                        startActivity(new Intent(Intent.ACTION_VIEW, Uri.parse(full)));
+                    } catch (Exception ignored) {}
+                });
+            } else if (complaint.imagePending) {
+                // still uploading; the live listener brings the URL in
+                ivComplaintImage.setVisibility(View.VISIBLE);
+                ivComplaintImage.setImageResource(R.drawable.ic_complaint_placeholder);
+                ivComplaintImage.setOnClickListener(null);
             } else {
                 ivComplaintImage.setVisibility(View.GONE);
             }
         }
     }
 
+    /**
+     * Optimistic: the new status shows immediately (here and in the list),
+     * then a transaction commits it only if nobody changed the complaint since.
+     */
     private void updateStatus(String newStatus) {
         if (complaint == null) return;
+        String shown = TicketCache.get().effectiveStatus(TicketCache.COMPLAINTS, complaint.id, complaint.status, complaint.statusVersion);
+        if (newStatus.equals(shown != null ? shown : "open")) return;
+
+        awaitVersion = complaint.statusVersion + 1;
+        TicketStatusUpdater.update(this, complaint, newStatus, new TicketStatusUpdater.Callback() {
+            @Override
+            public void onUpdated() {
+                if (isFinishing()) return;
+                Toast.makeText(ComplaintDetailActivity.this, "Status updated", Toast.LENGTH_SHORT).show();
+            }
 
-        db.collection("complaints").document(complaint.id)
-                .update("status", newStatus)
-                .addOnSuccessListener(unused -> {
-                    complaint.status = newStatus;
-                    btnStatus.setText("Status  ▾   " + newStatus);
-                    Toast.makeText(this, "Status updated", Toast.LENGTH_SHORT).show();
-                })
-                .addOnFailureListener(e ->
-                        Toast.makeText(this, "Failed to update", Toast.LENGTH_SHORT).show()
-                );
+            @Override
+            public void onConflict(@Nullable String currentStatus) {
+                if (isFinishing()) return;
+                awaitVersion = 0;
+                if (complaint != null) bindDataToUI();   // rolled back to what the server has
+                new AlertDialog.Builder(ComplaintDetailActivity.this)
+                        .setTitle("Status not changed")
+                        .setMessage(currentStatus == null
+                                ? "This complaint was deleted by someone else."
+                                : "Someone else changed this complaint to \"" + currentStatus
+                                        + "\" first. Your change was not saved.")
+                        .setPositiveButton("OK", null)
+                        .show();
+            }
+
+            @Override
+            public void onFailed(Exception e) {
+                if (isFinishing()) return;
+                awaitVersion = 0;
+                if (complaint != null) bindDataToUI();
+                Toast.makeText(ComplaintDetailActivity.this, "Failed to update", Toast.LENGTH_SHORT).show();
+            }
+        });
+        bindDataToUI();   // pending status is set now
     }
 
     private void deleteComplaint() {
         if (complaint == null) return;
 
+        deleting = true;
         db.collection("complaints").document(complaint.id)
                 .delete()
                 .addOnSuccessListener(unused -> {
+                    TicketCounter.get(this).invalidateTicket(TicketCounter.COMPLAINTS,
+                            complaint.propertyId, complaint.createdById);
                     Toast.makeText(this, "Complaint deleted", Toast.LENGTH_SHORT).show();
                     finish();
                 })
-                .addOnFailureListener(e ->
-                        Toast.makeText(this, "Delete failed", Toast.LENGTH_SHORT).show()
-                );
+                .addOnFailureListener(e -> {
+                    deleting = false;
+                    Toast.makeText(this, "Delete failed", Toast.LENGTH_SHORT).show();
+                });
     }
 }
@@ -2,11 +2,11 @@ package com.example.lumiapp;
 
 import android.content.Intent;
 import android.os.Bundle;
-import android.text.TextUtils;
 import android.util.Log;
 import android.widget.ImageButton;
 import android.widget.ImageView;
 import android.widget.TextView;
+import android.widget.Toast;
 
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
@@ -14,17 +14,17 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.integration.recyclerview.RecyclerViewPreloader;
 import com.google.android.material.button.MaterialButton;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.ListenerRegistration;
 import com.google.firebase.firestore.Query;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.function.Consumer;
 
 public class ComplaintList extends AppCompatActivity {
 
@@ -43,9 +43,35 @@ public class ComplaintList extends AppCompatActivity {
     private String userId;
     private String role; // "renter" or "manager"
 
-    private ListenerRegistration renterReg;
-    private final List<ListenerRegistration> managerRegs = new ArrayList<>();
-    private ListenerRegistration userHeaderReg; // 🔹 for active property / renter property header image
+    private TicketPager<Complaint> pager;   // 🔹 paged list for one property / one renter
+    private MergedTicketFeed<Complaint> mergedFeed;   // 🔹 manager without an active property
+    private final UserSession.Listener sessionListener = this::bindSession;
+    private String listKey;           // what the list currently shows (role + property / renter)
+    private boolean started;
+    private final TicketFilter filter = new TicketFilter();   // 🔹 status + sort, part of the query
+
+    // 🔹 A detail screen changed / deleted a ticket: patch that row, no re-query
+    private final TicketCache.Listener cacheListener = new TicketCache.Listener() {
+        @Override
+        public void onTicketChanged(String collection, DocumentSnapshot doc) {
+            if (!TicketCache.COMPLAINTS.equals(collection)) return;
+            boolean keep = doc.exists() && filter.matches(doc);
+            if (pager != null) {
+                if (keep) pager.patch(doc); else pager.drop(doc.getId());
+            }
+            if (mergedFeed != null) {
+                if (keep) mergedFeed.patch(doc); else mergedFeed.drop(doc.getId());
+            }
+        }
+
+        @Override
+        public void onPendingStatusChanged(String collection, String id) {
+            // optimistic status set / rolled back → rows re-map through it
+            if (!TicketCache.COMPLAINTS.equals(collection)) return;
+            if (pager != null) pager.remap();
+            if (mergedFeed != null) mergedFeed.remap();
+        }
+    };
 
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
@@ -72,6 +98,9 @@ public class ComplaintList extends AppCompatActivity {
             startActivity(i);
         });
         rvComplaint.setAdapter(adapter);
+        // 🔹 decode the next screen of thumbnails before it scrolls in
+        rvComplaint.addOnScrollListener(new RecyclerViewPreloader<>(
+                Glide.with(this), adapter, adapter.preloadSizes(), LumiGlideModule.PRELOAD_ROWS));
 
         btnCreate = findViewById(R.id.create_complain);
         backBtn   = findViewById(R.id.back_btn);
@@ -81,266 +110,189 @@ public class ComplaintList extends AppCompatActivity {
         );
         backBtn.setOnClickListener(v -> finish());
 
+        TicketCache.get().addListener(cacheListener);
+
+        // 🔹 Status filter / sort mode → re-query (only matching tickets are fetched)
+        filter.bind(findViewById(R.id.btnFilter), findViewById(R.id.btnSort), this::requery);
+
         if (auth.getCurrentUser() == null) { finish(); return; }
         userId = auth.getCurrentUser().getUid();
-
-        listenActivePropertyHeader();   // 🔹 set header image based on role
-        loadUserRoleThenListen();       // 🔹 set up complaint query based on role
     }
 
     @Override
-    protected void onResume() {
-        super.onResume();
-        loadUserRoleThenListen();
+    protected void onStart() {
+        super.onStart();
+        started = true;
+        // 🔹 Role, active property and header all come from the session, which
+        //    stays current: switching the active property re-targets the list
+        UserSession.get().addListener(sessionListener);
+        UserSession.get().whenReady(this::bindSession);
+        // same list as before we were stopped → just re-attach its live page
+        if (pager != null) pager.resume();
+        if (mergedFeed != null) mergedFeed.resume();
     }
 
     @Override
     protected void onStop() {
         super.onStop();
-        if (renterReg != null) { renterReg.remove(); renterReg = null; }
-        for (ListenerRegistration r : managerRegs) r.remove();
-        managerRegs.clear();
-
-        if (userHeaderReg != null) {
-            userHeaderReg.remove();
-            userHeaderReg = null;
-        }
+        started = false;
+        UserSession.get().removeListener(sessionListener);
+        // keep the loaded rows (coming back from a detail screen shows them
+        // as patched through TicketCache); only the live listener is dropped
+        if (pager != null) pager.pause();
+        if (mergedFeed != null) mergedFeed.pause();
     }
 
-    /**
-     * Set header image:
-     *  - Manager: use users/{uid}.activePropertyImageUrl
-     *  - Renter:  use renters/{uid}.propertyId → properties/{propertyId}.imageUrl
-     */
-    private void listenActivePropertyHeader() {
-        if (userId == null || headerImage == null) return;
-
-        userHeaderReg = db.collection("users").document(userId)
-                .addSnapshotListener((snap, e) -> {
-                    if (e != null) {
-                        Log.e(TAG, "listenActivePropertyHeader error", e);
-                        setHeaderImage(null);
-                        return;
-                    }
-                    if (snap == null || !snap.exists()) {
-                        setHeaderImage(null);
-                        return;
-                    }
-
-                    String userType = snap.getString("userType");
-                    if (userType == null) userType = "renter";
-
-                    if ("manager".equalsIgnoreCase(userType)) {
-                        // 🔹 Manager → use activePropertyImageUrl (already set by PM dashboard)
-                        String imageUrl = snap.getString("activePropertyImageUrl");
-                        setHeaderImage(imageUrl);
-                    } else {
-                        // 🔹 Renter → get propertyId from /renters/{uid}, then property image
-                        db.collection("renters").document(userId)
-                                .get()
-                                .addOnSuccessListener(rSnap -> {
-                                    if (rSnap == null || !rSnap.exists()) {
-                                        setHeaderImage(null);
-                                        return;
-                                    }
-
-                                    String propertyId = rSnap.getString("propertyId");
-                                    if (TextUtils.isEmpty(propertyId)) {
-                                        setHeaderImage(null);
-                                        return;
-                                    }
-
-                                    db.collection("properties")
-                                            .document(propertyId)
-                                            .get()
-                                            .addOnSuccessListener(pSnap -> {
-                                                if (pSnap != null && pSnap.exists()) {
-                                                    String imageUrl = pSnap.getString("imageUrl");
-                                                    setHeaderImage(imageUrl);
-                                                } else {
-                                                    setHeaderImage(null);
-                                                }
-                                            })
-                                            .addOnFailureListener(err -> {
-                                                Log.e(TAG, "Property load failed", err);
-                                                setHeaderImage(null);
-                                            });
-                                })
-                                .addOnFailureListener(err -> {
-                                    Log.e(TAG, "Renter doc load failed", err);
-                                    setHeaderImage(null);
-                                });
-                    }
-                });
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        TicketCache.get().removeListener(cacheListener);
+        stopPager();
     }
 
-    private void setHeaderImage(@Nullable String imageUrl) {
-        if (headerImage == null) return;
-
-        if (!TextUtils.isEmpty(imageUrl)) {
-            Glide.with(this)
-                    .load(imageUrl)
-                    .centerCrop()
-                    .placeholder(R.drawable.img_dashboard_bg)
-                    .into(headerImage);
+    private void bindSession(UserSession session) {
+        if (!started) return;   // answered after we were stopped
+        bindHeader(session);
+
+        role = session.isManager() ? "manager" : "renter";
+        String activePropertyId = session.getActivePropertyId();
+
+        // only re-query when what we list actually changed
+        String key = !session.isManager()   ? "renter:" + userId
+                : activePropertyId != null ? "manager:" + activePropertyId
+                : "manager:all:" + session.getManagerOf();
+        key += "|" + filter.key();
+        if (key.equals(listKey)) return;
+        listKey = key;
+
+        stopPager();
+
+        if (session.isManager()) {
+            if (activePropertyId != null) {
+                // 🔹 Manager: prefer ACTIVE property only
+                listenManagerComplaintsForProperty(activePropertyId);
+            } else {
+                // fallback: live merged feed across all managerOf properties
+                listenManagerComplaintsForAll(session.getManagerOf());
+            }
         } else {
-            headerImage.setImageResource(R.drawable.img_dashboard_bg);
+            // 🔹 Renter: only their own tickets
+            listenRenterComplaints();
         }
     }
 
-    private void loadUserRoleThenListen() {
-        db.collection("users").document(userId).get()
-                .addOnSuccessListener(snap -> {
-                    role = snap.getString("userType");
-                    if (role == null) role = "renter";
-
-                    // Clear existing listeners
-                    if (renterReg != null) { renterReg.remove(); renterReg = null; }
-                    for (ListenerRegistration r : managerRegs) r.remove();
-                    managerRegs.clear();
-
-                    if ("manager".equalsIgnoreCase(role)) {
-                        // 🔹 Manager: only see complaints for the ACTIVE property
-                        String activePropertyId = snap.getString("activePropertyId");
-
-                        if (activePropertyId != null && !activePropertyId.isEmpty()) {
-                            listenManagerComplaintsForProperty(activePropertyId);
-                        } else {
-                            // fallback: old behavior based on managerOf list
-                            @SuppressWarnings("unchecked")
-                            List<String> managerOf = (List<String>) snap.get("managerOf");
-                            loadManagerComplaintsOnce(managerOf);
-                        }
-                    } else {
-                        // 🔹 Renter: only see their own complaints
-                        listenRenterComplaints();
-                    }
-                })
-                .addOnFailureListener(e -> Log.e(TAG, "loadUserRole failed", e));
+    private void requery() {
+        if (!started) return;
+        listKey = null;
+        UserSession.get().whenReady(this::bindSession);
+    }
+
+    /**
+     * Header image: the manager's active property, or the renter's own
+     * (renters/{uid}.propertyId). Cached and kept current by PropertyHeader.
+     */
+    private void bindHeader(UserSession session) {
+        if (headerImage == null) return;
+        String propertyId = session.isManager()
+                ? session.getActivePropertyId()
+                : session.getRenterPropertyId();
+        PropertyHeader.get(this).bind(headerImage, propertyId);
     }
 
     /**
      * Manager: live listen to complaints for ONE propertyId (active property).
      */
     private void listenManagerComplaintsForProperty(String propertyId) {
-        // We'll repurpose renterReg for this single listener
-        renterReg = db.collection("complaints")
-                .whereEqualTo("propertyId", propertyId)
-                .orderBy("createdAt", Query.Direction.DESCENDING)
-                .addSnapshotListener((qs, e) -> {
-                    if (e != null) {
-                        Log.e(TAG, "Manager listen failed, fallback", e);
-                        return;
-                    }
-                    if (qs == null) {
-                        adapter.setItems(new ArrayList<>());
-                        return;
-                    }
-
-                    ArrayList<Complaint> list = new ArrayList<>();
-                    for (QueryDocumentSnapshot d : qs) {
-                        Complaint c = d.toObject(Complaint.class);
-                        if (c == null) continue;
-                        c.id = d.getId();
-                        if (c.shortId == null && c.id.length() >= 6) {
-                            c.shortId = c.id.substring(0, 6).toUpperCase(Locale.US);
-                        }
-                        list.add(c);
-                    }
-                    adapter.setItems(list);
-                });
+        startPager(filter.apply(db.collection("complaints").whereEqualTo("propertyId", propertyId)),
+                e -> Log.e(TAG, "Manager listen failed (complaints)", e));
     }
 
     /**
-     * OLD behavior (fallback only): manager sees complaints for all properties in managerOf.
+     * Manager without an active property: live merged feed over every
+     * property in managerOf (see {@link MergedTicketFeed}).
      */
-    private void loadManagerComplaintsOnce(@Nullable List<String> propertyIds) {
-        if (propertyIds == null || propertyIds.isEmpty()) {
+    private void listenManagerComplaintsForAll(List<String> propertyIds) {
+        if (propertyIds.isEmpty()) {
             adapter.setItems(new ArrayList<>());
-            Log.d(TAG, "Manager has no properties");
+            Log.d(TAG, "Manager has no properties (complaints)");
             return;
         }
 
-        final ArrayList<Complaint> all = new ArrayList<>();
-        final int step = 10;
-        final int totalBatches = (int) Math.ceil(propertyIds.size() / (double) step);
-        final int[] done = {0};
-
-        for (int i = 0; i < propertyIds.size(); i += step) {
-            int end = Math.min(i + step, propertyIds.size());
-            List<String> sub = propertyIds.subList(i, end);
-
-            db.collection("complaints")
-                    .whereIn("propertyId", sub)
-                    .get()
-                    .addOnSuccessListener(qs -> {
-                        for (QueryDocumentSnapshot d : qs) {
-                            Complaint c = d.toObject(Complaint.class);
-                            if (c == null) continue;
-                            c.id = d.getId();
-                            if (c.shortId == null && c.id.length() >= 6) {
-                                c.shortId = c.id.substring(0, 6).toUpperCase(Locale.US);
-                            }
-                            all.add(c);
-                        }
-                        if (++done[0] == totalBatches) {
-                            all.sort((a, b) -> {
-                                long la = a.createdAt != null ? a.createdAt.toDate().getTime() : 0L;
-                                long lb = b.createdAt != null ? b.createdAt.toDate().getTime() : 0L;
-                                return Long.compare(lb, la);
-                            });
-                            adapter.setItems(all);
-                        }
-                    })
-                    .addOnFailureListener(e -> {
-                        Log.e(TAG, "Manager batch load failed", e);
-                        if (++done[0] == totalBatches) adapter.setItems(all);
-                    });
-        }
+        stopPager();
+        mergedFeed = new MergedTicketFeed<>(filter.apply(db.collection("complaints")), "propertyId", propertyIds,
+                filter.orderField(), filter.direction(),
+                ComplaintList::toComplaint,
+                new TicketPager.Listener<Complaint>() {
+                    @Override
+                    public void onItems(List<Complaint> items) {
+                        TicketCache.get().putComplaints(items);
+                        adapter.setItems(items);
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        Log.e(TAG, "Manager merged feed failed (complaints)", e);
+                        Toast.makeText(ComplaintList.this, "Couldn't load complaints", Toast.LENGTH_SHORT).show();
+                    }
+                });
+        mergedFeed.attachTo(rvComplaint);
+        mergedFeed.start();
     }
 
     private void listenRenterComplaints() {
-        renterReg = db.collection("complaints")
-                .whereEqualTo("createdById", userId)
-                .orderBy("createdAt", Query.Direction.DESCENDING)
-                .addSnapshotListener((qs, e) -> {
-                    if (e != null) {
-                        Log.e(TAG, "Renter listen failed, fallback", e);
-                        fallbackRenterLoad();
-                        return;
+        startPager(filter.apply(db.collection("complaints").whereEqualTo("createdById", userId)), e -> {
+            Log.e(TAG, "Renter listen failed (complaints)", e);
+            Toast.makeText(this, "Couldn't load complaints", Toast.LENGTH_SHORT).show();
+        });
+    }
+
+    /**
+     * Sorted by the selected mode: the first page stays live, further pages
+     * load as the list scrolls (see {@link TicketPager}).
+     */
+    private void startPager(Query query, Consumer<Exception> errorHandler) {
+        stopPager();
+        pager = new TicketPager<>(query, filter.orderField(), filter.direction(),
+                ComplaintList::toComplaint,
+                new TicketPager.Listener<Complaint>() {
+                    @Override
+                    public void onItems(List<Complaint> items) {
+                        TicketCache.get().putComplaints(items);
+                        adapter.setItems(items);
                     }
-                    if (qs == null) { adapter.setItems(new ArrayList<>()); return; }
-                    ArrayList<Complaint> list = new ArrayList<>();
-                    for (QueryDocumentSnapshot d : qs) {
-                        Complaint c = d.toObject(Complaint.class);
-                        if (c == null) continue;
-                        c.id = d.getId();
-                        if (c.shortId == null && c.id.length() >= 6) {
-                            c.shortId = c.id.substring(0, 6).toUpperCase(Locale.US);
-                        }
-                        list.add(c);
+
+                    @Override
+                    public void onError(Exception e) {
+                        errorHandler.accept(e);
                     }
-                    adapter.setItems(list);
                 });
+        pager.attachTo(rvComplaint);
+        pager.start();
     }
 
-    private void fallbackRenterLoad() {
-        db.collection("complaints")
-                .whereEqualTo("createdById", userId)
-                .get()
-                .addOnSuccessListener(qs -> {
-                    ArrayList<Complaint> list = new ArrayList<>();
-                    for (QueryDocumentSnapshot d : qs) {
-                        Complaint c = d.toObject(Complaint.class);
-                        if (c == null) continue;
-                        c.id = d.getId();
-                        if (c.shortId == null && c.id.length() >= 6) {
-                            c.shortId = c.id.substring(0, 6).toUpperCase(Locale.US);
-                        }
-                        list.add(c);
-                    }
-                    adapter.setItems(list);
-                })
-                .addOnFailureListener(e -> Log.e(TAG, "Fallback renter load failed", e));
+    private void stopPager() {
+        if (pager != null) {
+            pager.stop();
+            pager = null;
+        }
+        if (mergedFeed != null) {
+            mergedFeed.stop();
+            mergedFeed = null;
+        }
+    }
+
+    @Nullable
+    private static Complaint toComplaint(DocumentSnapshot d) {
+        Complaint c = d.toObject(Complaint.class);
+        if (c == null) return null;
+        c.id = d.getId();
+        if (c.shortId == null && c.id.length() >= 6) {
+            c.shortId = c.id.substring(0, 6).toUpperCase(Locale.US);
+        }
+        // a status change still being committed shows as already made; status /
+        // statusVersion stay the server's, the next change is checked against them
+        String effective = TicketCache.get().effectiveStatus(TicketCache.COMPLAINTS, c.id, c.status, c.statusVersion);
+        if (effective != null && !effective.equals(c.status)) c.pendingStatus = effective;
+        return c;
     }
 }
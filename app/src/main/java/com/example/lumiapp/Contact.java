@@ -1,5 +1,7 @@
 package com.example.lumiapp;
 
+import java.util.Objects;
+
 public class Contact {
     private String id;
     private String name;
@@ -35,4 +37,22 @@ public class Contact {
     public void setEmail(String email) { this.email = email; }
     public void setPropertyName(String propertyName) { this.propertyName = propertyName; }
     public void setCustom(boolean custom) { isCustom = custom; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Contact)) return false;
+        Contact other = (Contact) o;
+        return isCustom == other.isCustom
+                && Objects.equals(id, other.id)
+                && Objects.equals(name, other.name)
+                && Objects.equals(phone, other.phone)
+                && Objects.equals(email, other.email)
+                && Objects.equals(propertyName, other.propertyName);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, name, phone, email, propertyName, isCustom);
+    }
 }
@@ -7,12 +7,14 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import java.util.ArrayList;
 import java.util.List;
 
-public class ContactAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+public class ContactAdapter extends ListAdapter<ContactListItem, RecyclerView.ViewHolder> {
 
     public interface OnContactClickListener {
         void onContactClick(Contact contact);
@@ -21,23 +23,42 @@ public class ContactAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
     private static final int VIEW_TYPE_HEADER  = ContactListItem.TYPE_HEADER;
     private static final int VIEW_TYPE_CONTACT = ContactListItem.TYPE_CONTACT;
 
-    private final List<ContactListItem> items = new ArrayList<>();
+    // Headers and contacts are told apart by key ("h:" / "c:" prefix)
+    private static final DiffUtil.ItemCallback<ContactListItem> DIFF =
+            new DiffUtil.ItemCallback<ContactListItem>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull ContactListItem a, @NonNull ContactListItem b) {
+                    return a.getKey().equals(b.getKey());
+                }
+
+                @Override
+                public boolean areContentsTheSame(@NonNull ContactListItem a, @NonNull ContactListItem b) {
+                    return a.equals(b);
+                }
+            };
+
     private final OnContactClickListener listener;
 
     public ContactAdapter(OnContactClickListener listener) {
+        super(DIFF);
         this.listener = listener;
+        setHasStableIds(true);
     }
 
-    // Update the list shown in the RecyclerView
+    // Update the list shown in the RecyclerView (diffed off the main thread)
+    @Override
     public void submitList(List<ContactListItem> newItems) {
-        items.clear();
-        items.addAll(newItems);
-        notifyDataSetChanged();
+        super.submitList(newItems != null ? new ArrayList<>(newItems) : null);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).getKey().hashCode();
     }
 
     @Override
     public int getItemViewType(int position) {
-        return items.get(position).getType();
+        return getItem(position).getType();
     }
 
     @NonNull
@@ -64,7 +85,7 @@ public class ContactAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
             @NonNull RecyclerView.ViewHolder holder,
             int position
     ) {
-        ContactListItem item = items.get(position);
+        ContactListItem item = getItem(position);
 
         if (holder instanceof HeaderVH) {
             ((HeaderVH) holder).bind(item.getHeaderTitle());
@@ -73,11 +94,6 @@ public class ContactAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
         }
     }
 
-    @Override
-    public int getItemCount() {
-        return items.size();
-    }
-
     // ===================== ViewHolders =====================
 
     static class HeaderVH extends RecyclerView.ViewHolder {
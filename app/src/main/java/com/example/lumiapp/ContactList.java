@@ -16,12 +16,12 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QueryDocumentSnapshot;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -137,16 +137,14 @@ public class ContactList extends AppCompatActivity {
             return;
         }
 
-        db.collection("users").document(userId).get()
-                .addOnSuccessListener(this::onUserLoaded)
-                .addOnFailureListener(e ->
-                        Log.e(TAG, "Failed to load user for role", e));
+        UserSession.get().whenReady(this::onSessionReady);
     }
 
-    private void onUserLoaded(DocumentSnapshot snap) {
-        if (snap != null && snap.exists()) {
-            role = snap.getString("userType");   // "manager" or "renter"
+    private void onSessionReady(UserSession session) {
+        if (session.getError() != null) {
+            Log.e(TAG, "Failed to load user for role", session.getError());
         }
+        role = session.getUserType();   // "manager" or "renter"
 
         // Update FAB visibility based on role
         if (fabAdd != null) {
@@ -202,43 +200,32 @@ public class ContactList extends AppCompatActivity {
                         return;
                     }
 
-                    final int total = renterQs.size();
-                    final int[] done = {0};
-
+                    // renter uid → propertyName (already "name - address" in your data)
+                    Map<String, String> propertyByRenter = new LinkedHashMap<>();
                     for (QueryDocumentSnapshot renterDoc : renterQs) {
-                        String renterUid    = renterDoc.getId();
-
-                        // 🔹 Use ONLY propertyName (already "name - address" in your data)
-                        String propertyName = renterDoc.getString("propertyName");
-                        String finalPropertyName = propertyName;
-
-                        db.collection("users").document(renterUid)
-                                .get()
-                                .addOnSuccessListener(userDoc -> {
-                                    if (userDoc != null && userDoc.exists()) {
-                                        String name  = userDoc.getString("name");
-                                        String phone = userDoc.getString("phone");
-                                        String email = userDoc.getString("email");
-
-                                        Contact c = new Contact(
-                                                renterUid,
-                                                name,
-                                                phone,
-                                                email,
-                                                finalPropertyName, // ✅ no room added here
-                                                false              // renter contact
-                                        );
-                                        renterContacts.add(c);
-                                    }
-                                })
-                                .addOnCompleteListener(t -> {
-                                    done[0]++;
-                                    if (done[0] == total) {
-                                        // All renters processed → update UI
-                                        applySearch();
-                                    }
-                                });
+                        propertyByRenter.put(renterDoc.getId(), renterDoc.getString("propertyName"));
                     }
+
+                    // One batched lookup through the shared profile cache instead of a get() per renter
+                    UserProfileRepository.get(this).getAll(propertyByRenter.keySet(), profiles -> {
+                        renterContacts.clear();
+                        for (Map.Entry<String, String> entry : propertyByRenter.entrySet()) {
+                            UserProfile profile = profiles.get(entry.getKey());
+                            if (profile == null) continue;
+
+                            Contact c = new Contact(
+                                    entry.getKey(),
+                                    profile.name,
+                                    profile.phone,
+                                    profile.email,
+                                    entry.getValue(),  // ✅ no room added here
+                                    false              // renter contact
+                            );
+                            renterContacts.add(c);
+                        }
+                        // All renters processed → update UI
+                        applySearch();
+                    });
                 })
                 .addOnFailureListener(e -> {
                     Log.e(TAG, "Failed to load renters", e);
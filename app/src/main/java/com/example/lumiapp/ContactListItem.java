@@ -1,5 +1,7 @@
 package com.example.lumiapp;
 
+import java.util.Objects;
+
 public class ContactListItem {
     public static final int TYPE_HEADER = 0;
     public static final int TYPE_CONTACT = 1;
@@ -25,4 +27,24 @@ public class ContactListItem {
     public int getType() { return type; }
     public String getHeaderTitle() { return headerTitle; }
     public Contact getContact() { return contact; }
+
+    /** Stable identity for the list diff: header title or contact id. */
+    public String getKey() {
+        return type == TYPE_HEADER ? "h:" + headerTitle : "c:" + (contact != null ? contact.getId() : null);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ContactListItem)) return false;
+        ContactListItem other = (ContactListItem) o;
+        return type == other.type
+                && Objects.equals(headerTitle, other.headerTitle)
+                && Objects.equals(contact, other.contact);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, headerTitle, contact);
+    }
 }
@@ -1,5 +1,6 @@
 package com.example.lumiapp;
 
+import android.graphics.drawable.Drawable;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -7,53 +8,70 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.util.ViewPreloadSizeProvider;
 
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 
-public class ConversationAdapter extends RecyclerView.Adapter<ConversationAdapter.ConversationVH> {
+public class ConversationAdapter extends ListAdapter<ConversationItem, ConversationAdapter.ConversationVH>
+        implements InboxEngine.Listener, ListPreloader.PreloadModelProvider<String> {
 
     public interface OnConversationClickListener {
         void onConversationClick(ConversationItem item);
     }
 
-    private final List<ConversationItem> items = new ArrayList<>();
+    private static final DiffUtil.ItemCallback<ConversationItem> DIFF =
+            new DiffUtil.ItemCallback<ConversationItem>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull ConversationItem a, @NonNull ConversationItem b) {
+                    return Objects.equals(a.getConversationId(), b.getConversationId());
+                }
+
+                @Override
+                public boolean areContentsTheSame(@NonNull ConversationItem a, @NonNull ConversationItem b) {
+                    return a.equals(b);
+                }
+            };
+
     private final OnConversationClickListener listener;
     private final SimpleDateFormat timeFormat =
             new SimpleDateFormat("HH:mm", Locale.getDefault());
+    private final ViewPreloadSizeProvider<String> preloadSizes = new ViewPreloadSizeProvider<>();
+    private RequestManager glide;
 
     public ConversationAdapter(OnConversationClickListener listener) {
+        super(DIFF);
         this.listener = listener;
+        setHasStableIds(true);
     }
 
-    public void setItems(List<ConversationItem> newItems) {
-        items.clear();
-        items.addAll(newItems);
-        notifyDataSetChanged();
+    /** The {@link InboxEngine} hands over a fresh sorted copy after every change. */
+    @Override
+    public void onItemsChanged(List<ConversationItem> items) {
+        submitList(items);
     }
 
-    // Upsert (update if exists, else add)
-    public void upsertItem(ConversationItem item) {
-        int index = -1;
-        for (int i = 0; i < items.size(); i++) {
-            if (items.get(i).getConversationId()
-                    .equals(item.getConversationId())) {
-                index = i;
-                break;
-            }
-        }
-        if (index >= 0) {
-            items.set(index, item);
-            notifyItemChanged(index);
-        } else {
-            items.add(item);
-            notifyItemInserted(items.size() - 1);
-        }
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).getConversationId().hashCode();
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        glide = Glide.with(recyclerView);
     }
 
     @NonNull
@@ -72,19 +90,52 @@ public class ConversationAdapter extends RecyclerView.Adapter<ConversationAdapte
             @NonNull ConversationVH holder,
             int position
     ) {
-        ConversationItem item = items.get(position);
+        ConversationItem item = getItem(position);
         holder.bind(item, listener, timeFormat);
+
+        String photo = item.getOtherUserPhotoUrl();
+        if (photo != null && !photo.isEmpty()) {
+            preloadSizes.setView(holder.imgAvatar);
+            avatar(glide, photo).into(holder.imgAvatar);
+        } else {
+            holder.imgAvatar.setImageResource(R.drawable.ic_profile);
+        }
     }
 
+    // ─────────────────────────────────────────────
+    //  Preloading (RecyclerViewPreloader)
+    // ─────────────────────────────────────────────
+
+    /** Same request for bind and preload, so the preloaded bitmap is a cache hit. */
+    private static RequestBuilder<Drawable> avatar(RequestManager glide, String url) {
+        return glide.load(url)
+                .apply(LumiGlideModule.SMALL)
+                .centerCrop()
+                .placeholder(R.drawable.ic_profile);
+    }
+
+    public ViewPreloadSizeProvider<String> preloadSizes() {
+        return preloadSizes;
+    }
+
+    @NonNull
+    @Override
+    public List<String> getPreloadItems(int position) {
+        if (position >= getItemCount()) return Collections.emptyList();
+        String url = getItem(position).getOtherUserPhotoUrl();
+        return url != null && !url.isEmpty() ? Collections.singletonList(url) : Collections.emptyList();
+    }
+
+    @Nullable
     @Override
-    public int getItemCount() {
-        return items.size();
+    public RequestBuilder<?> getPreloadRequestBuilder(@NonNull String url) {
+        return glide != null ? avatar(glide, url) : null;
     }
 
     static class ConversationVH extends RecyclerView.ViewHolder {
 
         ImageView imgAvatar;
-        TextView tvName, tvLastMessage, tvTime;
+        TextView tvName, tvLastMessage, tvTime, tvUnread;
 
         ConversationVH(@NonNull View itemView) {
             super(itemView);
@@ -92,6 +143,7 @@ public class ConversationAdapter extends RecyclerView.Adapter<ConversationAdapte
             tvName        = itemView.findViewById(R.id.tvName);
             tvLastMessage = itemView.findViewById(R.id.tvLastMessage);
             tvTime        = itemView.findViewById(R.id.tvTime);
+            tvUnread      = itemView.findViewById(R.id.tvUnread);
         }
 
         void bind(ConversationItem item,
@@ -117,20 +169,20 @@ public class ConversationAdapter extends RecyclerView.Adapter<ConversationAdapte
                 tvTime.setText("");
             }
 
-            if (item.getOtherUserPhotoUrl() != null &&
-                    !item.getOtherUserPhotoUrl().isEmpty()) {
-                Glide.with(itemView.getContext())
-                        .load(item.getOtherUserPhotoUrl())
-                        .centerCrop()
-                        .placeholder(R.drawable.ic_profile)
-                        .into(imgAvatar);
-            } else {
-                imgAvatar.setImageResource(R.drawable.ic_profile);
-            }
+            bindUnread(tvUnread, item.getUnreadCount());
 
             itemView.setOnClickListener(v -> {
                 if (listener != null) listener.onConversationClick(item);
             });
         }
+
+        static void bindUnread(TextView badge, long unread) {
+            if (unread > 0) {
+                badge.setVisibility(View.VISIBLE);
+                badge.setText(unread > 99 ? "99+" : String.valueOf(unread));
+            } else {
+                badge.setVisibility(View.GONE);
+            }
+        }
     }
 }
@@ -1,6 +1,9 @@
 package com.example.lumiapp;
 
 import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.Objects;
 
 public class ConversationItem {
 
@@ -11,6 +14,10 @@ public class ConversationItem {
 
     private String lastMessageText;
     private Timestamp lastMessageAt;
+    private long unreadCount;
+
+    // Snapshot the row was read from: page cursor in ManagerMessagesActivity (not compared)
+    private DocumentSnapshot snapshot;
 
     public ConversationItem() {
     }
@@ -53,6 +60,14 @@ public class ConversationItem {
         return lastMessageAt;
     }
 
+    public long getUnreadCount() {
+        return unreadCount;
+    }
+
+    public void setUnreadCount(long unreadCount) {
+        this.unreadCount = unreadCount;
+    }
+
     public void setOtherUserName(String otherUserName) {
         this.otherUserName = otherUserName;
     }
@@ -68,4 +83,39 @@ public class ConversationItem {
     public void setLastMessageAt(Timestamp lastMessageAt) {
         this.lastMessageAt = lastMessageAt;
     }
+
+    public DocumentSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public void setSnapshot(DocumentSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public ConversationItem copy() {
+        ConversationItem c = new ConversationItem(conversationId, otherUserId, otherUserName,
+                otherUserPhotoUrl, lastMessageText, lastMessageAt);
+        c.unreadCount = unreadCount;
+        c.snapshot = snapshot;
+        return c;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ConversationItem)) return false;
+        ConversationItem other = (ConversationItem) o;
+        return unreadCount == other.unreadCount
+                && Objects.equals(conversationId, other.conversationId)
+                && Objects.equals(otherUserId, other.otherUserId)
+                && Objects.equals(otherUserName, other.otherUserName)
+                && Objects.equals(otherUserPhotoUrl, other.otherUserPhotoUrl)
+                && Objects.equals(lastMessageText, other.lastMessageText)
+                && Objects.equals(lastMessageAt, other.lastMessageAt);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(conversationId, lastMessageText, lastMessageAt, unreadCount);
+    }
 }
@@ -1,11 +1,12 @@
 package com.example.lumiapp;
 
-import android.app.ProgressDialog;
+import android.content.Context;
 import android.content.Intent;
 import android.net.Uri;
 import android.os.Bundle;
 import android.provider.MediaStore;
 import android.text.TextUtils;
+import android.util.Log;
 import android.view.View;
 import android.widget.ArrayAdapter;
 import android.widget.FrameLayout;
@@ -17,18 +18,18 @@ import android.widget.Toast;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 
-import com.bumptech.glide.Glide;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.textfield.MaterialAutoCompleteTextView;
 import com.google.android.material.textfield.TextInputEditText;
 import com.google.android.material.textfield.TextInputLayout;
 import com.google.firebase.Timestamp;
 import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.storage.FirebaseStorage;
-import com.google.firebase.storage.StorageReference;
+import com.google.firebase.firestore.WriteBatch;
 
+import java.io.File;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -37,6 +38,7 @@ import java.util.Map;
 
 public class CreateComplaint extends AppCompatActivity {
 
+    private static final String TAG = "CreateComplaint";
     private static final int REQUEST_IMAGE_PICK = 1001;
 
     // Header + fields
@@ -55,7 +57,6 @@ public class CreateComplaint extends AppCompatActivity {
 
     private FirebaseAuth auth;
     private FirebaseFirestore db;
-    private StorageReference storageRef;
 
     // user/session state
     private String role;           // "manager" | "renter"
@@ -80,7 +81,6 @@ public class CreateComplaint extends AppCompatActivity {
 
         auth = FirebaseAuth.getInstance();
         db   = FirebaseFirestore.getInstance();
-        storageRef = FirebaseStorage.getInstance().getReference();
 
         bindViews();
         fillStaticDate();
@@ -121,7 +121,6 @@ public class CreateComplaint extends AppCompatActivity {
         tvDate.setText(today);
     }
 
-    @SuppressWarnings("unchecked")
     private void loadUserProfileThenSetupUI() {
         if (auth.getCurrentUser() == null) {
             finish();
@@ -129,85 +128,72 @@ public class CreateComplaint extends AppCompatActivity {
         }
         userId = auth.getCurrentUser().getUid();
 
-        db.collection("users").document(userId).get()
-                .addOnSuccessListener(snap -> {
-                    role = snap.getString("userType");  // "manager" or "renter"
-                    if (role == null) role = "renter";
+        // role, name and renter details come from the shared session (no extra reads)
+        UserSession.get().whenReady(session -> {
+            if (session.getUser() == null && session.getError() != null) {
+                Toast.makeText(this, "Failed to load user: " + session.getError().getMessage(),
+                        Toast.LENGTH_SHORT).show();
+                finish();
+                return;
+            }
+
+            role = session.getUserType();  // "manager" or "renter"
+            if (role == null) role = "renter";
 
-                    // createdBy = NAME, not email
-                    userName = snap.getString("name");
-                    tvCreatedBy.setText(userName != null ? userName : "—");
+            // createdBy = NAME, not email
+            userName = session.getName();
+            tvCreatedBy.setText(userName != null ? userName : "—");
 
-                    if ("manager".equalsIgnoreCase(role)) {
-                        // 🔹 MANAGER UI
-                        tvRoomChip.setText("Property Manager");
-                        tvPropertyAddress.setVisibility(View.GONE);
-                        tilProperty.setVisibility(View.VISIBLE);
+            if ("manager".equalsIgnoreCase(role)) {
+                // 🔹 MANAGER UI
+                tvRoomChip.setText("Property Manager");
+                tvPropertyAddress.setVisibility(View.GONE);
+                tilProperty.setVisibility(View.VISIBLE);
 
-                        // Use managerOf list if present, fallback to ownerUid
-                        java.util.List<String> managerOf =
-                                (java.util.List<String>) snap.get("managerOf");
-                        loadManagerProperties(userId, managerOf);
+                // Use managerOf list if present, fallback to ownerUid
+                loadManagerProperties(userId, session.getManagerOf());
 
+            } else {
+                // 🔹 RENTER UI → details from /renters/{uid}
+                DocumentSnapshot rSnap = session.getRenter();
+                if (rSnap != null) {
+                    roomNumber = rSnap.getString("roomNumber");
+                    propertyId = rSnap.getString("propertyId");
+
+                    String propertyName = rSnap.getString("propertyName");
+                    String prevAddress  = rSnap.getString("previousAddress");
+
+                    // Build a nice display string
+                    if (!TextUtils.isEmpty(propertyName) && !TextUtils.isEmpty(prevAddress)) {
+                        propertyAddress = propertyName + " - " + prevAddress;
+                    } else if (!TextUtils.isEmpty(propertyName)) {
+                        propertyAddress = propertyName;
                     } else {
-                        // 🔹 RENTER UI → read details from /renters/{uid}
-                        db.collection("renters")
-                                .document(userId)
-                                .get()
-                                .addOnSuccessListener(rSnap -> {
-                                    if (rSnap != null && rSnap.exists()) {
-                                        roomNumber = rSnap.getString("roomNumber");
-                                        propertyId = rSnap.getString("propertyId");
-
-                                        String propertyName = rSnap.getString("propertyName");
-                                        String prevAddress  = rSnap.getString("previousAddress");
-
-                                        // Build a nice display string
-                                        if (!TextUtils.isEmpty(propertyName) && !TextUtils.isEmpty(prevAddress)) {
-                                            propertyAddress = propertyName + " - " + prevAddress;
-                                        } else if (!TextUtils.isEmpty(propertyName)) {
-                                            propertyAddress = propertyName;
-                                        } else {
-                                            propertyAddress = prevAddress; // may be null
-                                        }
-
-                                        tvRoomChip.setText(
-                                                !TextUtils.isEmpty(roomNumber) ? roomNumber : "—"
-                                        );
-                                        tvPropertyAddress.setText(
-                                                !TextUtils.isEmpty(propertyAddress) ? propertyAddress : "—"
-                                        );
-
-                                        // 🔹 renter header image → their property
-                                        applyHeaderImageForPropertyId(propertyId);
-                                    } else {
-                                        // No renter doc yet
-                                        tvRoomChip.setText("—");
-                                        tvPropertyAddress.setText("—");
-                                        roomNumber = null;
-                                        propertyId = null;
-                                        propertyAddress = null;
-                                    }
-
-                                    tvPropertyAddress.setVisibility(View.VISIBLE);
-                                    tilProperty.setVisibility(View.GONE);
-                                })
-                                .addOnFailureListener(e -> {
-                                    Toast.makeText(this,
-                                            "Failed to load renter details: " + e.getMessage(),
-                                            Toast.LENGTH_SHORT).show();
-
-                                    tvRoomChip.setText("—");
-                                    tvPropertyAddress.setText("—");
-                                    tvPropertyAddress.setVisibility(View.VISIBLE);
-                                    tilProperty.setVisibility(View.GONE);
-                                });
+                        propertyAddress = prevAddress; // may be null
                     }
-                })
-                .addOnFailureListener(e -> {
-                    Toast.makeText(this, "Failed to load user: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                    finish();
-                });
+
+                    tvRoomChip.setText(
+                            !TextUtils.isEmpty(roomNumber) ? roomNumber : "—"
+                    );
+                    tvPropertyAddress.setText(
+                            !TextUtils.isEmpty(propertyAddress) ? propertyAddress : "—"
+                    );
+
+                    // 🔹 renter header image → their property
+                    applyHeaderImageForPropertyId(propertyId);
+                } else {
+                    // No renter doc yet
+                    tvRoomChip.setText("—");
+                    tvPropertyAddress.setText("—");
+                    roomNumber = null;
+                    propertyId = null;
+                    propertyAddress = null;
+                }
+
+                tvPropertyAddress.setVisibility(View.VISIBLE);
+                tilProperty.setVisibility(View.GONE);
+            }
+        });
     }
 
     /**
@@ -220,36 +206,18 @@ public class CreateComplaint extends AppCompatActivity {
         propertyIds.clear();
 
         if (managerOf != null && !managerOf.isEmpty()) {
-            // Use managerOf array (IDs) → whereIn on documentId
-            if (managerOf.size() <= 10) {
-                db.collection("properties")
-                        .whereIn(FieldPath.documentId(), managerOf)
-                        .get()
-                        .addOnSuccessListener(qs -> {
-                            for (com.google.firebase.firestore.DocumentSnapshot d : qs) {
-                                addPropertyToLists(d);
-                            }
-                            bindPropertyAdapter();
-                        })
-                        .addOnFailureListener(e -> {
-                            Toast.makeText(this, "Failed to load properties: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                            bindPropertyAdapter();
-                        });
-            } else {
-                // If >10, fetch one-by-one
-                final int total = managerOf.size();
-                final int[] done = {0};
-
-                for (String pid : managerOf) {
-                    db.collection("properties").document(pid).get()
-                            .addOnSuccessListener(this::addPropertyToLists)
-                            .addOnCompleteListener(task -> {
-                                if (++done[0] == total) {
-                                    bindPropertyAdapter();
-                                }
-                            });
+            // managerOf ids → concurrent whereIn chunks, results come back in managerOf order
+            BatchedDocumentLoader.load(db.collection("properties"), managerOf, result -> {
+                for (com.google.firebase.firestore.DocumentSnapshot d : result.documents) {
+                    addPropertyToLists(d);
                 }
-            }
+                if (result.isPartial()) {
+                    Toast.makeText(this,
+                            "Some properties failed to load (" + result.failedIds.size() + ")",
+                            Toast.LENGTH_SHORT).show();
+                }
+                bindPropertyAdapter();
+            });
         } else {
             // Fallback: query by ownerUid
             db.collection("properties")
@@ -313,35 +281,9 @@ public class CreateComplaint extends AppCompatActivity {
         });
     }
 
-    /**
-     * Load property imageUrl from properties/{propertyId} into headerImage.
-     */
+    /** Header photo of the chosen property (cached; see PropertyHeader). */
     private void applyHeaderImageForPropertyId(@Nullable String propertyId) {
-        if (headerImage == null || TextUtils.isEmpty(propertyId)) {
-            if (headerImage != null) {
-                headerImage.setImageResource(R.drawable.img_dashboard_bg);
-            }
-            return;
-        }
-
-        db.collection("properties").document(propertyId).get()
-                .addOnSuccessListener(doc -> {
-                    String imageUrl = doc.getString("imageUrl");
-                    if (!TextUtils.isEmpty(imageUrl)) {
-                        Glide.with(this)
-                                .load(imageUrl)
-                                .centerCrop()
-                                .placeholder(R.drawable.img_dashboard_bg)
-                                .into(headerImage);
-                    } else {
-                        headerImage.setImageResource(R.drawable.img_dashboard_bg);
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    if (headerImage != null) {
-                        headerImage.setImageResource(R.drawable.img_dashboard_bg);
-                    }
-                });
+        if (headerImage != null) PropertyHeader.get(this).bind(headerImage, propertyId);
     }
 
     private void setListeners() {
@@ -393,44 +335,36 @@ public class CreateComplaint extends AppCompatActivity {
     }
 
     private void saveComplaint(String description) {
-        if (imageUri != null) {
-            uploadImageAndSaveComplaint(description);
-        } else {
+        btnCreate.setEnabled(false);
+        if (imageUri == null) {
             saveComplaintToFirestore(description, null);
+            return;
         }
-    }
-
-    private void uploadImageAndSaveComplaint(String description) {
-        ProgressDialog progress = new ProgressDialog(this);
-        progress.setMessage("Uploading image...");
-        progress.setCancelable(false);
-        progress.show();
-
-        String fileName = "complaintImages/" + userId + "_" + System.currentTimeMillis() + ".jpg";
-        StorageReference imgRef = storageRef.child(fileName);
-
-        btnCreate.setEnabled(false);
 
-        imgRef.putFile(imageUri)
-                .addOnSuccessListener(taskSnapshot ->
-                        imgRef.getDownloadUrl().addOnSuccessListener(uri -> {
-                            progress.dismiss();
-                            saveComplaintToFirestore(description, uri.toString());
-                        }).addOnFailureListener(e -> {
-                            progress.dismiss();
-                            btnCreate.setEnabled(true);
-                            Toast.makeText(this, "Failed to get image URL", Toast.LENGTH_LONG).show();
-                        })
-                )
+        // 🔹 copy the photo before saving (off the main thread): the worker
+        //    reads the copy, never the picker Uri
+        ImagePreparer.copyForUpload(this, imageUri)
+                .addOnSuccessListener(copy -> saveComplaintToFirestore(description, copy))
                 .addOnFailureListener(e -> {
-                    progress.dismiss();
+                    Log.e(TAG, "Couldn't read picked image", e);
+                    Toast.makeText(this, "Couldn't read the photo", Toast.LENGTH_LONG).show();
                     btnCreate.setEnabled(true);
-                    Toast.makeText(this, "Image upload failed: " + e.getMessage(), Toast.LENGTH_LONG).show();
                 });
     }
 
-    private void saveComplaintToFirestore(String description, @Nullable String imageUrl) {
+    /**
+     * The photo (if any) doesn't hold the user here: the complaint is saved
+     * with imagePending and ImageUploadWorker fills in imageUrl later.
+     */
+    private void saveComplaintToFirestore(String description, @Nullable File imageCopy) {
+
+        DocumentReference ref = db.collection("complaints").document();
+        String id = ref.getId();
+        String shortId = id.length() >= 6 ? id.substring(0, 6).toUpperCase(Locale.US) : id;
+
         Map<String, Object> data = new HashMap<>();
+        data.put("id", id);
+        data.put("shortId", shortId);
         data.put("createdAt", Timestamp.now());
         data.put("createdDate", tvDate.getText().toString());
         data.put("createdById", userId);
@@ -439,8 +373,8 @@ public class CreateComplaint extends AppCompatActivity {
         data.put("status", "open");
         data.put("description", description);
 
-        if (imageUrl != null) {
-            data.put("imageUrl", imageUrl);
+        if (imageCopy != null) {
+            data.put("imagePending", true);
         }
 
         if ("manager".equalsIgnoreCase(role)) {
@@ -453,19 +387,26 @@ public class CreateComplaint extends AppCompatActivity {
             data.put("propertyAddress", propertyAddress);
         }
 
-        db.collection("complaints").add(data)
-                .addOnSuccessListener(ref -> {
-                    String id = ref.getId();
-                    String shortId = id.length() >= 6 ? id.substring(0, 6).toUpperCase(Locale.US) : id;
-                    ref.update("id", id, "shortId", shortId);
+        // 🔹 Firestore keeps the pending write (offline too), so we leave as soon
+        //    as it's queued; the activity entry commits together with the complaint
+        Context app = getApplicationContext();
+        WriteBatch batch = db.batch();
+        batch.set(ref, data);
+        ActivityLog.addTo(batch, ActivityLog.entry(propertyId, ActivityLog.TYPE_COMPLAINT, id,
+                userId, userName, (String) data.get("roomNumber"), "open"));
+        batch.commit().addOnFailureListener(e -> {
+            Log.e(TAG, "Complaint " + id + " rejected", e);
+            Toast.makeText(app, "Complaint #" + shortId + " failed: " + e.getMessage(), Toast.LENGTH_LONG).show();
+        });
 
-                    Toast.makeText(this, "Complaint created #" + shortId, Toast.LENGTH_LONG).show();
-                    btnCreate.setEnabled(true);
-                    finish();
-                })
-                .addOnFailureListener(e -> {
-                    btnCreate.setEnabled(true);
-                    Toast.makeText(this, "Failed: " + e.getMessage(), Toast.LENGTH_LONG).show();
-                });
+        // 🔹 queued right away: survives this screen closing or the app being killed
+        if (imageCopy != null) {
+            ImageUploadWorker.enqueue(this, imageCopy, ImagePreparer.MAX_EDGE_PHOTO,
+                    "complaintImages/" + id + ".jpg", ref);
+        }
+
+        TicketCounter.get(this).invalidateTicket(TicketCounter.COMPLAINTS, propertyId, userId);
+        Toast.makeText(this, "Complaint created #" + shortId, Toast.LENGTH_LONG).show();
+        finish();
     }
 }
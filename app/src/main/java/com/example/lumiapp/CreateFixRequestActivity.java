@@ -1,12 +1,13 @@
 // app/src/main/java/com/example/lumiapp/CreateFixRequestActivity.java
 package com.example.lumiapp;
 
-import android.app.ProgressDialog;
+import android.content.Context;
 import android.content.Intent;
 import android.net.Uri;
 import android.os.Bundle;
 import android.provider.MediaStore;
 import android.text.TextUtils;
+import android.util.Log;
 import android.widget.FrameLayout;
 import android.widget.ImageButton;
 import android.widget.ImageView;
@@ -16,19 +17,18 @@ import android.widget.Toast;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 
-import com.bumptech.glide.Glide;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.textfield.MaterialAutoCompleteTextView;
 import com.google.android.material.textfield.TextInputEditText;
 import com.google.android.material.textfield.TextInputLayout;
 import com.google.firebase.Timestamp;
 import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FieldPath;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.storage.FirebaseStorage;
-import com.google.firebase.storage.StorageReference;
+import com.google.firebase.firestore.WriteBatch;
 
+import java.io.File;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -37,6 +37,7 @@ import java.util.Map;
 
 public class CreateFixRequestActivity extends AppCompatActivity {
 
+    private static final String TAG = "CreateFixRequest";
     private static final int REQUEST_IMAGE_PICK = 2001;
 
     // Header + fields
@@ -55,7 +56,6 @@ public class CreateFixRequestActivity extends AppCompatActivity {
 
     private FirebaseAuth auth;
     private FirebaseFirestore db;
-    private StorageReference storageRef;
 
     // user/session state
     private String role;           // "manager" | "renter"
@@ -80,7 +80,6 @@ public class CreateFixRequestActivity extends AppCompatActivity {
 
         auth = FirebaseAuth.getInstance();
         db   = FirebaseFirestore.getInstance();
-        storageRef = FirebaseStorage.getInstance().getReference();
 
         if (auth.getCurrentUser() == null) {
             Toast.makeText(this, "You must be logged in", Toast.LENGTH_SHORT).show();
@@ -134,37 +133,39 @@ public class CreateFixRequestActivity extends AppCompatActivity {
     }
 
     private void loadUserProfileThenSetupUI() {
-        // First read basic user doc (role + display name)
-        db.collection("users").document(userId).get()
-                .addOnSuccessListener(userSnap -> {
-                    role = userSnap.getString("userType");  // "manager" or "renter"
-                    if (role == null) role = "renter";
-
-                    // Use NAME, not email
-                    userName = userSnap.getString("name");
-                    if (TextUtils.isEmpty(userName) && auth.getCurrentUser() != null) {
-                        userName = auth.getCurrentUser().getEmail(); // fallback only
-                    }
-                    if (tvCreatedBy != null) {
-                        tvCreatedBy.setText(userName != null ? userName : "—");
-                    }
+        // Role + display name from the shared session (no users/{uid} read here)
+        UserSession.get().whenReady(session -> {
+            if (session.getUser() == null && session.getError() != null) {
+                Toast.makeText(this, "Failed to load user: " + session.getError().getMessage(),
+                        Toast.LENGTH_SHORT).show();
+                finish();
+                return;
+            }
 
-                    if ("manager".equalsIgnoreCase(role)) {
-                        setupManagerUI(userSnap);
-                    } else {
-                        loadRenterProfileAndSetupUI();
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    Toast.makeText(this, "Failed to load user: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                    finish();
-                });
+            role = session.getUserType();  // "manager" or "renter"
+            if (role == null) role = "renter";
+
+            // Use NAME, not email
+            userName = session.getName();
+            if (TextUtils.isEmpty(userName) && auth.getCurrentUser() != null) {
+                userName = auth.getCurrentUser().getEmail(); // fallback only
+            }
+            if (tvCreatedBy != null) {
+                tvCreatedBy.setText(userName != null ? userName : "—");
+            }
+
+            if ("manager".equalsIgnoreCase(role)) {
+                setupManagerUI(session);
+            } else {
+                setupRenterUI(session.getRenter());
+            }
+        });
     }
 
     /**
      * Manager UI: no room number, choose property from dropdown
      */
-    private void setupManagerUI(DocumentSnapshot userSnap) {
+    private void setupManagerUI(UserSession session) {
         // Property manager has no room → label as such
         if (tvRoomChip != null) {
             tvRoomChip.setText("Property Manager");
@@ -178,55 +179,42 @@ public class CreateFixRequestActivity extends AppCompatActivity {
             tilProperty.setVisibility(TextInputLayout.VISIBLE);
         }
 
-        @SuppressWarnings("unchecked")
-        java.util.List<String> managerOf = (java.util.List<String>) userSnap.get("managerOf");
-        loadManagerProperties(userId, managerOf);
+        loadManagerProperties(userId, session.getManagerOf());
     }
 
     /**
-     * Renter profile is stored in renters/{uid}
+     * Renter profile is stored in renters/{uid} (kept by the session).
      * We pull roomNumber, propertyId, propertyName from there and load header image.
      */
-    private void loadRenterProfileAndSetupUI() {
-        db.collection("renters").document(userId).get()
-                .addOnSuccessListener(rSnap -> {
-                    if (rSnap != null && rSnap.exists()) {
-                        roomNumber = rSnap.getString("roomNumber");
-                        propertyId = rSnap.getString("propertyId");
-
-                        // you saved "propertyName" like "name - address"
-                        propertyAddress = rSnap.getString("propertyName");
-                        if (TextUtils.isEmpty(propertyAddress)) {
-                            propertyAddress = rSnap.getString("propertyAddress"); // fallback
-                        }
-                    }
+    private void setupRenterUI(@Nullable DocumentSnapshot rSnap) {
+        if (rSnap != null) {
+            roomNumber = rSnap.getString("roomNumber");
+            propertyId = rSnap.getString("propertyId");
+
+            // you saved "propertyName" like "name - address"
+            propertyAddress = rSnap.getString("propertyName");
+            if (TextUtils.isEmpty(propertyAddress)) {
+                propertyAddress = rSnap.getString("propertyAddress"); // fallback
+            }
+        }
 
-                    if (tvRoomChip != null) {
-                        tvRoomChip.setText(roomNumber != null ? roomNumber : "—");
-                    }
-                    if (tvPropertyAddress != null) {
-                        tvPropertyAddress.setText(
-                                propertyAddress != null ? propertyAddress : "—"
-                        );
-                        tvPropertyAddress.setVisibility(TextView.VISIBLE);
-                    }
+        if (tvRoomChip != null) {
+            tvRoomChip.setText(roomNumber != null ? roomNumber : "—");
+        }
+        if (tvPropertyAddress != null) {
+            tvPropertyAddress.setText(
+                    propertyAddress != null ? propertyAddress : "—"
+            );
+            tvPropertyAddress.setVisibility(TextView.VISIBLE);
+        }
 
-                    // renter should NOT pick property manually
-                    if (tilProperty != null) {
-                        tilProperty.setVisibility(TextInputLayout.GONE);
-                    }
+        // renter should NOT pick property manually
+        if (tilProperty != null) {
+            tilProperty.setVisibility(TextInputLayout.GONE);
+        }
 
-                    // 🔹 Load property image into header
-                    applyHeaderImageForPropertyId(propertyId);
-                })
-                .addOnFailureListener(e -> {
-                    Toast.makeText(this, "Failed to load renter profile: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                    if (tvRoomChip != null) tvRoomChip.setText("—");
-                    if (tvPropertyAddress != null) {
-                        tvPropertyAddress.setText("—");
-                        tvPropertyAddress.setVisibility(TextView.VISIBLE);
-                    }
-                });
+        // 🔹 Load property image into header
+        applyHeaderImageForPropertyId(propertyId);
     }
 
     /**
@@ -239,34 +227,18 @@ public class CreateFixRequestActivity extends AppCompatActivity {
         propertyIds.clear();
 
         if (managerOf != null && !managerOf.isEmpty()) {
-            if (managerOf.size() <= 10) {
-                db.collection("properties")
-                        .whereIn(FieldPath.documentId(), managerOf)
-                        .get()
-                        .addOnSuccessListener(qs -> {
-                            for (DocumentSnapshot d : qs) {
-                                addPropertyToLists(d);
-                            }
-                            bindPropertyAdapter();
-                        })
-                        .addOnFailureListener(e -> {
-                            Toast.makeText(this, "Failed to load properties: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                            bindPropertyAdapter();
-                        });
-            } else {
-                final int total = managerOf.size();
-                final int[] done = {0};
-
-                for (String pid : managerOf) {
-                    db.collection("properties").document(pid).get()
-                            .addOnSuccessListener(this::addPropertyToLists)
-                            .addOnCompleteListener(task -> {
-                                if (++done[0] == total) {
-                                    bindPropertyAdapter();
-                                }
-                            });
+            // managerOf ids → concurrent whereIn chunks, results come back in managerOf order
+            BatchedDocumentLoader.load(db.collection("properties"), managerOf, result -> {
+                for (DocumentSnapshot d : result.documents) {
+                    addPropertyToLists(d);
                 }
-            }
+                if (result.isPartial()) {
+                    Toast.makeText(this,
+                            "Some properties failed to load (" + result.failedIds.size() + ")",
+                            Toast.LENGTH_SHORT).show();
+                }
+                bindPropertyAdapter();
+            });
         } else {
             db.collection("properties")
                     .whereEqualTo("ownerUid", ownerUid)
@@ -322,9 +294,7 @@ public class CreateFixRequestActivity extends AppCompatActivity {
             propertyId = null;
             propertyAddress = null;
             // default header
-            if (headerImage != null) {
-                headerImage.setImageResource(R.drawable.img_dashboard_bg);
-            }
+            applyHeaderImageForPropertyId(null);
         }
 
         actProperty.setOnItemClickListener((parent, view, position, id) -> {
@@ -336,35 +306,9 @@ public class CreateFixRequestActivity extends AppCompatActivity {
         });
     }
 
-    /**
-     * Load property imageUrl from properties/{propertyId} into headerImage.
-     */
+    /** Header photo of the chosen property (cached; see PropertyHeader). */
     private void applyHeaderImageForPropertyId(@Nullable String propertyId) {
-        if (headerImage == null || TextUtils.isEmpty(propertyId)) {
-            if (headerImage != null) {
-                headerImage.setImageResource(R.drawable.img_dashboard_bg);
-            }
-            return;
-        }
-
-        db.collection("properties").document(propertyId).get()
-                .addOnSuccessListener(doc -> {
-                    String imageUrl = doc.getString("imageUrl");
-                    if (!TextUtils.isEmpty(imageUrl)) {
-                        Glide.with(this)
-                                .load(imageUrl)
-                                .centerCrop()
-                                .placeholder(R.drawable.img_dashboard_bg)
-                                .into(headerImage);
-                    } else {
-                        headerImage.setImageResource(R.drawable.img_dashboard_bg);
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    if (headerImage != null) {
-                        headerImage.setImageResource(R.drawable.img_dashboard_bg);
-                    }
-                });
+        if (headerImage != null) PropertyHeader.get(this).bind(headerImage, propertyId);
     }
 
     private void setListeners() {
@@ -432,48 +376,31 @@ public class CreateFixRequestActivity extends AppCompatActivity {
     }
 
     private void saveFixRequest(String description) {
-        if (imageUri != null) {
-            uploadImageAndSaveFix(description);
-        } else {
+        if (btnCreateFix != null) btnCreateFix.setEnabled(false);
+        if (imageUri == null) {
             saveFixToFirestore(description, null);
-        }
-    }
-
-    private void uploadImageAndSaveFix(String description) {
-        ProgressDialog progress = new ProgressDialog(this);
-        progress.setMessage("Uploading image...");
-        progress.setCancelable(false);
-        progress.show();
-
-        String fileName = "fixRequestImages/" + userId + "_" + System.currentTimeMillis() + ".jpg";
-        StorageReference imgRef = storageRef.child(fileName);
-
-        if (btnCreateFix != null) {
-            btnCreateFix.setEnabled(false);
+            return;
         }
 
-        imgRef.putFile(imageUri)
-                .addOnSuccessListener(taskSnapshot ->
-                        imgRef.getDownloadUrl().addOnSuccessListener(uri -> {
-                            progress.dismiss();
-                            saveFixToFirestore(description, uri.toString());
-                        }).addOnFailureListener(e -> {
-                            progress.dismiss();
-                            if (btnCreateFix != null) btnCreateFix.setEnabled(true);
-                            Toast.makeText(this, "Failed to get image URL", Toast.LENGTH_LONG).show();
-                        })
-                )
+        // 🔹 copy the photo before saving (off the main thread): the worker
+        //    reads the copy, never the picker Uri
+        ImagePreparer.copyForUpload(this, imageUri)
+                .addOnSuccessListener(copy -> saveFixToFirestore(description, copy))
                 .addOnFailureListener(e -> {
-                    progress.dismiss();
+                    Log.e(TAG, "Couldn't read picked image", e);
+                    Toast.makeText(this, "Couldn't read the photo", Toast.LENGTH_LONG).show();
                     if (btnCreateFix != null) btnCreateFix.setEnabled(true);
-                    Toast.makeText(this, "Image upload failed: " + e.getMessage(), Toast.LENGTH_LONG).show();
                 });
     }
 
     /**
-     * Save into collection "fixRequests"
+     * Save into collection "fixRequests". A photo is uploaded in the
+     * background (ImageUploadWorker); until then the doc has imagePending.
      */
-    private void saveFixToFirestore(String description, @Nullable String imageUrl) {
+    private void saveFixToFirestore(String description, @Nullable File imageCopy) {
+
+        DocumentReference ref = db.collection("fixRequests").document();
+
         Map<String, Object> data = new HashMap<>();
         data.put("createdAt", Timestamp.now());
         data.put("createdDate", tvDate != null ? tvDate.getText().toString() : null);
@@ -483,8 +410,8 @@ public class CreateFixRequestActivity extends AppCompatActivity {
         data.put("status", "open");
         data.put("description", description);
 
-        if (imageUrl != null) {
-            data.put("imageUrl", imageUrl);
+        if (imageCopy != null) {
+            data.put("imagePending", true);
         }
 
         if ("manager".equalsIgnoreCase(role)) {
@@ -498,15 +425,25 @@ public class CreateFixRequestActivity extends AppCompatActivity {
             data.put("propertyAddress", propertyAddress);
         }
 
-        db.collection("fixRequests").add(data)
-                .addOnSuccessListener(ref -> {
-                    Toast.makeText(this, "Fix request submitted", Toast.LENGTH_LONG).show();
-                    if (btnCreateFix != null) btnCreateFix.setEnabled(true);
-                    finish();
-                })
-                .addOnFailureListener(e -> {
-                    if (btnCreateFix != null) btnCreateFix.setEnabled(true);
-                    Toast.makeText(this, "Failed: " + e.getMessage(), Toast.LENGTH_LONG).show();
-                });
+        // 🔹 Firestore keeps the pending write (offline too), so we leave as soon
+        //    as it's queued; the activity entry commits together with the request
+        Context app = getApplicationContext();
+        WriteBatch batch = db.batch();
+        batch.set(ref, data);
+        ActivityLog.addTo(batch, ActivityLog.entry(propertyId, ActivityLog.TYPE_FIX_REQUEST, ref.getId(),
+                userId, userName, (String) data.get("roomNumber"), "open"));
+        batch.commit().addOnFailureListener(e -> {
+            Log.e(TAG, "Fix request " + ref.getId() + " rejected", e);
+            Toast.makeText(app, "Fix request failed: " + e.getMessage(), Toast.LENGTH_LONG).show();
+        });
+
+        if (imageCopy != null) {
+            ImageUploadWorker.enqueue(this, imageCopy, ImagePreparer.MAX_EDGE_PHOTO,
+                    "fixRequestImages/" + ref.getId() + ".jpg", ref);
+        }
+
+        TicketCounter.get(this).invalidateTicket(TicketCounter.FIX_REQUESTS, propertyId, userId);
+        Toast.makeText(this, "Fix request submitted", Toast.LENGTH_LONG).show();
+        finish();
     }
 }
@@ -2,6 +2,9 @@
 package com.example.lumiapp;
 
 import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.Exclude;
+
+import java.util.Objects;
 
 public class FixRequest {
     public String id;             // Firestore doc id
@@ -13,14 +16,65 @@ public class FixRequest {
     public String propertyId;
     public String propertyAddress;
     public String status;         // "open" | "pending" | "closed"
+    public long statusVersion;    // +1 per status change (see TicketStatusUpdater)
+    @Exclude
+    public String pendingStatus;  // optimistic status not yet committed (TicketCache), display only
     public String createdDate;    // "dd-MM-yyyy"
     public Timestamp createdAt;
     public String description;
 
     // Image of the issue
     public String imageUrl;
+    public String mediumUrl;      // 512 px rendition, detail screen
+    public String thumbUrl;       // 128 px rendition, list rows
+    public boolean imagePending;  // photo still uploading (ImageUploadWorker)
 
     public FixRequest() {
         // Firestore needs empty constructor
     }
+
+    // 🔹 Renditions, falling back to the original for photos uploaded before they existed
+    public String thumbOrFull() {
+        return thumbUrl != null && !thumbUrl.isEmpty() ? thumbUrl : imageUrl;
+    }
+
+    public String mediumOrFull() {
+        return mediumUrl != null && !mediumUrl.isEmpty() ? mediumUrl : imageUrl;
+    }
+
+    // 🔹 What the row shows: a status change still being committed wins over the server's
+    public String shownStatus() {
+        return pendingStatus != null ? pendingStatus : status;
+    }
+
+    // 🔹 Content equality, used by the list diff to skip rows that didn't change
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof FixRequest)) return false;
+        FixRequest other = (FixRequest) o;
+        return Objects.equals(id, other.id)
+                && Objects.equals(shortId, other.shortId)
+                && Objects.equals(createdById, other.createdById)
+                && Objects.equals(createdByName, other.createdByName)
+                && Objects.equals(createdByRole, other.createdByRole)
+                && Objects.equals(roomNumber, other.roomNumber)
+                && Objects.equals(propertyId, other.propertyId)
+                && Objects.equals(propertyAddress, other.propertyAddress)
+                && Objects.equals(status, other.status)
+                && statusVersion == other.statusVersion
+                && Objects.equals(pendingStatus, other.pendingStatus)
+                && Objects.equals(createdDate, other.createdDate)
+                && Objects.equals(createdAt, other.createdAt)
+                && Objects.equals(description, other.description)
+                && Objects.equals(imageUrl, other.imageUrl)
+                && Objects.equals(mediumUrl, other.mediumUrl)
+                && Objects.equals(thumbUrl, other.thumbUrl)
+                && imagePending == other.imagePending;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, status, createdAt, imageUrl);
+    }
 }
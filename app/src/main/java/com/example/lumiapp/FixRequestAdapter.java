@@ -1,6 +1,7 @@
 // app/src/main/java/com/example/lumiapp/FixRequestAdapter.java
 package com.example.lumiapp;
 
+import android.graphics.drawable.Drawable;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -8,30 +9,68 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.util.ViewPreloadSizeProvider;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 
-public class FixRequestAdapter extends RecyclerView.Adapter<FixRequestAdapter.VH> {
+public class FixRequestAdapter extends ListAdapter<FixRequest, FixRequestAdapter.VH>
+        implements ListPreloader.PreloadModelProvider<String> {
 
     public interface OnItemClick {
         void onClick(FixRequest f);
     }
 
-    private final ArrayList<FixRequest> items = new ArrayList<>();
+    // 🔹 Same doc id → same row; equals() decides whether it needs a rebind
+    private static final DiffUtil.ItemCallback<FixRequest> DIFF = new DiffUtil.ItemCallback<FixRequest>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull FixRequest a, @NonNull FixRequest b) {
+            return Objects.equals(a.id, b.id);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull FixRequest a, @NonNull FixRequest b) {
+            return a.equals(b);
+        }
+    };
+
     private final OnItemClick click;
+    private final ViewPreloadSizeProvider<String> preloadSizes = new ViewPreloadSizeProvider<>();
+    private RequestManager glide;
 
     public FixRequestAdapter(OnItemClick click) {
+        super(DIFF);
         this.click = click;
+        setHasStableIds(true);
+    }
+
+    /** Diffed on a background thread; only rows that changed are rebound. */
+    public void setItems(@NonNull List<FixRequest> list) {
+        submitList(new ArrayList<>(list));
     }
 
-    public void setItems(@NonNull java.util.List<FixRequest> list) {
-        items.clear();
-        items.addAll(list);
-        notifyDataSetChanged();
+    @Override
+    public long getItemId(int position) {
+        String id = getItem(position).id;
+        return id != null ? id.hashCode() : RecyclerView.NO_ID;
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        glide = Glide.with(recyclerView);
     }
 
     @NonNull
@@ -45,7 +84,7 @@ public class FixRequestAdapter extends RecyclerView.Adapter<FixRequestAdapter.VH
 
     @Override
     public void onBindViewHolder(@NonNull VH h, int position) {
-        FixRequest f = items.get(position);
+        FixRequest f = getItem(position);
 
         // Title: "Fix Request #ABC123"
         String shortId = f.shortId;
@@ -64,7 +103,7 @@ public class FixRequestAdapter extends RecyclerView.Adapter<FixRequestAdapter.VH
         h.tvProperty.setText(f.propertyAddress != null ? f.propertyAddress : "—");
 
         // Status text + background pill
-        String st = f.status != null ? f.status.toLowerCase(Locale.US) : "open";
+        String st = f.shownStatus() != null ? f.shownStatus().toLowerCase(Locale.US) : "open";
         h.tvStatus.setText(st);
         if ("closed".equals(st)) {
             h.tvStatus.setBackgroundResource(R.drawable.bg_status_closed);
@@ -77,10 +116,8 @@ public class FixRequestAdapter extends RecyclerView.Adapter<FixRequestAdapter.VH
         // Thumbnail image
         if (f.imageUrl != null && !f.imageUrl.isEmpty()) {
             h.ivComplaintImage.setVisibility(View.VISIBLE);
-            Glide.with(h.itemView.getContext())
-                    .load(f.imageUrl)
-                    .centerCrop()
-                    .into(h.ivComplaintImage);
+            preloadSizes.setView(h.ivComplaintImage);
+            thumbnail(glide, f.thumbOrFull()).into(h.ivComplaintImage);
         } else {
             h.ivComplaintImage.setVisibility(View.GONE);
         }
@@ -91,9 +128,33 @@ public class FixRequestAdapter extends RecyclerView.Adapter<FixRequestAdapter.VH
         });
     }
 
+    // ─────────────────────────────────────────────
+    //  Preloading (RecyclerViewPreloader)
+    // ─────────────────────────────────────────────
+
+    /** Same request for bind and preload, so the preloaded bitmap is a cache hit. */
+    private static RequestBuilder<Drawable> thumbnail(RequestManager glide, String url) {
+        return glide.load(url)
+                .apply(LumiGlideModule.SMALL)
+                .centerCrop();
+    }
+
+    public ViewPreloadSizeProvider<String> preloadSizes() {
+        return preloadSizes;
+    }
+
+    @NonNull
+    @Override
+    public List<String> getPreloadItems(int position) {
+        if (position >= getItemCount()) return Collections.emptyList();
+        String url = getItem(position).thumbOrFull();
+        return url != null && !url.isEmpty() ? Collections.singletonList(url) : Collections.emptyList();
+    }
+
+    @Nullable
     @Override
-    public int getItemCount() {
-        return items.size();
+    public RequestBuilder<?> getPreloadRequestBuilder(@NonNull String url) {
+        return glide != null ? thumbnail(glide, url) : null;
     }
 
     static class VH extends RecyclerView.ViewHolder {
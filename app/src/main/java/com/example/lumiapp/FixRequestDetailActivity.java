@@ -4,6 +4,7 @@ package com.example.lumiapp;
 import android.content.Intent;
 import android.net.Uri;
 import android.os.Bundle;
+import android.util.Log;
 import android.view.Gravity;
 import android.view.View;
 import android.widget.ImageButton;
@@ -20,11 +21,14 @@ import com.bumptech.glide.Glide;
 import com.google.android.material.button.MaterialButton;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
 
 import java.util.Locale;
 
 public class FixRequestDetailActivity extends AppCompatActivity {
 
+    private static final String TAG = "FixRequestDetail";
+
     public static final String EXTRA_FIX_ID = "fixId";
 
     private ImageButton backBtn;
@@ -40,6 +44,10 @@ public class FixRequestDetailActivity extends AppCompatActivity {
     private String myUid;
     private String myRole;
 
+    private ListenerRegistration fixReg;   // live doc while we're visible
+    private boolean deleting;
+    private long awaitVersion;   // statusVersion our last change will produce; button waits for it
+
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -57,9 +65,27 @@ public class FixRequestDetailActivity extends AppCompatActivity {
 
         bindViews();
         wireClicks();
+
+        // Opened from a list → render the in-memory copy now, reconcile live
+        fix = TicketCache.get().peekFixRequest(fixId);
         loadUserRoleThenFix();
     }
 
+    @Override
+    protected void onStart() {
+        super.onStart();
+        listenFix();
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        if (fixReg != null) {
+            fixReg.remove();
+            fixReg = null;
+        }
+    }
+
     private void bindViews() {
         backBtn = findViewById(R.id.back_btn);
         tvTitle = findViewById(R.id.tvTitle);
@@ -120,36 +146,45 @@ public class FixRequestDetailActivity extends AppCompatActivity {
     private void loadUserRoleThenFix() {
         if (myUid == null) { finish(); return; }
 
-        db.collection("users").document(myUid).get()
-                .addOnSuccessListener(snap -> {
-                    myRole = snap.getString("userType");
-                    if (myRole == null) myRole = "renter";
-                    loadFix();
-                })
-                .addOnFailureListener(e -> {
-                    myRole = "renter";
-                    loadFix();
-                });
+        UserSession.get().whenReady(session -> {
+            myRole = session.getUserType();
+            if (myRole == null) myRole = "renter";
+            if (fix != null) bindDataToUI();
+        });
     }
 
-    private void loadFix() {
-        db.collection("fixRequests").document(fixId)
-                .get()
-                .addOnSuccessListener(doc -> {
-                    if (!doc.exists()) { finish(); return; }
-                    fix = doc.toObject(FixRequest.class);
-                    if (fix == null) { finish(); return; }
-                    fix.id = doc.getId();
-
-                    if ((fix.shortId == null || fix.shortId.isEmpty())
-                            && fix.id != null && fix.id.length() >= 6) {
-                        fix.shortId = fix.id.substring(0, 6).toUpperCase(Locale.US);
+    /** Live fixRequests/{id}; every snapshot is shared through {@link TicketCache}. */
+    private void listenFix() {
+        if (fixReg != null || fixId == null) return;
+
+        fixReg = db.collection("fixRequests").document(fixId)
+                .addSnapshotListener((doc, e) -> {
+                    if (e != null) {
+                        Log.e(TAG, "Fix request listen failed", e);
+                        if (fix == null) {
+                            Toast.makeText(this, "Failed to load", Toast.LENGTH_SHORT).show();
+                            finish();
+                        }
+                        return;
                     }
-                    bindDataToUI();
-                })
-                .addOnFailureListener(e -> {
-                    Toast.makeText(this, "Failed to load", Toast.LENGTH_SHORT).show();
-                    finish();
+                    if (doc == null) return;
+                    TicketCache.get().publish(TicketCache.FIX_REQUESTS, doc);
+
+                    if (!doc.exists()) {
+                        if (!deleting) finish();
+                        return;
+                    }
+                    FixRequest f = doc.toObject(FixRequest.class);
+                    if (f == null) { finish(); return; }
+                    f.id = doc.getId();
+
+                    if ((f.shortId == null || f.shortId.isEmpty())
+                            && f.id != null && f.id.length() >= 6) {
+                        f.shortId = f.id.substring(0, 6).toUpperCase(Locale.US);
+                    }
+                    fix = f;
+                    TicketCache.get().putFixRequest(f);
+                    if (myRole != null) bindDataToUI();
                 });
     }
 
@@ -161,17 +196,23 @@ public class FixRequestDetailActivity extends AppCompatActivity {
         tvDesc.setText(fix.description != null ? fix.description : "—");
         tvProperty.setText(fix.propertyAddress != null ? fix.propertyAddress : "—");
 
-        btnStatus.setText("Status  ▾   " + (fix.status != null ? fix.status : "open"));
+        // a change in flight shows as already made
+        String status = TicketCache.get().effectiveStatus(TicketCache.FIX_REQUESTS,
+                fix.id, fix.status, fix.statusVersion);
+        btnStatus.setText("Status  ▾   " + (status != null ? status : "open"));
 
-        if (!"manager".equalsIgnoreCase(myRole)) {
+        if (!"manager".equalsIgnoreCase(myRole) || fix.statusVersion < awaitVersion) {
             btnStatus.setEnabled(false);
             btnStatus.setAlpha(0.85f);
+        } else {
+            btnStatus.setEnabled(true);
+            btnStatus.setAlpha(1f);
         }
 
         if (fix.imageUrl != null && !fix.imageUrl.isEmpty()) {
             ivComplaintImage.setVisibility(View.VISIBLE);
             Glide.with(this)
-                    .load(fix.imageUrl)
+                    .load(fix.mediumOrFull())
                     .into(ivComplaintImage);
 
             ivComplaintImage.setOnClickListener(v -> {
@@ -180,35 +221,72 @@ public class FixRequestDetailActivity extends AppCompatActivity {
                     startActivity(intent);
                 } catch (Exception ignored) {}
             });
+        } else if (fix.imagePending) {
+            // still uploading; the live listener brings the URL in
+            ivComplaintImage.setVisibility(View.VISIBLE);
+            ivComplaintImage.setImageResource(R.drawable.ic_complaint_placeholder);
+            ivComplaintImage.setOnClickListener(null);
         } else {
             ivComplaintImage.setVisibility(View.GONE);
         }
     }
 
+    /**
+     * Optimistic: the new status shows immediately (here and in the list),
+     * then a transaction commits it only if nobody changed the fix request since.
+     */
     private void updateStatus(String newStatus) {
         if (fix == null) return;
+        String shown = TicketCache.get().effectiveStatus(TicketCache.FIX_REQUESTS, fix.id, fix.status, fix.statusVersion);
+        if (newStatus.equals(shown != null ? shown : "open")) return;
+
+        awaitVersion = fix.statusVersion + 1;
+        TicketStatusUpdater.update(this, fix, newStatus, new TicketStatusUpdater.Callback() {
+            @Override
+            public void onUpdated() {
+                if (isFinishing()) return;
+                Toast.makeText(FixRequestDetailActivity.this, "Status updated", Toast.LENGTH_SHORT).show();
+            }
 
-        db.collection("fixRequests").document(fix.id)
-                .update("status", newStatus)
-                .addOnSuccessListener(unused -> {
-                    fix.status = newStatus;
-                    btnStatus.setText("Status  ▾   " + newStatus);
-                    Toast.makeText(this, "Status updated", Toast.LENGTH_SHORT).show();
-                })
-                .addOnFailureListener(e ->
-                        Toast.makeText(this, "Failed to update", Toast.LENGTH_SHORT).show()
-                );
+            @Override
+            public void onConflict(@Nullable String currentStatus) {
+                if (isFinishing()) return;
+                awaitVersion = 0;
+                if (fix != null) bindDataToUI();   // rolled back to what the server has
+                new AlertDialog.Builder(FixRequestDetailActivity.this)
+                        .setTitle("Status not changed")
+                        .setMessage(currentStatus == null
+                                ? "This fix request was deleted by someone else."
+                                : "Someone else changed this fix request to \"" + currentStatus
+                                        + "\" first. Your change was not saved.")
+                        .setPositiveButton("OK", null)
+                        .show();
+            }
+
+            @Override
+            public void onFailed(Exception e) {
+                if (isFinishing()) return;
+                awaitVersion = 0;
+                if (fix != null) bindDataToUI();
+                Toast.makeText(FixRequestDetailActivity.this, "Failed to update", Toast.LENGTH_SHORT).show();
+            }
+        });
+        bindDataToUI();   // pending status is set now
     }
 
     private void deleteFix() {
+        deleting = true;
         db.collection("fixRequests").document(fix.id)
                 .delete()
                 .addOnSuccessListener(unused -> {
+                    TicketCounter.get(this).invalidateTicket(TicketCounter.FIX_REQUESTS,
+                            fix.propertyId, fix.createdById);
                     Toast.makeText(this, "Fix request deleted", Toast.LENGTH_SHORT).show();
                     finish();
                 })
-                .addOnFailureListener(e ->
-                        Toast.makeText(this, "Delete failed", Toast.LENGTH_SHORT).show()
-                );
+                .addOnFailureListener(e -> {
+                    deleting = false;
+                    Toast.makeText(this, "Delete failed", Toast.LENGTH_SHORT).show();
+                });
     }
 }
@@ -3,11 +3,11 @@ package com.example.lumiapp;
 
 import android.content.Intent;
 import android.os.Bundle;
-import android.text.TextUtils;
 import android.util.Log;
 import android.widget.ImageButton;
 import android.widget.ImageView;
 import android.widget.TextView;
+import android.widget.Toast;
 
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
@@ -15,17 +15,17 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.integration.recyclerview.RecyclerViewPreloader;
 import com.google.android.material.button.MaterialButton;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.ListenerRegistration;
 import com.google.firebase.firestore.Query;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.function.Consumer;
 
 public class FixRequestList extends AppCompatActivity {
 
@@ -44,9 +44,35 @@ public class FixRequestList extends AppCompatActivity {
     private String userId;
     private String role; // "renter" or "manager"
 
-    private ListenerRegistration renterReg;
-    private final List<ListenerRegistration> managerRegs = new ArrayList<>();
-    private ListenerRegistration userHeaderReg;   // 🔹 for header image
+    private TicketPager<FixRequest> pager;   // 🔹 paged list for one property / one renter
+    private MergedTicketFeed<FixRequest> mergedFeed;   // 🔹 manager without an active property
+    private final UserSession.Listener sessionListener = this::bindSession;
+    private String listKey;           // what the list currently shows (role + property / renter)
+    private boolean started;
+    private final TicketFilter filter = new TicketFilter();   // 🔹 status + sort, part of the query
+
+    // 🔹 A detail screen changed / deleted a ticket: patch that row, no re-query
+    private final TicketCache.Listener cacheListener = new TicketCache.Listener() {
+        @Override
+        public void onTicketChanged(String collection, DocumentSnapshot doc) {
+            if (!TicketCache.FIX_REQUESTS.equals(collection)) return;
+            boolean keep = doc.exists() && filter.matches(doc);
+            if (pager != null) {
+                if (keep) pager.patch(doc); else pager.drop(doc.getId());
+            }
+            if (mergedFeed != null) {
+                if (keep) mergedFeed.patch(doc); else mergedFeed.drop(doc.getId());
+            }
+        }
+
+        @Override
+        public void onPendingStatusChanged(String collection, String id) {
+            // optimistic status set / rolled back → rows re-map through it
+            if (!TicketCache.FIX_REQUESTS.equals(collection)) return;
+            if (pager != null) pager.remap();
+            if (mergedFeed != null) mergedFeed.remap();
+        }
+    };
 
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
@@ -74,6 +100,9 @@ public class FixRequestList extends AppCompatActivity {
             startActivity(i);
         });
         rvFix.setAdapter(adapter);
+        // 🔹 decode the next screen of thumbnails before it scrolls in
+        rvFix.addOnScrollListener(new RecyclerViewPreloader<>(
+                Glide.with(this), adapter, adapter.preloadSizes(), LumiGlideModule.PRELOAD_ROWS));
 
         btnCreate = findViewById(R.id.create_complain);
         backBtn   = findViewById(R.id.back_btn);
@@ -88,280 +117,192 @@ public class FixRequestList extends AppCompatActivity {
             backBtn.setOnClickListener(v -> finish());
         }
 
+        TicketCache.get().addListener(cacheListener);
+
+        // 🔹 Status filter / sort mode → re-query (only matching tickets are fetched)
+        filter.bind(findViewById(R.id.btnFilter), findViewById(R.id.btnSort), this::requery);
+
         if (auth.getCurrentUser() == null) {
             finish();
             return;
         }
         userId = auth.getCurrentUser().getUid();
-
-        // 🔹 Set header image based on role (manager vs renter)
-        listenActivePropertyHeader();
-
-        // 🔹 Setup queries based on role
-        loadUserRoleThenListen();
     }
 
     @Override
-    protected void onResume() {
-        super.onResume();
-        loadUserRoleThenListen();
+    protected void onStart() {
+        super.onStart();
+        started = true;
+        // 🔹 Role, active property and header all come from the session, which
+        //    stays current: switching the active property re-targets the list
+        UserSession.get().addListener(sessionListener);
+        UserSession.get().whenReady(this::bindSession);
+        // same list as before we were stopped → just re-attach its live page
+        if (pager != null) pager.resume();
+        if (mergedFeed != null) mergedFeed.resume();
     }
 
     @Override
     protected void onStop() {
         super.onStop();
-        if (renterReg != null) {
-            renterReg.remove();
-            renterReg = null;
-        }
-        for (ListenerRegistration r : managerRegs) r.remove();
-        managerRegs.clear();
-
-        if (userHeaderReg != null) {
-            userHeaderReg.remove();
-            userHeaderReg = null;
-        }
+        started = false;
+        UserSession.get().removeListener(sessionListener);
+        // keep the loaded rows (coming back from a detail screen shows them
+        // as patched through TicketCache); only the live listener is dropped
+        if (pager != null) pager.pause();
+        if (mergedFeed != null) mergedFeed.pause();
     }
 
-    /**
-     * Header image logic:
-     *  - Manager → users/{uid}.activePropertyImageUrl
-     *  - Renter  → renters/{uid}.propertyId → properties/{propertyId}.imageUrl
-     */
-    private void listenActivePropertyHeader() {
-        if (userId == null || headerImage == null) return;
-
-        userHeaderReg = db.collection("users").document(userId)
-                .addSnapshotListener((snap, e) -> {
-                    if (e != null) {
-                        Log.e(TAG, "listenActivePropertyHeader error", e);
-                        setHeaderImage(null);
-                        return;
-                    }
-                    if (snap == null || !snap.exists()) {
-                        setHeaderImage(null);
-                        return;
-                    }
-
-                    String userType = snap.getString("userType");
-                    if (userType == null) userType = "renter";
-
-                    if ("manager".equalsIgnoreCase(userType)) {
-                        // Manager → use activePropertyImageUrl
-                        String imageUrl = snap.getString("activePropertyImageUrl");
-                        setHeaderImage(imageUrl);
-                    } else {
-                        // Renter → go via renters/{uid} → properties/{propertyId}
-                        db.collection("renters").document(userId)
-                                .get()
-                                .addOnSuccessListener((DocumentSnapshot rSnap) -> {
-                                    if (rSnap == null || !rSnap.exists()) {
-                                        setHeaderImage(null);
-                                        return;
-                                    }
-
-                                    String propertyId = rSnap.getString("propertyId");
-                                    if (TextUtils.isEmpty(propertyId)) {
-                                        setHeaderImage(null);
-                                        return;
-                                    }
-
-                                    db.collection("properties")
-                                            .document(propertyId)
-                                            .get()
-                                            .addOnSuccessListener(pSnap -> {
-                                                if (pSnap != null && pSnap.exists()) {
-                                                    String imageUrl = pSnap.getString("imageUrl");
-                                                    setHeaderImage(imageUrl);
-                                                } else {
-                                                    setHeaderImage(null);
-                                                }
-                                            })
-                                            .addOnFailureListener(err -> {
-                                                Log.e(TAG, "Property load failed (fixRequests header)", err);
-                                                setHeaderImage(null);
-                                            });
-                                })
-                                .addOnFailureListener(err -> {
-                                    Log.e(TAG, "Renter doc load failed (fixRequests header)", err);
-                                    setHeaderImage(null);
-                                });
-                    }
-                });
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        TicketCache.get().removeListener(cacheListener);
+        stopPager();
     }
 
-    private void setHeaderImage(@Nullable String imageUrl) {
-        if (headerImage == null) return;
-
-        if (!TextUtils.isEmpty(imageUrl)) {
-            Glide.with(this)
-                    .load(imageUrl)
-                    .centerCrop()
-                    .placeholder(R.drawable.img_dashboard_bg)
-                    .into(headerImage);
+    private void bindSession(UserSession session) {
+        if (!started) return;   // answered after we were stopped
+        bindHeader(session);
+
+        role = session.isManager() ? "manager" : "renter";
+        String activePropertyId = session.getActivePropertyId();
+
+        // only re-query when what we list actually changed
+        String key = !session.isManager()   ? "renter:" + userId
+                : activePropertyId != null ? "manager:" + activePropertyId
+                : "manager:all:" + session.getManagerOf();
+        key += "|" + filter.key();
+        if (key.equals(listKey)) return;
+        listKey = key;
+
+        stopPager();
+
+        if (session.isManager()) {
+            if (activePropertyId != null) {
+                // 🔹 Manager: prefer ACTIVE property only
+                listenManagerFixesForProperty(activePropertyId);
+            } else {
+                // fallback: live merged feed across all managerOf properties
+                listenManagerFixesForAll(session.getManagerOf());
+            }
         } else {
-            headerImage.setImageResource(R.drawable.img_dashboard_bg);
+            // 🔹 Renter: only their own tickets
+            listenRenterFixes();
         }
     }
 
-    private void loadUserRoleThenListen() {
-        db.collection("users").document(userId).get()
-                .addOnSuccessListener(snap -> {
-                    role = snap.getString("userType");
-                    if (role == null) role = "renter";
+    private void requery() {
+        if (!started) return;
+        listKey = null;
+        UserSession.get().whenReady(this::bindSession);
+    }
 
-                    // clear existing listeners
-                    if (renterReg != null) {
-                        renterReg.remove();
-                        renterReg = null;
-                    }
-                    for (ListenerRegistration r : managerRegs) r.remove();
-                    managerRegs.clear();
-
-                    if ("manager".equalsIgnoreCase(role)) {
-                        // 🔹 Manager: prefer ACTIVE property only
-                        String activePropertyId = snap.getString("activePropertyId");
-
-                        if (activePropertyId != null && !activePropertyId.isEmpty()) {
-                            listenManagerFixesForProperty(activePropertyId);
-                        } else {
-                            // fallback: old behavior across all managerOf properties
-                            @SuppressWarnings("unchecked")
-                            List<String> managerOf = (List<String>) snap.get("managerOf");
-                            loadManagerFixesOnce(managerOf);
-                        }
-                    } else {
-                        // 🔹 Renter: only their own fix requests
-                        listenRenterFixes();
-                    }
-                })
-                .addOnFailureListener(e -> Log.e(TAG, "loadUserRole failed", e));
+    /**
+     * Header image: the manager's active property, or the renter's own
+     * (renters/{uid}.propertyId). Cached and kept current by PropertyHeader.
+     */
+    private void bindHeader(UserSession session) {
+        if (headerImage == null) return;
+        String propertyId = session.isManager()
+                ? session.getActivePropertyId()
+                : session.getRenterPropertyId();
+        PropertyHeader.get(this).bind(headerImage, propertyId);
     }
 
     /**
      * Manager: live listen to fixRequests for ONE propertyId (active property).
      */
     private void listenManagerFixesForProperty(String propertyId) {
-        renterReg = db.collection("fixRequests")
-                .whereEqualTo("propertyId", propertyId)
-                .orderBy("createdAt", Query.Direction.DESCENDING)
-                .addSnapshotListener((qs, e) -> {
-                    if (e != null) {
-                        Log.e(TAG, "Manager listen failed (fixRequests), fallback possible", e);
-                        return;
-                    }
-                    if (qs == null) {
-                        adapter.setItems(new ArrayList<>());
-                        return;
-                    }
-
-                    ArrayList<FixRequest> list = new ArrayList<>();
-                    for (QueryDocumentSnapshot d : qs) {
-                        FixRequest f = d.toObject(FixRequest.class);
-                        if (f == null) continue;
-                        f.id = d.getId();
-                        if (f.shortId == null && f.id.length() >= 6) {
-                            f.shortId = f.id.substring(0, 6).toUpperCase(Locale.US);
-                        }
-                        list.add(f);
-                    }
-                    adapter.setItems(list);
-                });
+        startPager(filter.apply(db.collection("fixRequests").whereEqualTo("propertyId", propertyId)),
+                e -> Log.e(TAG, "Manager listen failed (fixRequests)", e));
     }
 
-    // Manager: one-time load (fallback if no activePropertyId)
-    private void loadManagerFixesOnce(@Nullable List<String> propertyIds) {
-        if (propertyIds == null || propertyIds.isEmpty()) {
+    /**
+     * Manager without an active property: live merged feed over every
+     * property in managerOf (see {@link MergedTicketFeed}).
+     */
+    private void listenManagerFixesForAll(List<String> propertyIds) {
+        if (propertyIds.isEmpty()) {
             adapter.setItems(new ArrayList<>());
             Log.d(TAG, "Manager has no properties (fixRequests)");
             return;
         }
 
-        final ArrayList<FixRequest> all = new ArrayList<>();
-        final int step = 10;
-        final int totalBatches = (int) Math.ceil(propertyIds.size() / (double) step);
-        final int[] done = {0};
-
-        for (int i = 0; i < propertyIds.size(); i += step) {
-            int end = Math.min(i + step, propertyIds.size());
-            List<String> sub = propertyIds.subList(i, end);
-
-            db.collection("fixRequests")
-                    .whereIn("propertyId", sub)
-                    .get()
-                    .addOnSuccessListener(qs -> {
-                        for (QueryDocumentSnapshot d : qs) {
-                            FixRequest f = d.toObject(FixRequest.class);
-                            if (f == null) continue;
-                            f.id = d.getId();
-                            if (f.shortId == null && f.id.length() >= 6) {
-                                f.shortId = f.id.substring(0, 6).toUpperCase(Locale.US);
-                            }
-                            all.add(f);
-                        }
-                        if (++done[0] == totalBatches) {
-                            all.sort((a, b) -> {
-                                long la = a.createdAt != null ? a.createdAt.toDate().getTime() : 0L;
-                                long lb = b.createdAt != null ? b.createdAt.toDate().getTime() : 0L;
-                                return Long.compare(lb, la);
-                            });
-                            adapter.setItems(all);
-                        }
-                    })
-                    .addOnFailureListener(e -> {
-                        Log.e(TAG, "Manager batch load failed (fixRequests)", e);
-                        if (++done[0] == totalBatches) adapter.setItems(all);
-                    });
-        }
+        stopPager();
+        mergedFeed = new MergedTicketFeed<>(filter.apply(db.collection("fixRequests")), "propertyId", propertyIds,
+                filter.orderField(), filter.direction(),
+                FixRequestList::toFixRequest,
+                new TicketPager.Listener<FixRequest>() {
+                    @Override
+                    public void onItems(List<FixRequest> items) {
+                        TicketCache.get().putFixRequests(items);
+                        adapter.setItems(items);
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        Log.e(TAG, "Manager merged feed failed (fixRequests)", e);
+                        Toast.makeText(FixRequestList.this, "Couldn't load fix requests", Toast.LENGTH_SHORT).show();
+                    }
+                });
+        mergedFeed.attachTo(rvFix);
+        mergedFeed.start();
     }
 
-    // Renter realtime
     private void listenRenterFixes() {
-        renterReg = db.collection("fixRequests")
-                .whereEqualTo("createdById", userId)
-                .orderBy("createdAt", Query.Direction.DESCENDING)
-                .addSnapshotListener((qs, e) -> {
-                    if (e != null) {
-                        Log.e(TAG, "Renter listen failed (fixRequests). Falling back.", e);
-                        fallbackRenterLoad();
-                        return;
-                    }
-                    if (qs == null) {
-                        adapter.setItems(new ArrayList<>());
-                        return;
+        startPager(filter.apply(db.collection("fixRequests").whereEqualTo("createdById", userId)), e -> {
+            Log.e(TAG, "Renter listen failed (fixRequests)", e);
+            Toast.makeText(this, "Couldn't load fix requests", Toast.LENGTH_SHORT).show();
+        });
+    }
+
+    /**
+     * Sorted by the selected mode: the first page stays live, further pages
+     * load as the list scrolls (see {@link TicketPager}).
+     */
+    private void startPager(Query query, Consumer<Exception> errorHandler) {
+        stopPager();
+        pager = new TicketPager<>(query, filter.orderField(), filter.direction(),
+                FixRequestList::toFixRequest,
+                new TicketPager.Listener<FixRequest>() {
+                    @Override
+                    public void onItems(List<FixRequest> items) {
+                        TicketCache.get().putFixRequests(items);
+                        adapter.setItems(items);
                     }
 
-                    ArrayList<FixRequest> list = new ArrayList<>();
-                    for (QueryDocumentSnapshot d : qs) {
-                        FixRequest f = d.toObject(FixRequest.class);
-                        if (f == null) continue;
-                        f.id = d.getId();
-                        if (f.shortId == null && f.id.length() >= 6) {
-                            f.shortId = f.id.substring(0, 6).toUpperCase(Locale.US);
-                        }
-                        list.add(f);
+                    @Override
+                    public void onError(Exception e) {
+                        errorHandler.accept(e);
                     }
-                    adapter.setItems(list);
                 });
+        pager.attachTo(rvFix);
+        pager.start();
     }
 
-    private void fallbackRenterLoad() {
-        db.collection("fixRequests")
-                .whereEqualTo("createdById", userId)
-                .get()
-                .addOnSuccessListener(qs -> {
-                    ArrayList<FixRequest> list = new ArrayList<>();
-                    for (QueryDocumentSnapshot d : qs) {
-                        FixRequest f = d.toObject(FixRequest.class);
-                        if (f == null) continue;
-                        f.id = d.getId();
-                        if (f.shortId == null && f.id.length() >= 6) {
-                            f.shortId = f.id.substring(0, 6).toUpperCase(Locale.US);
-                        }
-                        list.add(f);
-                    }
-                    adapter.setItems(list);
-                })
-                .addOnFailureListener(e -> Log.e(TAG, "Fallback renter load (fixRequests) failed", e));
+    private void stopPager() {
+        if (pager != null) {
+            pager.stop();
+            pager = null;
+        }
+        if (mergedFeed != null) {
+            mergedFeed.stop();
+            mergedFeed = null;
+        }
+    }
+
+    @Nullable
+    private static FixRequest toFixRequest(DocumentSnapshot d) {
+        FixRequest f = d.toObject(FixRequest.class);
+        if (f == null) return null;
+        f.id = d.getId();
+        if (f.shortId == null && f.id.length() >= 6) {
+            f.shortId = f.id.substring(0, 6).toUpperCase(Locale.US);
+        }
+        // a status change still being committed shows as already made; status /
+        // statusVersion stay the server's, the next change is checked against them
+        String effective = TicketCache.get().effectiveStatus(TicketCache.FIX_REQUESTS, f.id, f.status, f.statusVersion);
+        if (effective != null && !effective.equals(f.status)) f.pendingStatus = effective;
+        return f;
     }
 }
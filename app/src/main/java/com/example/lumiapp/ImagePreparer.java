@@ -0,0 +1,256 @@
+package com.example.lumiapp;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.net.Uri;
+
+import androidx.annotation.WorkerThread;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.storage.StorageMetadata;
+import com.google.firebase.storage.StorageReference;
+import com.google.firebase.storage.UploadTask;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Shrinks a picked image before it is uploaded, instead of sending the raw
+ * gallery file (often 5–15 MB).
+ *
+ * The image is decoded subsampled (inSampleSize, so a 48 MP photo never
+ * sits in memory at full size), rotated per its EXIF orientation, scaled so
+ * its longest edge is at most {@code maxEdge}, and re-encoded as JPEG. The
+ * re-encode drops all metadata (EXIF, GPS). The bytes go to Storage with
+ * putBytes.
+ *
+ * Ticket and property photos are stored as {@link Rendition}s: the same
+ * image at list-thumbnail, detail and full size, decoded once.
+ */
+public final class ImagePreparer {
+
+    /** Complaint / fix request / property photos. */
+    public static final int MAX_EDGE_PHOTO = 1600;
+    /** Profile pictures (only ever shown small). */
+    public static final int MAX_EDGE_AVATAR = 512;
+
+    private static final int JPEG_QUALITY = 82;
+
+    // decoding is CPU + memory heavy: one image at a time
+    private static final ExecutorService worker = Executors.newSingleThreadExecutor();
+
+    /**
+     * Sizes stored per ticket / property photo. Each is its own Storage
+     * object next to the full image ({@link #path}) and its own URL field on
+     * the doc: lists load THUMB, detail screens MEDIUM, full screen FULL.
+     */
+    public enum Rendition {
+        THUMB(128, "_128", "thumbUrl"),
+        MEDIUM(512, "_512", "mediumUrl"),
+        FULL(0, "", "imageUrl");          // 0 = whatever maxEdge the caller asked for
+
+        public final int maxEdge;
+        public final String suffix;
+        public final String field;
+
+        Rendition(int maxEdge, String suffix, String field) {
+            this.maxEdge = maxEdge;
+            this.suffix = suffix;
+            this.field = field;
+        }
+
+        /** "complaintImages/x.jpg" → "complaintImages/x_128.jpg" (also for local files). */
+        public String path(String fullPath) {
+            if (suffix.isEmpty()) return fullPath;
+            int dot = fullPath.lastIndexOf('.');
+            return dot > fullPath.lastIndexOf('/')
+                    ? fullPath.substring(0, dot) + suffix + fullPath.substring(dot)
+                    : fullPath + suffix;
+        }
+    }
+
+    private ImagePreparer() {
+    }
+
+    /**
+     * Drop-in for {@code ref.putFile(uri)}: prepares the image off the main
+     * thread, then uploads the result.
+     */
+    public static Task<UploadTask.TaskSnapshot> upload(Context context, Uri uri,
+                                                       StorageReference ref, int maxEdge) {
+        ContentResolver resolver = context.getApplicationContext().getContentResolver();
+        return Tasks.call(worker, () -> prepare(resolver, uri, maxEdge, JPEG_QUALITY))
+                .continueWithTask(task -> {
+                    if (!task.isSuccessful()) throw task.getException();
+                    StorageMetadata meta = new StorageMetadata.Builder()
+                            .setContentType("image/jpeg")
+                            .build();
+                    return ref.putBytes(task.getResult(), meta);
+                });
+    }
+
+    /**
+     * Copies a picked image unchanged into private files (files/uploads/),
+     * before the doc waiting for it is saved: a content Uri is only readable
+     * while our process lives, the copy is not. Runs on the worker thread
+     * (a picked file can be large or cloud-backed); decoding happens later in
+     * {@link ImageUploadWorker}.
+     */
+    public static Task<File> copyForUpload(Context context, Uri uri) {
+        Context app = context.getApplicationContext();
+        return Tasks.call(worker, () -> copy(app, uri));
+    }
+
+    @WorkerThread
+    private static File copy(Context context, Uri uri) throws IOException {
+        File dir = new File(context.getFilesDir(), "uploads");
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Can't create " + dir);
+        File raw = new File(dir, UUID.randomUUID() + ".src");
+
+        try (InputStream in = open(context.getContentResolver(), uri);
+             FileOutputStream out = new FileOutputStream(raw)) {
+            byte[] buf = new byte[64 * 1024];
+            int n;
+            while ((n = in.read(buf)) != -1) out.write(buf, 0, n);
+        } catch (IOException e) {
+            if (raw.exists() && !raw.delete()) raw.deleteOnExit();
+            throw e;
+        }
+        return raw;
+    }
+
+    /**
+     * Writes every {@link Rendition} of a local image: FULL to {@code full},
+     * the others to {@code rendition.path(full)}. Decoded once; the smaller
+     * ones are scaled from the decoded full image.
+     */
+    @WorkerThread
+    public static void writeRenditions(Context context, File source, int maxEdge, File full)
+            throws IOException {
+        Bitmap bitmap = decode(context.getContentResolver(), Uri.fromFile(source), maxEdge);
+        try {
+            write(full, encode(bitmap, JPEG_QUALITY));
+            for (Rendition r : Rendition.values()) {
+                if (r == Rendition.FULL) continue;
+                Bitmap small = scaleDown(bitmap, r.maxEdge);
+                write(new File(r.path(full.getPath())), encode(small, JPEG_QUALITY));
+                if (small != bitmap) small.recycle();
+            }
+        } finally {
+            bitmap.recycle();
+        }
+    }
+
+    @WorkerThread
+    public static byte[] prepare(ContentResolver resolver, Uri uri, int maxEdge, int quality)
+            throws IOException {
+        Bitmap out = decode(resolver, uri, maxEdge);
+        try {
+            return encode(out, quality);
+        } finally {
+            out.recycle();
+        }
+    }
+
+    /** Upright bitmap, longest edge at most {@code maxEdge}. */
+    @WorkerThread
+    static Bitmap decode(ContentResolver resolver, Uri uri, int maxEdge) throws IOException {
+        // 1) size only
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        try (InputStream in = open(resolver, uri)) {
+            BitmapFactory.decodeStream(in, null, bounds);
+        }
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+            throw new IOException("Not an image: " + uri);
+        }
+
+        // 2) decode at the smallest power-of-two size still >= maxEdge
+        BitmapFactory.Options opts = new BitmapFactory.Options();
+        opts.inSampleSize = sampleSize(Math.max(bounds.outWidth, bounds.outHeight), maxEdge);
+        Bitmap decoded;
+        try (InputStream in = open(resolver, uri)) {
+            decoded = BitmapFactory.decodeStream(in, null, opts);
+        }
+        if (decoded == null) throw new IOException("Decode failed: " + uri);
+
+        // 3) rotate + scale down to maxEdge in one pass
+        Matrix m = orientation(resolver, uri);
+        float scale = Math.min(1f, maxEdge / (float) Math.max(decoded.getWidth(), decoded.getHeight()));
+        m.postScale(scale, scale);
+        Bitmap out = Bitmap.createBitmap(decoded, 0, 0, decoded.getWidth(), decoded.getHeight(), m, true);
+        if (out != decoded) decoded.recycle();
+        return out;
+    }
+
+    /** 4) re-encode as JPEG; no metadata survives this. */
+    private static byte[] encode(Bitmap bitmap, int quality) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bitmap.compress(Bitmap.CompressFormat.JPEG, quality, bytes);
+        return bytes.toByteArray();
+    }
+
+    /** May return {@code src} itself when it is already small enough. */
+    private static Bitmap scaleDown(Bitmap src, int maxEdge) {
+        int longest = Math.max(src.getWidth(), src.getHeight());
+        if (longest <= maxEdge) return src;
+        float scale = maxEdge / (float) longest;
+        return Bitmap.createScaledBitmap(src,
+                Math.max(1, Math.round(src.getWidth() * scale)),
+                Math.max(1, Math.round(src.getHeight() * scale)),
+                true);
+    }
+
+    private static void write(File file, byte[] bytes) throws IOException {
+        try (FileOutputStream fos = new FileOutputStream(file)) {
+            fos.write(bytes);
+        }
+    }
+
+    static int sampleSize(int longestEdge, int maxEdge) {
+        int sample = 1;
+        while (longestEdge / (sample * 2) >= maxEdge) sample *= 2;
+        return sample;
+    }
+
+    /** Rotation / mirroring the camera recorded instead of turning the pixels. */
+    private static Matrix orientation(ContentResolver resolver, Uri uri) {
+        Matrix m = new Matrix();
+        int o;
+        try (InputStream in = open(resolver, uri)) {
+            o = new ExifInterface(in).getAttributeInt(
+                    ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+        } catch (IOException e) {
+            return m;   // no / unreadable EXIF (PNG, screenshots): keep as is
+        }
+
+        switch (o) {
+            case ExifInterface.ORIENTATION_FLIP_HORIZONTAL: m.setScale(-1, 1);      break;
+            case ExifInterface.ORIENTATION_ROTATE_180:      m.setRotate(180);       break;
+            case ExifInterface.ORIENTATION_FLIP_VERTICAL:   m.setScale(1, -1);      break;
+            case ExifInterface.ORIENTATION_TRANSPOSE:       m.setRotate(90);  m.postScale(-1, 1); break;
+            case ExifInterface.ORIENTATION_ROTATE_90:       m.setRotate(90);        break;
+            case ExifInterface.ORIENTATION_TRANSVERSE:      m.setRotate(-90); m.postScale(-1, 1); break;
+            case ExifInterface.ORIENTATION_ROTATE_270:      m.setRotate(-90);       break;
+            default: break;
+        }
+        return m;
+    }
+
+    private static InputStream open(ContentResolver resolver, Uri uri) throws IOException {
+        InputStream in = resolver.openInputStream(uri);
+        if (in == null) throw new IOException("Can't open " + uri);
+        return in;
+    }
+}
@@ -0,0 +1,301 @@
+package com.example.lumiapp;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.Uri;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.storage.FirebaseStorage;
+import com.google.firebase.storage.StorageException;
+import com.google.firebase.storage.StorageMetadata;
+import com.google.firebase.storage.StorageReference;
+import com.google.firebase.storage.UploadTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Background photo upload for a document that is already saved.
+ *
+ * The screen copies the picked image into private files
+ * ({@link ImagePreparer#copyForUpload}), writes its doc with
+ * {@code imagePending: true} and calls {@link #enqueue}; the user can leave
+ * right away. The work decodes the copy into one file per
+ * {@link ImagePreparer.Rendition}, then uploads them whenever there is a
+ * network, across app restarts. When all are up their
+ * URLs (imageUrl, mediumUrl, thumbUrl) go into the doc in one update and
+ * imagePending is removed; the live listeners pick that up like any edit.
+ *
+ * Uploads use Storage's resumable sessions: the session Uri is kept in prefs
+ * per doc and rendition, so a retry continues where the last attempt
+ * stopped instead of starting over; finished renditions aren't re-sent.
+ */
+public class ImageUploadWorker extends Worker {
+
+    private static final String TAG = "ImageUploadWorker";
+    private static final String PREFS = "image_uploads";   // docPath + rendition → session Uri / URL
+
+    private static final String KEY_SOURCE       = "source";    // raw copy, until renditions are written
+    private static final String KEY_MAX_EDGE     = "maxEdge";
+    private static final String KEY_FILE         = "file";      // FULL rendition
+    private static final String KEY_STORAGE_PATH = "storagePath";
+    private static final String KEY_DOC_PATH     = "docPath";
+
+    public static final String KEY_RENDITION   = "rendition";    // progress
+    public static final String KEY_BYTES_SENT  = "bytesSent";
+    public static final String KEY_BYTES_TOTAL = "bytesTotal";
+
+    private static final int MAX_ATTEMPTS = 10;
+
+    @Nullable
+    private volatile UploadTask current;
+
+    public ImageUploadWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    // ─────────────────────────────────────────────
+    //  Enqueue
+    // ─────────────────────────────────────────────
+
+    /**
+     * @param source      the picked image, copied by {@link ImagePreparer#copyForUpload}
+     * @param doc         already written (or queued) with {@code imagePending: true}
+     * @param storagePath Storage object for the full image; the smaller
+     *                    renditions go next to it (see {@link ImagePreparer.Rendition#path})
+     */
+    public static void enqueue(Context context, File source, int maxEdge,
+                               String storagePath, DocumentReference doc) {
+        Data input = new Data.Builder()
+                .putString(KEY_SOURCE, source.getAbsolutePath())
+                .putInt(KEY_MAX_EDGE, maxEdge)
+                .putString(KEY_FILE, fullFileFor(source.getAbsolutePath()))
+                .putString(KEY_STORAGE_PATH, storagePath)
+                .putString(KEY_DOC_PATH, doc.getPath())
+                .build();
+
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(ImageUploadWorker.class)
+                .setInputData(input)
+                .setConstraints(new Constraints.Builder()
+                        .setRequiredNetworkType(NetworkType.CONNECTED)
+                        .build())
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, 30, TimeUnit.SECONDS)
+                .addTag(TAG)
+                .build();
+
+        WorkManager.getInstance(context.getApplicationContext())
+                .enqueueUniqueWork(workName(doc.getPath()), ExistingWorkPolicy.REPLACE, request);
+    }
+
+    /** files/uploads/x.src (raw copy) → files/uploads/x.jpg (FULL rendition). */
+    private static String fullFileFor(String sourcePath) {
+        int dot = sourcePath.lastIndexOf('.');
+        return (dot > sourcePath.lastIndexOf('/') ? sourcePath.substring(0, dot) : sourcePath) + ".jpg";
+    }
+
+    private static String sourceFileFor(String filePath) {
+        int dot = filePath.lastIndexOf('.');
+        return (dot > filePath.lastIndexOf('/') ? filePath.substring(0, dot) : filePath) + ".src";
+    }
+
+    /** Unique work name, so progress for one doc can be observed. */
+    public static String workName(String docPath) {
+        return "imageUpload:" + docPath;
+    }
+
+    // ─────────────────────────────────────────────
+    //  Work
+    // ─────────────────────────────────────────────
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        String filePath = getInputData().getString(KEY_FILE);
+        String storagePath = getInputData().getString(KEY_STORAGE_PATH);
+        String docPath = getInputData().getString(KEY_DOC_PATH);
+        if (filePath == null || storagePath == null || docPath == null) {
+            return Result.failure();
+        }
+
+        DocumentReference doc = FirebaseFirestore.getInstance().document(docPath);
+        SharedPreferences prefs = getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+
+        // 0) decode the raw copy once; it is only deleted after every rendition is written,
+        //    so an attempt killed half-way simply decodes again
+        String sourcePath = getInputData().getString(KEY_SOURCE);
+        File source = sourcePath != null ? new File(sourcePath) : null;
+        if (source != null && source.exists()) {
+            int maxEdge = getInputData().getInt(KEY_MAX_EDGE, ImagePreparer.MAX_EDGE_PHOTO);
+            try {
+                ImagePreparer.writeRenditions(getApplicationContext(), source, maxEdge, new File(filePath));
+            } catch (IOException e) {
+                // unreadable image: the doc stays, just without a photo
+                Log.e(TAG, "Couldn't prepare image for " + docPath, e);
+                giveUp(doc, filePath, prefs);
+                return Result.failure();
+            }
+            if (!source.delete()) Log.w(TAG, "Couldn't delete " + source);
+        }
+
+        // 1) upload each rendition; ones finished in an earlier attempt are skipped
+        Map<String, Object> update = new HashMap<>();
+        for (ImagePreparer.Rendition r : ImagePreparer.Rendition.values()) {
+            File file = new File(r.path(filePath));
+            StorageReference ref = FirebaseStorage.getInstance().getReference(r.path(storagePath));
+            String urlKey = docPath + r.suffix + "#url";
+
+            String url = prefs.getString(urlKey, null);
+            if (url == null) {
+                if (!file.exists()) {
+                    Log.w(TAG, "Prepared file gone for " + docPath);
+                    giveUp(doc, filePath, prefs);
+                    return Result.failure();
+                }
+                try {
+                    url = upload(file, ref, docPath + r.suffix + "#session", prefs);
+                } catch (ExecutionException | InterruptedException | CancellationException e) {
+                    if (isStopped()) return Result.retry();   // session is saved; picks up from there
+                    Log.w(TAG, "Upload attempt failed for " + docPath + r.suffix, e);
+                    return retryOrGiveUp(doc, filePath, prefs);
+                }
+                prefs.edit().putString(urlKey, url).apply();
+            }
+            update.put(r.field, url);
+        }
+
+        // 2) patch all URLs into the doc at once
+        update.put("imagePending", FieldValue.delete());
+        try {
+            await(doc.update(update));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof FirebaseFirestoreException
+                    && ((FirebaseFirestoreException) e.getCause()).getCode()
+                    == FirebaseFirestoreException.Code.NOT_FOUND) {
+                // doc was deleted while we uploaded: don't leave the objects behind
+                for (ImagePreparer.Rendition r : ImagePreparer.Rendition.values()) {
+                    FirebaseStorage.getInstance().getReference(r.path(storagePath)).delete();
+                }
+                cleanUp(filePath, prefs, docPath);
+                return Result.success();
+            }
+            Log.w(TAG, "Couldn't patch " + docPath, e);
+            return retryOrGiveUp(doc, filePath, prefs);
+        } catch (InterruptedException e) {
+            return Result.retry();
+        }
+
+        cleanUp(filePath, prefs, docPath);
+        return Result.success();
+    }
+
+    /** Resumable upload of one file; returns its download URL. */
+    private String upload(File file, StorageReference ref, String sessionKey, SharedPreferences prefs)
+            throws ExecutionException, InterruptedException {
+        String session = prefs.getString(sessionKey, null);
+        StorageMetadata meta = new StorageMetadata.Builder().setContentType("image/jpeg").build();
+        UploadTask task = session != null
+                ? ref.putFile(Uri.fromFile(file), meta, Uri.parse(session))
+                : ref.putFile(Uri.fromFile(file), meta);
+        current = task;
+
+        task.addOnProgressListener(Runnable::run, snap -> {
+            Uri s = snap.getUploadSessionUri();
+            if (s != null && !s.toString().equals(prefs.getString(sessionKey, null))) {
+                prefs.edit().putString(sessionKey, s.toString()).apply();
+            }
+            setProgressAsync(new Data.Builder()
+                    .putString(KEY_RENDITION, ref.getName())
+                    .putLong(KEY_BYTES_SENT, snap.getBytesTransferred())
+                    .putLong(KEY_BYTES_TOTAL, snap.getTotalByteCount())
+                    .build());
+        });
+
+        try {
+            Tasks.await(task);
+        } catch (ExecutionException e) {
+            if (session != null && sessionExpired(e)) prefs.edit().remove(sessionKey).apply();
+            throw e;
+        } finally {
+            current = null;
+        }
+        return await(ref.getDownloadUrl()).toString();
+    }
+
+    @Override
+    public void onStopped() {
+        // constraints lost / system stop: drop the connection, keep the session
+        UploadTask t = current;
+        if (t != null) t.cancel();
+    }
+
+    private Result retryOrGiveUp(DocumentReference doc, String filePath, SharedPreferences prefs) {
+        if (getRunAttemptCount() + 1 < MAX_ATTEMPTS) return Result.retry();
+        giveUp(doc, filePath, prefs);
+        return Result.failure();
+    }
+
+    private static void giveUp(DocumentReference doc, String filePath, SharedPreferences prefs) {
+        Log.e(TAG, "Giving up on image for " + doc.getPath());
+        clearPending(doc);
+        cleanUp(filePath, prefs, doc.getPath());
+    }
+
+    /** The ticket stays; it just has no photo. */
+    private static void clearPending(DocumentReference doc) {
+        doc.update("imagePending", FieldValue.delete())
+                .addOnFailureListener(e -> Log.w(TAG, "Couldn't clear imagePending on " + doc.getPath(), e));
+    }
+
+    private static void cleanUp(String filePath, SharedPreferences prefs, String docPath) {
+        File source = new File(sourceFileFor(filePath));
+        if (source.exists() && !source.delete()) Log.w(TAG, "Couldn't delete " + source);
+
+        SharedPreferences.Editor edit = prefs.edit();
+        for (ImagePreparer.Rendition r : ImagePreparer.Rendition.values()) {
+            File file = new File(r.path(filePath));
+            if (file.exists() && !file.delete()) Log.w(TAG, "Couldn't delete " + file);
+            edit.remove(docPath + r.suffix + "#session").remove(docPath + r.suffix + "#url");
+        }
+        edit.apply();
+    }
+
+    /** Storage answers 4xx for a session it no longer knows; start fresh next time. */
+    private static boolean sessionExpired(Exception e) {
+        Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+        if (!(cause instanceof StorageException)) return false;
+        int code = ((StorageException) cause).getHttpResultCode();
+        return code >= 400 && code < 500;
+    }
+
+    private static <T> T await(Task<T> task) throws ExecutionException, InterruptedException {
+        try {
+            return Tasks.await(task, 60, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            throw new ExecutionException(e);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.example.lumiapp;
+
+import androidx.annotation.Nullable;
+
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps a conversation inbox sorted by lastMessageAt (newest first).
+ *
+ * Only the document changes of each snapshot are applied. Conversations are
+ * indexed by id and positions come from a binary search on the sorted view.
+ * After each batch the {@link Listener} gets a copy of the list; the adapter
+ * diffs it off the main thread, so a new message in one thread touches one row.
+ *
+ * Items handed out are never mutated afterwards (changes replace the item),
+ * otherwise the diff would compare an item with itself.
+ */
+public class InboxEngine {
+
+    public interface Listener {
+        /** New sorted copy of the inbox; safe to hand to a ListAdapter. */
+        void onItemsChanged(List<ConversationItem> items);
+    }
+
+    /** Newest first; conversations without a timestamp sink to the bottom, ties by id. */
+    static final Comparator<ConversationItem> ORDER = (a, b) -> {
+        Timestamp ta = a.getLastMessageAt();
+        Timestamp tb = b.getLastMessageAt();
+        if (ta != null && tb != null) {
+            int c = tb.compareTo(ta);
+            if (c != 0) return c;
+        } else if (ta != null) {
+            return -1;
+        } else if (tb != null) {
+            return 1;
+        }
+        return a.getConversationId().compareTo(b.getConversationId());
+    };
+
+    private final String myUid;
+    private final Listener listener;
+
+    private final Map<String, ConversationItem> byId = new HashMap<>();
+    private final List<ConversationItem> sorted = new ArrayList<>();
+
+    public InboxEngine(String myUid, Listener listener) {
+        this.myUid = myUid;
+        this.listener = listener;
+    }
+
+    public List<ConversationItem> getItems() {
+        return Collections.unmodifiableList(sorted);
+    }
+
+    @Nullable
+    public ConversationItem get(String conversationId) {
+        return byId.get(conversationId);
+    }
+
+    @Nullable
+    public ConversationItem getOldest() {
+        return sorted.isEmpty() ? null : sorted.get(sorted.size() - 1);
+    }
+
+    // ─────────────────────────────────────────────
+    //  Input
+    // ─────────────────────────────────────────────
+
+    /**
+     * Apply the changes of one snapshot of the live (limited) query.
+     *
+     * @return conversations seen for the first time, so the caller can resolve
+     *         counterpart profiles that participantInfo didn't cover
+     */
+    public List<ConversationItem> apply(QuerySnapshot qs, int pageSize) {
+        List<ConversationItem> added = new ArrayList<>();
+        List<DocumentSnapshot> docs = qs.getDocuments();
+        DocumentSnapshot lastInPage = docs.isEmpty() ? null : docs.get(docs.size() - 1);
+        boolean changed = false;
+
+        for (DocumentChange dc : qs.getDocumentChanges()) {
+            DocumentSnapshot doc = dc.getDocument();
+
+            if (dc.getType() == DocumentChange.Type.REMOVED) {
+                // a full page dropping its oldest row just means something newer
+                // pushed it out of the limit; it's still a valid conversation
+                if (lastInPage != null && slidOut(doc.getTimestamp("lastMessageAt"),
+                        lastInPage.getTimestamp("lastMessageAt"), docs.size(), pageSize)) {
+                    continue;
+                }
+                changed |= remove(doc.getId());
+                continue;
+            }
+
+            changed |= upsert(doc, added);
+        }
+        if (changed) publish();
+        return added;
+    }
+
+    /** Merge a one-off page of older conversations (loaded with startAfter). */
+    public List<ConversationItem> addOlder(List<DocumentSnapshot> docs) {
+        List<ConversationItem> added = new ArrayList<>();
+        boolean changed = false;
+        for (DocumentSnapshot doc : docs) {
+            changed |= upsert(doc, added);
+        }
+        if (changed) publish();
+        return added;
+    }
+
+    /** Fill in the counterpart's name and photo once they're known. */
+    public void updateProfile(String conversationId, String name, @Nullable String photoUrl) {
+        ConversationItem item = byId.get(conversationId);
+        if (item == null) return;
+        if (equals(name, item.getOtherUserName()) && equals(photoUrl, item.getOtherUserPhotoUrl())) return;
+
+        ConversationItem updated = item.copy();
+        updated.setOtherUserName(name);
+        updated.setOtherUserPhotoUrl(photoUrl);
+        // sort key is untouched, the row stays where it is
+        sorted.set(indexOf(item), updated);
+        byId.put(conversationId, updated);
+        publish();
+    }
+
+    // ─────────────────────────────────────────────
+    //  Internals
+    // ─────────────────────────────────────────────
+
+    /**
+     * Insert or replace the row for {@code doc}; ids seen for the first time
+     * are added to {@code added}.
+     *
+     * @return true if the list changed
+     */
+    private boolean upsert(DocumentSnapshot doc, List<ConversationItem> added) {
+        ConversationItem fresh = toItem(doc);
+        if (fresh == null) return false;
+
+        boolean isNew = !byId.containsKey(fresh.getConversationId());
+        if (!put(fresh)) return false;
+        if (isNew) added.add(fresh);
+        return true;
+    }
+
+    /**
+     * Insert {@code fresh} at its sorted position, replacing the row with the
+     * same id.
+     *
+     * @return true if the list changed
+     */
+    boolean put(ConversationItem fresh) {
+        ConversationItem old = byId.get(fresh.getConversationId());
+        if (old == null) {
+            sorted.add(insertionPoint(fresh), fresh);
+            byId.put(fresh.getConversationId(), fresh);
+            return true;
+        }
+
+        // older docs have no participantInfo; keep what was resolved for the old row
+        if (isEmpty(fresh.getOtherUserName())) {
+            fresh.setOtherUserName(old.getOtherUserName());
+            fresh.setOtherUserPhotoUrl(old.getOtherUserPhotoUrl());
+        }
+
+        if (old.equals(fresh)) return false;
+
+        sorted.remove(indexOf(old));
+        sorted.add(insertionPoint(fresh), fresh);
+        byId.put(fresh.getConversationId(), fresh);
+        return true;
+    }
+
+    boolean remove(String conversationId) {
+        ConversationItem old = byId.remove(conversationId);
+        if (old == null) return false;
+        sorted.remove(indexOf(old));
+        return true;
+    }
+
+    private void publish() {
+        listener.onItemsChanged(new ArrayList<>(sorted));
+    }
+
+    @Nullable
+    private ConversationItem toItem(DocumentSnapshot doc) {
+        if (!doc.exists()) return null;
+
+        // participants: [managerId, otherUserId]
+        List<String> participants = (List<String>) doc.get("participants");
+        if (participants == null || participants.size() < 2) return null;
+
+        String otherUserId = null;
+        for (String p : participants) {
+            if (!myUid.equals(p)) {
+                otherUserId = p;
+                break;
+            }
+        }
+        if (otherUserId == null) return null;
+
+        // participantInfo lets us show the row without a users/{uid} lookup
+        ConversationItem item = new ConversationItem(
+                doc.getId(),
+                otherUserId,
+                ParticipantInfo.name(doc, otherUserId),
+                ParticipantInfo.photoUrl(doc, otherUserId),
+                doc.getString("lastMessageText"),
+                doc.getTimestamp("lastMessageAt")
+        );
+        Long unread = doc.getLong("unreadCounts." + myUid);
+        item.setUnreadCount(unread != null ? unread : 0);
+        item.setSnapshot(doc);
+        return item;
+    }
+
+    private int indexOf(ConversationItem item) {
+        // items are only ever looked up with the key they were inserted under
+        return Collections.binarySearch(sorted, item, ORDER);
+    }
+
+    private int insertionPoint(ConversationItem item) {
+        int i = Collections.binarySearch(sorted, item, ORDER);
+        return i >= 0 ? i : -(i + 1);
+    }
+
+    /**
+     * True if a REMOVED change only means the limit pushed the row out: the
+     * page is full and the row isn't newer than the page's last one.
+     */
+    static boolean slidOut(@Nullable Timestamp removedAt, @Nullable Timestamp lastInPageAt,
+                           int docsInPage, int pageSize) {
+        if (docsInPage < pageSize) return false;
+        if (removedAt == null || lastInPageAt == null) return true;
+        return removedAt.compareTo(lastInPageAt) <= 0;
+    }
+
+    private static boolean isEmpty(@Nullable String s) {
+        return s == null || s.isEmpty();
+    }
+
+    private static boolean equals(@Nullable Object a, @Nullable Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
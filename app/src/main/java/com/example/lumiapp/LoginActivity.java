@@ -15,7 +15,6 @@ import com.google.android.material.button.MaterialButton;
 import com.google.android.material.textfield.TextInputEditText;
 import com.google.android.material.textfield.TextInputLayout;
 import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
 
 public class LoginActivity extends AppCompatActivity {
@@ -172,66 +171,50 @@ public class LoginActivity extends AppCompatActivity {
         if (auth.getCurrentUser() == null) return;
         String uid = auth.getCurrentUser().getUid();
 
-        db.collection("users").document(uid).get()
-                .addOnSuccessListener((DocumentSnapshot doc) -> {
-                    if (doc != null && doc.exists()) {
-                        String userType = doc.getString("userType");
-                        if (userType == null || userType.isEmpty()) {
-                            // No role chosen yet
-                            goToRoleSelect();
-                        } else if ("renter".equals(userType)) {
-                            checkRenterDetails(uid);
-                        } else if ("manager".equals(userType)) {
-                            checkManagerDetails(uid);
-                        } else {
-                            // Unknown role → force role selection
-                            goToRoleSelect();
-                        }
-                    } else {
-                        // No user doc → force role selection / profile setup
-                        goToRoleSelect();
-                    }
-                })
-                .addOnFailureListener(e -> goToRoleSelect());
+        // users/{uid} and renters/{uid} arrive together through the session
+        UserSession.get().whenReady(session -> {
+            String userType = session.getUserType();
+            if (userType == null || userType.isEmpty()) {
+                // No role chosen yet (or no user doc / read failed)
+                goToRoleSelect();
+            } else if ("renter".equals(userType)) {
+                checkRenterDetails(session);
+            } else if ("manager".equals(userType)) {
+                checkManagerDetails(uid);
+            } else {
+                // Unknown role → force role selection
+                goToRoleSelect();
+            }
+        });
     }
 
-    private void checkRenterDetails(String uid) {
-        db.collection("renters")
-                .document(uid)
-                .get()
-                .addOnSuccessListener(doc -> {
-                    if (doc != null && doc.exists()) {
-                        String propertyId = doc.getString("propertyId");
-                        if (!TextUtils.isEmpty(propertyId)) {
-                            // Renter fully set up → renter dashboard
-                            goToRenterDashboard();
-                        } else {
-                            // Renter has no property yet → renter setup
-                            goToRenterAccSetup();
-                        }
-                    } else {
-                        // No renter doc → renter setup
-                        goToRenterAccSetup();
-                    }
-                })
-                .addOnFailureListener(e -> goToRenterAccSetup());
+    private void checkRenterDetails(UserSession session) {
+        if (session.getRenterPropertyId() != null) {
+            // Renter fully set up → renter dashboard
+            goToRenterDashboard();
+        } else {
+            // No renter doc, or no property yet → renter setup
+            goToRenterAccSetup();
+        }
     }
 
     private void checkManagerDetails(String uid) {
-        db.collection("properties")
+        // A cached property routes straight away; only an empty cache waits
+        // for the server. Route once: ignore the revalidated answer.
+        boolean[] routed = {false};
+        CachedReads.get(db.collection("properties")
                 .whereEqualTo("ownerUid", uid)
-                .limit(1)
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
-                    if (querySnapshot != null && !querySnapshot.isEmpty()) {
-                        // Manager already has at least one property
-                        goToManagerDashboard();
-                    } else {
-                        // Manager but no property → go to PM setup
-                        goToPMAccSetup();
-                    }
-                })
-                .addOnFailureListener(e -> goToPMAccSetup());
+                .limit(1), (querySnapshot, fromCache) -> {
+            if (routed[0]) return;
+            routed[0] = true;
+            if (!querySnapshot.isEmpty()) {
+                // Manager already has at least one property
+                goToManagerDashboard();
+            } else {
+                // Manager but no property → go to PM setup
+                goToPMAccSetup();
+            }
+        }, e -> goToPMAccSetup());
     }
 
     private void goToRoleSelect() {
@@ -0,0 +1,36 @@
+package com.example.lumiapp;
+
+import android.app.Application;
+
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreSettings;
+import com.google.firebase.firestore.PersistentCacheSettings;
+
+/**
+ * Process-wide setup that has to run before any screen is shown.
+ */
+public class LumiApplication extends Application {
+
+    // Local Firestore cache: big enough that a warm start is served from disk
+    // (see CachedReads); older entries are garbage-collected past this size
+    private static final long FIRESTORE_CACHE_BYTES = 100L * 1024 * 1024;
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+
+        // Must come before the first Firestore read / listen
+        FirebaseFirestore.getInstance().setFirestoreSettings(
+                new FirebaseFirestoreSettings.Builder()
+                        .setLocalCacheSettings(PersistentCacheSettings.newBuilder()
+                                .setSizeBytes(FIRESTORE_CACHE_BYTES)
+                                .build())
+                        .build());
+
+        // Replay chat messages left in the outbox by a previous process
+        ChatOutbox.get(this).start();
+
+        // Own user / renter docs, loaded once per sign-in and shared by every screen
+        UserSession.get().start();
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.lumiapp;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.load.engine.cache.MemorySizeCalculator;
+import com.bumptech.glide.module.AppGlideModule;
+import com.bumptech.glide.request.RequestOptions;
+
+/**
+ * App-wide Glide setup: memory / disk caches sized for the device class.
+ *
+ * Small images (list thumbnails, avatars) load with {@link #SMALL}: RGB_565
+ * halves their memory next to ARGB_8888 (JPEG thumbnails have no alpha; PNGs
+ * that do keep ARGB). On O+ Glide still prefers hardware bitmaps where it can.
+ */
+@GlideModule
+public final class LumiGlideModule extends AppGlideModule {
+
+    private static final long DISK_CACHE_LOW_RAM = 64L * 1024 * 1024;
+    private static final long DISK_CACHE_DEFAULT = 256L * 1024 * 1024;
+
+    /** Rows of images decoded ahead of the scroll position (RecyclerViewPreloader). */
+    public static final int PRELOAD_ROWS = 8;
+
+    /** Thumbnails and avatars. */
+    public static final RequestOptions SMALL = new RequestOptions()
+            .format(DecodeFormat.PREFER_RGB_565)
+            .lock();
+
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+        ActivityManager am = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        boolean lowRam = am == null || am.isLowRamDevice() || am.getMemoryClass() <= 128;
+
+        // 🔹 screens' worth of bitmaps kept around; the calculator caps it by heap size
+        MemorySizeCalculator sizes = new MemorySizeCalculator.Builder(context)
+                .setMemoryCacheScreens(lowRam ? 1.5f : 3f)
+                .setBitmapPoolScreens(lowRam ? 1f : 3f)
+                .build();
+        builder.setMemoryCache(new LruResourceCache(sizes.getMemoryCacheSize()));
+        builder.setBitmapPool(new LruBitmapPool(sizes.getBitmapPoolSize()));
+
+        builder.setDiskCache(new InternalCacheDiskCacheFactory(context, "images",
+                lowRam ? DISK_CACHE_LOW_RAM : DISK_CACHE_DEFAULT));
+        builder.setLogLevel(Log.ERROR);
+    }
+
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;   // no v3 manifest modules
+    }
+}
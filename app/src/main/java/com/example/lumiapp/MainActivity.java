@@ -10,12 +10,10 @@ import androidx.appcompat.app.AppCompatActivity;
 
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FirebaseFirestore;
 
 public class MainActivity extends AppCompatActivity {
 
     private FirebaseAuth auth;
-    private FirebaseFirestore db;
 
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
@@ -23,7 +21,6 @@ public class MainActivity extends AppCompatActivity {
         EdgeToEdge.enable(this);
         setContentView(R.layout.activity_main); // simple splash/progress layout
         auth = FirebaseAuth.getInstance();
-        db   = FirebaseFirestore.getInstance();
     }
 
     @Override
@@ -39,18 +36,19 @@ public class MainActivity extends AppCompatActivity {
             return;
         }
 
-        // Signed in → fetch user doc and decide
-        String uid = auth.getCurrentUser().getUid();
-        db.collection("users").document(uid).get()
-                .addOnSuccessListener(this::routeByUserDoc)
-                .addOnFailureListener(e -> {
-                    // If we can’t read, be safe and send to PM setup
-                    Toast.makeText(this, "Loading profile failed, opening setup.", Toast.LENGTH_SHORT).show();
-                    goToPMSetup();
-                });
+        // Signed in → user doc from the session (already loaded if we came from login)
+        UserSession.get().whenReady(session -> {
+            if (session.getError() != null) {
+                // If we can’t read, be safe and send to PM setup
+                Toast.makeText(this, "Loading profile failed, opening setup.", Toast.LENGTH_SHORT).show();
+                goToPMSetup();
+                return;
+            }
+            routeByUserDoc(session.getUser());
+        });
     }
 
-    private void routeByUserDoc(DocumentSnapshot doc) {
+    private void routeByUserDoc(@Nullable DocumentSnapshot doc) {
         // For now: treat all as Property Manager
         boolean pmCompleted = doc != null && Boolean.TRUE.equals(doc.getBoolean("pmCompleted"));
         if (pmCompleted) {
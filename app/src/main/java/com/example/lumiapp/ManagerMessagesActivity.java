@@ -6,19 +6,21 @@ import android.text.TextUtils;
 import android.util.Log;
 import android.widget.ImageButton;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.integration.recyclerview.RecyclerViewPreloader;
 import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.EventListener;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.ListenerRegistration;
-import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Query;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -26,6 +28,9 @@ public class ManagerMessagesActivity extends AppCompatActivity {
 
     private static final String TAG = "ManagerMessages";
 
+    private static final int PAGE_SIZE = 50;
+    private static final int LOAD_MORE_THRESHOLD = 10;
+
     private FirebaseAuth auth;
     private FirebaseFirestore db;
 
@@ -35,8 +40,13 @@ public class ManagerMessagesActivity extends AppCompatActivity {
     private ConversationAdapter adapter;
     private ImageButton backBtn;
 
+    private InboxEngine engine;
     private ListenerRegistration conversationsReg;
 
+    private boolean firstPageLoaded = false;
+    private boolean hasOlder = false;
+    private boolean loadingOlder = false;
+
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -64,8 +74,23 @@ public class ManagerMessagesActivity extends AppCompatActivity {
             startActivity(i);
         });
 
-        rvConversations.setLayoutManager(new LinearLayoutManager(this));
+        engine = new InboxEngine(managerId, adapter);
+
+        LinearLayoutManager lm = new LinearLayoutManager(this);
+        rvConversations.setLayoutManager(lm);
         rvConversations.setAdapter(adapter);
+        rvConversations.addOnScrollListener(new RecyclerViewPreloader<>(
+                Glide.with(this), adapter, adapter.preloadSizes(), LumiGlideModule.PRELOAD_ROWS));
+        rvConversations.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                if (dy <= 0) return;
+                int last = lm.findLastVisibleItemPosition();
+                if (last >= adapter.getItemCount() - LOAD_MORE_THRESHOLD) {
+                    loadOlderConversations();
+                }
+            }
+        });
 
         backBtn.setOnClickListener(v -> finish());
 
@@ -81,78 +106,90 @@ public class ManagerMessagesActivity extends AppCompatActivity {
     }
 
     private void listenForConversations() {
-        // conversations where manager is a participant
-        conversationsReg = db.collection("conversations")
-                .whereArrayContains("participants", managerId)
+        // newest PAGE_SIZE conversations stay live; older ones are paged in on scroll
+        conversationsReg = conversationsQuery()
+                .limit(PAGE_SIZE)
                 .addSnapshotListener((qs, e) -> {
                     if (e != null) {
                         Log.e(TAG, "Conversations listen failed", e);
                         return;
                     }
-                    if (qs == null) {
-                        adapter.setItems(new ArrayList<>());
-                        return;
-                    }
+                    if (qs == null) return;
 
-                    // For each conversation doc, resolve the "other" user
-                    for (DocumentSnapshot doc : qs.getDocuments()) {
-                        handleConversationDoc(doc);
+                    // a page from the cache can be short only because the cache is;
+                    // the server's answer then differs and arrives as another snapshot
+                    if (!firstPageLoaded) {
+                        hasOlder = qs.size() >= PAGE_SIZE;
+                        firstPageLoaded = !qs.getMetadata().isFromCache();
                     }
+                    resolveProfiles(engine.apply(qs, PAGE_SIZE));
                 });
     }
 
-    private void handleConversationDoc(DocumentSnapshot doc) {
-        if (!doc.exists()) return;
-
-        String conversationId = doc.getId();
+    private Query conversationsQuery() {
+        // conversations where manager is a participant, most recent activity first
+        return db.collection("conversations")
+                .whereArrayContains("participants", managerId)
+                .orderBy("lastMessageAt", Query.Direction.DESCENDING);
+    }
 
-        // participants: [managerId, otherUserId]
-        List<String> participants = (List<String>) doc.get("participants");
-        if (participants == null || participants.size() < 2) return;
+    private void loadOlderConversations() {
+        if (loadingOlder || !hasOlder) return;
+        ConversationItem oldest = engine.getOldest();
+        if (oldest == null || oldest.getLastMessageAt() == null) return;
+
+        loadingOlder = true;
+        // cursor on the snapshot, not just the timestamp: the query orders ties
+        // on lastMessageAt by document id, and those would be skipped
+        Query page = oldest.getSnapshot() != null
+                ? conversationsQuery().startAfter(oldest.getSnapshot())
+                : conversationsQuery().startAfter(oldest.getLastMessageAt());
+        page.limit(PAGE_SIZE)
+                .get()
+                .addOnSuccessListener(qs -> {
+                    loadingOlder = false;
+                    hasOlder = qs.size() >= PAGE_SIZE;
+                    resolveProfiles(engine.addOlder(qs.getDocuments()));
+                })
+                .addOnFailureListener(e -> {
+                    loadingOlder = false;
+                    Log.e(TAG, "Loading older conversations failed", e);
+                });
+    }
 
-        String otherUserId = null;
-        for (String p : participants) {
-            if (!managerId.equals(p)) {
-                otherUserId = p;
-                break;
+    /**
+     * Name + photo for new conversations whose doc has no participantInfo yet
+     * (written before it existed). Cached profiles are applied right away; the
+     * rest are fetched in one batch. Updates to existing conversations never
+     * trigger a profile lookup.
+     */
+    private void resolveProfiles(List<ConversationItem> added) {
+        Map<String, List<String>> conversationsByUser = new HashMap<>();
+        for (ConversationItem item : added) {
+            if (!TextUtils.isEmpty(item.getOtherUserName())) continue;
+            List<String> ids = conversationsByUser.get(item.getOtherUserId());
+            if (ids == null) {
+                ids = new ArrayList<>();
+                conversationsByUser.put(item.getOtherUserId(), ids);
             }
+            ids.add(item.getConversationId());
         }
-        if (otherUserId == null) return;
-
-        String lastMessageText = doc.getString("lastMessageText");
-        com.google.firebase.Timestamp lastMessageAt =
-                (com.google.firebase.Timestamp) doc.get("lastMessageAt");
-
-        // Initially create a ConversationItem with just IDs & lastMessage
-        ConversationItem baseItem = new ConversationItem(
-                conversationId,
-                otherUserId,
-                null,
-                null,
-                lastMessageText,
-                lastMessageAt
-        );
-
-        // Fetch user profile for name + photo
-        db.collection("users")
-                .document(otherUserId)
-                .get()
-                .addOnSuccessListener(userDoc -> {
-                    String otherName = userDoc.getString("name");
-                    String photoUrl  = userDoc.getString("profileImageUrl");
-
-                    baseItem.setOtherUserName(
-                            !TextUtils.isEmpty(otherName) ? otherName : "User"
+        if (conversationsByUser.isEmpty()) return;
+
+        UserProfileRepository.get(this).getAll(conversationsByUser.keySet(), loaded -> {
+            for (Map.Entry<String, List<String>> entry : conversationsByUser.entrySet()) {
+                UserProfile profile = loaded.get(entry.getKey());
+                String otherName = profile != null ? profile.name : null;
+                String photoUrl  = profile != null ? profile.profileImageUrl : null;
+
+                for (String conversationId : entry.getValue()) {
+                    engine.updateProfile(
+                            conversationId,
+                            !TextUtils.isEmpty(otherName) ? otherName : "User",
+                            photoUrl
                     );
-                    baseItem.setOtherUserPhotoUrl(photoUrl);
-
-                    adapter.upsertItem(baseItem);
-                })
-                .addOnFailureListener(err -> {
-                    Log.e(TAG, "Failed to load user for conversation", err);
-                    // still show conversation with fallback name
-                    baseItem.setOtherUserName("User");
-                    adapter.upsertItem(baseItem);
-                });
+                }
+            }
+        });
     }
 }
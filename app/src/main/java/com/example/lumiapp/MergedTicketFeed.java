@@ -0,0 +1,411 @@
+package com.example.lumiapp;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.Query;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Live ticket feed across many properties (a manager's whole
+ * managerOf list).
+ *
+ * Properties are split into whereIn chunks; every chunk is its own
+ * {@link TicketPager} (live first page, older pages on demand). The chunk
+ * windows are combined with a k-way merge on the list's sort field. A row
+ * is only shown once no chunk that still has more pages could hold
+ * something that sorts before it, so the merged list never reorders as
+ * pages arrive; scrolling near the end
+ * loads the next page of the chunk that is holding the merge back.
+ *
+ * The merged list stops at {@link TicketPager#MAX_WINDOW} rows. Once it is
+ * full, every chunk is trimmed to the rows that made it into the list.
+ * Scrolling on past the end slides the window like {@link TicketPager}
+ * does: the first page of rows is dropped from every chunk at once (live
+ * pages detach) and older pages keep loading. Each chunk remembers where it
+ * was cut, and only rows below the latest cut are shown, so scrolling back
+ * up fetches the dropped rows again with {@link TicketPager#loadNewer()}.
+ *
+ * @param <T> row model the adapter shows
+ */
+public class MergedTicketFeed<T> {
+
+    private static final String TAG = "MergedTicketFeed";
+
+    public static final int CHUNK_SIZE = BatchedDocumentLoader.MAX_IN_SIZE;
+    private static final int PREFETCH_DISTANCE = 8;
+
+    /** What the merge needs to know about one sorted source. */
+    interface Lane<D> {
+        List<D> window();
+
+        /** More rows may still follow the window. */
+        boolean open();
+
+        /** Rows after this were dropped; the lane is complete down to it. */
+        @Nullable D trimmedAt();
+
+        /** Newer rows were dropped; the lane is only complete below this cut. */
+        @Nullable Cut<D> top();
+    }
+
+    /** Rows before {@link #row} (and the row itself unless inclusive) are hidden. */
+    static final class Cut<D> {
+        final D row;
+        final boolean inclusive;
+
+        Cut(D row, boolean inclusive) {
+            this.row = row;
+            this.inclusive = inclusive;
+        }
+    }
+
+    private static class Chunk implements Lane<DocumentSnapshot> {
+        TicketPager<DocumentSnapshot> pager;
+        List<DocumentSnapshot> window = new ArrayList<>();
+        boolean loaded;   // first snapshot (or an error) arrived
+        boolean failed;
+        @Nullable DocumentSnapshot trimmedAt;
+        @Nullable Cut<DocumentSnapshot> top;
+
+        @Override public List<DocumentSnapshot> window() { return window; }
+        @Override public boolean open() { return !failed && pager.hasOlder(); }
+        @Nullable @Override public DocumentSnapshot trimmedAt() { return trimmedAt; }
+        @Nullable @Override public Cut<DocumentSnapshot> top() { return top; }
+    }
+
+    private final TicketPager.Mapper<T> mapper;
+    private final TicketPager.Listener<T> listener;
+    private final List<Chunk> chunks = new ArrayList<>();
+    private final Comparator<DocumentSnapshot> order;
+
+    private int shown = 0;   // rows in the last emitted list
+    private List<DocumentSnapshot> merged = new ArrayList<>();   // rows behind it
+    private boolean stopped = false;
+
+    @Nullable
+    private RecyclerView recyclerView;
+    private final RecyclerView.OnScrollListener scrollListener = new RecyclerView.OnScrollListener() {
+        @Override
+        public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+            LinearLayoutManager lm = (LinearLayoutManager) rv.getLayoutManager();
+            if (lm == null) return;
+            int first = lm.findFirstVisibleItemPosition();
+            if (first == RecyclerView.NO_POSITION) return;
+
+            if (dy > 0 && lm.findLastVisibleItemPosition() >= shown - 1 - PREFETCH_DISTANCE) loadMore();
+            if (dy < 0 && first <= PREFETCH_DISTANCE) loadNewer();
+        }
+    };
+
+    /**
+     * @param base       filters other than the property, e.g. a collection + status
+     * @param field      field matched against {@code values}, e.g. propertyId
+     * @param orderField field every chunk (and the merge) is sorted by, e.g. createdAt
+     */
+    public MergedTicketFeed(Query base,
+                            String field,
+                            List<String> values,
+                            String orderField,
+                            Query.Direction direction,
+                            TicketPager.Mapper<T> mapper,
+                            TicketPager.Listener<T> listener) {
+        this.mapper = mapper;
+        this.listener = listener;
+        this.order = (a, b) -> compareKeys(a.get(orderField), b.get(orderField),
+                a.getId(), b.getId(), direction == Query.Direction.DESCENDING);
+
+        for (int i = 0; i < values.size(); i += CHUNK_SIZE) {
+            List<String> ids = new ArrayList<>(values.subList(i, Math.min(i + CHUNK_SIZE, values.size())));
+            Chunk chunk = new Chunk();
+            chunk.pager = new TicketPager<DocumentSnapshot>(
+                    base.whereIn(field, ids), orderField, direction,
+                    d -> d,
+                    new TicketPager.Listener<DocumentSnapshot>() {
+                        @Override
+                        public void onItems(List<DocumentSnapshot> items) {
+                            chunk.window = items;
+                            chunk.loaded = true;
+                            updateTop(chunk);
+                            emit();
+                        }
+
+                        @Override
+                        public void onError(Exception e) {
+                            Log.e(TAG, "Chunk listen failed " + ids, e);
+                            chunk.loaded = true;
+                            chunk.failed = true;
+                            emit();
+                            listener.onError(e);
+                        }
+                    })
+                    .setMaxWindow(Integer.MAX_VALUE);   // chunks slide together, see dropHead() / trimChunks()
+            chunks.add(chunk);
+        }
+    }
+
+    public void attachTo(RecyclerView rv) {
+        recyclerView = rv;
+        rv.addOnScrollListener(scrollListener);
+    }
+
+    public void start() {
+        if (chunks.isEmpty()) {
+            listener.onItems(new ArrayList<>());
+            return;
+        }
+        for (Chunk c : chunks) c.pager.start();
+    }
+
+    public void pause() {
+        for (Chunk c : chunks) c.pager.pause();
+    }
+
+    public void resume() {
+        for (Chunk c : chunks) c.pager.resume();
+    }
+
+    /** See {@link TicketPager#patch}; only the chunk holding the row changes. */
+    public void patch(DocumentSnapshot doc) {
+        for (Chunk c : chunks) c.pager.patch(doc);
+    }
+
+    public void drop(String id) {
+        for (Chunk c : chunks) c.pager.drop(id);
+    }
+
+    public void remap() {
+        emit();
+    }
+
+    public void stop() {
+        stopped = true;
+        for (Chunk c : chunks) c.pager.stop();
+        if (recyclerView != null) {
+            recyclerView.removeOnScrollListener(scrollListener);
+            recyclerView = null;
+        }
+    }
+
+    // ─────────────────────────────────────────────
+    //  Merge
+    // ─────────────────────────────────────────────
+
+    /**
+     * Same order Firestore returns for orderBy(field, direction): by the
+     * field value, then by document id in the same direction.
+     */
+    @SuppressWarnings("unchecked")
+    static int compareKeys(@Nullable Object va, @Nullable Object vb,
+                           String idA, String idB, boolean descending) {
+        int c;
+        if (va instanceof Comparable && vb != null && va.getClass() == vb.getClass()) {
+            c = ((Comparable<Object>) va).compareTo(vb);
+        } else if (va != null && vb == null) {
+            c = 1;
+        } else if (va == null && vb != null) {
+            c = -1;
+        } else {
+            c = 0;
+        }
+        if (c == 0) c = idA.compareTo(idB);
+        return descending ? -c : c;
+    }
+
+    /**
+     * Last row every lane is complete down to: the first-sorting edge among
+     * lanes that are still open. Null if nothing holds the merge back.
+     */
+    @Nullable
+    static <D> D bound(List<? extends Lane<D>> lanes, Comparator<? super D> order) {
+        D bound = null;
+        for (Lane<D> lane : lanes) {
+            if (!lane.open() || lane.window().isEmpty()) continue;
+            D edge = edge(lane, order);
+            if (bound == null || order.compare(edge, bound) < 0) bound = edge;
+        }
+        return bound;
+    }
+
+    /** The latest cut among the lanes: any row above it could be missing rows of that lane. */
+    @Nullable
+    static <D> Cut<D> top(List<? extends Lane<D>> lanes, Comparator<? super D> order) {
+        Cut<D> top = null;
+        for (Lane<D> lane : lanes) {
+            Cut<D> t = lane.top();
+            if (t == null) continue;
+            int c = top == null ? 1 : order.compare(t.row, top.row);
+            if (c > 0 || (c == 0 && !t.inclusive)) top = t;
+        }
+        return top;
+    }
+
+    static <D> boolean above(D row, @Nullable Cut<D> top, Comparator<? super D> order) {
+        if (top == null) return false;
+        int c = order.compare(row, top.row);
+        return c < 0 || (c == 0 && !top.inclusive);
+    }
+
+    /**
+     * Rows at the head of each lane that sort up to {@code cut}; the last row
+     * of a lane is always kept, it is the cursor for the lane's next pages.
+     */
+    static <D> int[] rowsThrough(List<? extends Lane<D>> lanes, Comparator<? super D> order, D cut) {
+        int[] n = new int[lanes.size()];
+        for (int i = 0; i < lanes.size(); i++) {
+            List<D> window = lanes.get(i).window();
+            int k = 0;
+            while (k < window.size() - 1 && order.compare(window.get(k), cut) <= 0) k++;
+            n[i] = k;
+        }
+        return n;
+    }
+
+    /** How far down a lane is known: its last row, or the cut it was trimmed at if later. */
+    static <D> D edge(Lane<D> lane, Comparator<? super D> order) {
+        List<D> window = lane.window();
+        D last = window.get(window.size() - 1);
+        D trimmedAt = lane.trimmedAt();
+        if (trimmedAt != null && order.compare(trimmedAt, last) > 0) return trimmedAt;
+        return last;
+    }
+
+    /**
+     * k-way merge of the lane windows into {@code out}: one cursor per lane,
+     * always take the first-sorting head. Rows above {@code top} are passed
+     * over, then it stops after {@code limit} rows or at the first row past
+     * {@code bound}.
+     *
+     * @param taken filled with the number of rows consumed from each lane,
+     *              passed-over ones included
+     */
+    static <D> void merge(List<? extends Lane<D>> lanes, Comparator<? super D> order,
+                          @Nullable Cut<D> top, @Nullable D bound, int limit,
+                          List<D> out, int[] taken) {
+        PriorityQueue<int[]> heads = new PriorityQueue<>(Math.max(1, lanes.size()),
+                (x, y) -> order.compare(lanes.get(x[0]).window().get(x[1]),
+                                        lanes.get(y[0]).window().get(y[1])));
+        for (int i = 0; i < lanes.size(); i++) {
+            if (!lanes.get(i).window().isEmpty()) heads.add(new int[]{i, 0});
+        }
+
+        while (!heads.isEmpty() && out.size() < limit) {
+            int[] head = heads.poll();
+            List<D> window = lanes.get(head[0]).window();
+            D d = window.get(head[1]);
+            if (bound != null && order.compare(d, bound) > 0) break;   // might still be missing rows above this
+
+            if (!above(d, top, order)) out.add(d);
+            taken[head[0]] = head[1] + 1;
+            if (head[1] + 1 < window.size()) heads.add(new int[]{head[0], head[1] + 1});
+        }
+    }
+
+    private void emit() {
+        if (stopped) return;
+        for (Chunk c : chunks) {
+            if (!c.loaded) return;   // a chunk we haven't heard from could hold the first row
+        }
+
+        List<DocumentSnapshot> rows = new ArrayList<>();
+        int[] taken = new int[chunks.size()];   // rows merged from each chunk
+        merge(chunks, order, top(chunks, order), bound(chunks, order), TicketPager.MAX_WINDOW, rows, taken);
+
+        List<T> items = new ArrayList<>(rows.size());
+        for (DocumentSnapshot d : rows) {
+            T item = mapper.map(d);
+            if (item != null) items.add(item);
+        }
+
+        // 🔹 window full: nothing below the last shown row is needed
+        if (rows.size() >= TicketPager.MAX_WINDOW) trimChunks(taken, rows.get(rows.size() - 1));
+
+        merged = rows;
+        shown = items.size();
+        listener.onItems(items);
+
+        // a short list with more to come (e.g. one busy property hides older
+        // rows of the others): keep filling until the first page is full
+        if (shown < TicketPager.PAGE_SIZE) loadMore();
+    }
+
+    /** Cut every chunk back to the rows it contributed to the merged list. */
+    private void trimChunks(int[] taken, DocumentSnapshot cutoff) {
+        for (int i = 0; i < chunks.size(); i++) {
+            Chunk c = chunks.get(i);
+            // at least one row, so the chunk still has a cursor for loadOlder()
+            int keep = Math.max(taken[i], 1);
+            if (keep >= c.window.size()) continue;
+            int kept = c.pager.keepFirst(keep);
+            if (kept < c.window.size()) {
+                c.window = new ArrayList<>(c.window.subList(0, kept));
+                c.trimmedAt = cutoff;
+            }
+        }
+    }
+
+    /**
+     * A chunk that got newer rows back ({@link TicketPager#loadNewer()}) is
+     * complete from its first row on; one whose live page re-attached is
+     * complete from the top.
+     */
+    private void updateTop(Chunk c) {
+        if (c.pager.isLive()) {
+            c.top = null;
+        } else if (c.top != null && !c.window.isEmpty() && above(c.window.get(0), c.top, order)) {
+            c.top = new Cut<>(c.window.get(0), true);
+        }
+    }
+
+    /** Next page for the chunk(s) that hold the merge back. */
+    private void loadMore() {
+        if (merged.size() >= TicketPager.MAX_WINDOW && !dropHead()) return;
+        DocumentSnapshot bound = bound(chunks, order);
+        if (bound == null) return;
+        for (Chunk c : chunks) {
+            if (!c.open() || c.window.isEmpty()) continue;
+            if (edge(c, order).getId().equals(bound.getId())) c.pager.loadOlder();
+        }
+    }
+
+    /**
+     * Window full and more below: drop its first page from every chunk (see
+     * {@link TicketPager#dropFirst}) so the merge can move on.
+     *
+     * @return false if there is nothing more to show
+     */
+    private boolean dropHead() {
+        if (bound(chunks, order) == null) return false;
+        DocumentSnapshot cut = merged.get(TicketPager.PAGE_SIZE - 1);
+
+        int[] drop = rowsThrough(chunks, order, cut);
+        for (int i = 0; i < chunks.size(); i++) {
+            if (drop[i] == 0) continue;
+            Chunk c = chunks.get(i);
+            c.pager.dropFirst(drop[i]);
+            c.window = new ArrayList<>(c.window.subList(drop[i], c.window.size()));
+            c.top = new Cut<>(cut, false);
+        }
+        emit();
+        return true;
+    }
+
+    /** The rows above the window again, from the chunk(s) cut furthest down. */
+    private void loadNewer() {
+        Cut<DocumentSnapshot> top = top(chunks, order);
+        if (top == null) return;
+        for (Chunk c : chunks) {
+            if (c.failed || c.top == null) continue;
+            if (order.compare(c.top.row, top.row) == 0) c.pager.loadNewer();
+        }
+    }
+}
@@ -1,14 +1,30 @@
 package com.example.lumiapp;
 
 import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.Exclude;
 
 public class Message {
+
+    // Local delivery state (never written to Firestore)
+    public static final int STATE_SENT    = 0;
+    public static final int STATE_PENDING = 1;
+    public static final int STATE_FAILED  = 2;
+
     public String id;
     public String text;
     public String senderId;
     public String receiverId;
     public Timestamp createdAt;
-    public boolean seen;
+    public boolean seen;        // set by the receiver when the message was on screen
+    public boolean delivered;   // set by the receiver when the message reached their device
+
+    @Exclude
+    public int state = STATE_SENT;
+
+    // Snapshot the message was read from: page cursor in ChatActivity (null while only queued)
+    @Exclude
+    public DocumentSnapshot snapshot;
 
     public Message() {
         // Firestore needs empty constructor
@@ -20,5 +36,6 @@ public class Message {
         this.receiverId = receiverId;
         this.createdAt = createdAt;
         this.seen = false;
+        this.delivered = false;
     }
 }
@@ -1,30 +1,43 @@
 package com.example.lumiapp;
 
+import android.graphics.Color;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.google.firebase.Timestamp;
 import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.DocumentChange;
 
 import java.util.ArrayList;
 import java.util.List;
 
 public class MessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
 
+    public interface OnRetryListener {
+        void onRetry(Message message);
+    }
+
     private static final int TYPE_SENT = 1;
     private static final int TYPE_RECEIVED = 2;
 
     private final List<Message> messages = new ArrayList<>();
     private final String currentUserId;
+    private final OnRetryListener retryListener;
+    @Nullable
+    private String highlightedId;   // search hit the chat was opened at
 
-    public MessageAdapter() {
+    public MessageAdapter(OnRetryListener retryListener) {
+        this.retryListener = retryListener;
         currentUserId = FirebaseAuth.getInstance().getCurrentUser() != null
                 ? FirebaseAuth.getInstance().getCurrentUser().getUid()
                 : "";
+        setHasStableIds(true);
     }
 
     public void setMessages(List<Message> newMessages) {
@@ -33,10 +46,174 @@ public class MessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
         notifyDataSetChanged();
     }
 
+    /**
+     * Replace the newest part of the window with the latest live page.
+     * Everything older than the first message of the page is kept as-is,
+     * so previously loaded history stays in place.
+     */
+    public void mergeLatest(List<Message> latest) {
+        if (latest.isEmpty()) {
+            setMessages(latest);
+            return;
+        }
+        Timestamp pageStart = latest.get(0).createdAt;
+
+        int keep = 0;
+        while (keep < messages.size()
+                && isBefore(messages.get(keep).createdAt, pageStart)) {
+            keep++;
+        }
+
+        messages.subList(keep, messages.size()).clear();
+        messages.addAll(latest);
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Apply one snapshot delta. Each change only touches its own row, so a
+     * new message costs one insert instead of a full rebind.
+     */
+    public void applyChange(DocumentChange.Type type, Message m) {
+        if (m == null || m.id == null) return;
+
+        switch (type) {
+            case ADDED:
+            case MODIFIED:
+                int existing = indexOfId(m.id);
+                if (existing >= 0) {
+                    messages.set(existing, m);
+                    notifyItemChanged(existing);
+                } else {
+                    int previousSent = isMine(m) ? lastSentIndex() : -1;
+                    int pos = insertionIndex(m.createdAt);
+                    messages.add(pos, m);
+                    notifyItemInserted(pos);
+                    // receipt line moves to the new message
+                    if (previousSent >= 0 && previousSent < pos) notifyItemChanged(previousSent);
+                }
+                break;
+            case REMOVED:
+                int pos = indexOfId(m.id);
+                if (pos >= 0) {
+                    messages.remove(pos);
+                    notifyItemRemoved(pos);
+                }
+                break;
+        }
+    }
+
+    @Nullable
+    public Message findById(String id) {
+        int pos = indexOfId(id);
+        return pos >= 0 ? messages.get(pos) : null;
+    }
+
+    public int indexOf(String id) {
+        return indexOfId(id);
+    }
+
+    /** Tint one message's row, e.g. the search result the chat was opened at. */
+    public void setHighlightedId(@Nullable String id) {
+        int old = highlightedId != null ? indexOfId(highlightedId) : -1;
+        highlightedId = id;
+        if (old >= 0) notifyItemChanged(old);
+        int now = id != null ? indexOfId(id) : -1;
+        if (now >= 0) notifyItemChanged(now);
+    }
+
+    @Nullable
+    public Message getItem(int position) {
+        return position >= 0 && position < messages.size() ? messages.get(position) : null;
+    }
+
+    /** Only the newest sent message shows its delivered/seen receipt. */
+    private int lastSentIndex() {
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            if (isMine(messages.get(i))) return i;
+        }
+        return -1;
+    }
+
+    private boolean isMine(Message m) {
+        return m.senderId != null && m.senderId.equals(currentUserId);
+    }
+
+    /** Search from the end: almost every change is about a recent message. */
+    private int indexOfId(String id) {
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            if (id.equals(messages.get(i).id)) return i;
+        }
+        return -1;
+    }
+
+    /** Position after the last message not newer than {@code createdAt}. */
+    private int insertionIndex(@Nullable Timestamp createdAt) {
+        int pos = messages.size();
+        if (createdAt == null) return pos;
+        while (pos > 0 && isBefore(createdAt, messages.get(pos - 1).createdAt)) {
+            pos--;
+        }
+        return pos;
+    }
+
+    /** Add an older page (ascending order) above the current window. */
+    public void prependOlder(List<Message> older) {
+        if (older.isEmpty()) return;
+        messages.addAll(0, older);
+        notifyItemRangeInserted(0, older.size());
+    }
+
+    /** Add a newer page (ascending order) below the current window. */
+    public void appendNewer(List<Message> newer) {
+        if (newer.isEmpty()) return;
+        int start = messages.size();
+        messages.addAll(newer);
+        notifyItemRangeInserted(start, newer.size());
+    }
+
+    /** Drop messages from the top until the window fits. Returns how many were dropped. */
+    public int trimOldest(int maxSize) {
+        int extra = messages.size() - maxSize;
+        if (extra <= 0) return 0;
+        messages.subList(0, extra).clear();
+        notifyItemRangeRemoved(0, extra);
+        return extra;
+    }
+
+    /** Drop messages from the bottom until the window fits. Returns how many were dropped. */
+    public int trimNewest(int maxSize) {
+        int extra = messages.size() - maxSize;
+        if (extra <= 0) return 0;
+        messages.subList(maxSize, messages.size()).clear();
+        notifyItemRangeRemoved(maxSize, extra);
+        return extra;
+    }
+
+    @Nullable
+    public Message getOldest() {
+        return messages.isEmpty() ? null : messages.get(0);
+    }
+
+    @Nullable
+    public Message getNewest() {
+        return messages.isEmpty() ? null : messages.get(messages.size() - 1);
+    }
+
+    private static boolean isBefore(@Nullable Timestamp a, @Nullable Timestamp b) {
+        if (a == null || b == null) return false;
+        return a.compareTo(b) < 0;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        Message m = messages.get(position);
+        return m.id != null ? m.id.hashCode() : RecyclerView.NO_ID;
+    }
+
     @Override
     public int getItemViewType(int position) {
         Message m = messages.get(position);
-        if (m.senderId != null && m.senderId.equals(currentUserId)) {
+        if (isMine(m)) {
             return TYPE_SENT;
         }
         return TYPE_RECEIVED;
@@ -64,8 +241,10 @@ public class MessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
             int position
     ) {
         Message m = messages.get(position);
+        holder.itemView.setBackgroundColor(
+                m.id != null && m.id.equals(highlightedId) ? 0x33FFC107 : Color.TRANSPARENT);
         if (holder instanceof SentVH) {
-            ((SentVH) holder).bind(m);
+            ((SentVH) holder).bind(m, retryListener, position == lastSentIndex());
         } else if (holder instanceof ReceivedVH) {
             ((ReceivedVH) holder).bind(m);
         }
@@ -77,15 +256,38 @@ public class MessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
     }
 
     static class SentVH extends RecyclerView.ViewHolder {
-        TextView tvText;
+        TextView tvText, tvStatus;
 
         SentVH(@NonNull View itemView) {
             super(itemView);
-            tvText = itemView.findViewById(R.id.tvMessageText);
+            tvText   = itemView.findViewById(R.id.tvMessageText);
+            tvStatus = itemView.findViewById(R.id.tvMessageStatus);
         }
 
-        void bind(Message m) {
+        void bind(Message m, OnRetryListener retryListener, boolean showReceipt) {
             tvText.setText(m.text);
+
+            if (m.state == Message.STATE_PENDING) {
+                tvStatus.setVisibility(View.VISIBLE);
+                tvStatus.setText("Sending…");
+                tvStatus.setTextColor(0xFF888888);
+                itemView.setOnClickListener(null);
+            } else if (m.state == Message.STATE_FAILED) {
+                tvStatus.setVisibility(View.VISIBLE);
+                tvStatus.setText("Not sent · tap to retry");
+                tvStatus.setTextColor(0xFFD32F2F);
+                itemView.setOnClickListener(v -> {
+                    if (retryListener != null) retryListener.onRetry(m);
+                });
+            } else if (showReceipt && (m.seen || m.delivered)) {
+                tvStatus.setVisibility(View.VISIBLE);
+                tvStatus.setText(m.seen ? "Seen" : "Delivered");
+                tvStatus.setTextColor(0xFF888888);
+                itemView.setOnClickListener(null);
+            } else {
+                tvStatus.setVisibility(View.GONE);
+                itemView.setOnClickListener(null);
+            }
         }
     }
 
@@ -0,0 +1,234 @@
+package com.example.lumiapp;
+
+import android.content.Intent;
+import android.graphics.Typeface;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+import android.text.TextUtils;
+import android.text.TextWatcher;
+import android.text.style.StyleSpan;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.EditText;
+import android.widget.ImageButton;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.text.DateFormat;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Searches chat history through the local {@link MessageSearchIndex}; no
+ * Firestore reads happen here.
+ *
+ * Started from the inbox it searches every conversation and opens the chat
+ * at the tapped message. Started from a chat (with EXTRA_CONVERSATION_ID) it
+ * only searches that thread and hands the anchor back as the activity result.
+ */
+public class MessageSearchActivity extends AppCompatActivity {
+
+    public static final String EXTRA_CONVERSATION_ID = "conversationId"; // optional scope
+
+    // result extras when scoped to one conversation
+    public static final String RESULT_MESSAGE_ID = "anchorMessageId";
+    public static final String RESULT_SECONDS    = "anchorSeconds";
+    public static final String RESULT_NANOS      = "anchorNanos";
+
+    private static final int MAX_RESULTS = 50;
+    private static final long TYPING_DELAY_MS = 150;
+
+    private EditText etQuery;
+    private TextView tvEmpty;
+    private ResultAdapter adapter;
+
+    @Nullable
+    private String scopeConversationId;
+    @Nullable
+    private MessageSearchIndex index;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable searchRunnable = this::runSearch;
+
+    @Override
+    protected void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_message_search);
+
+        index = MessageSearchIndex.get(this);
+        if (index == null) {
+            finish();
+            return;
+        }
+        scopeConversationId = getIntent().getStringExtra(EXTRA_CONVERSATION_ID);
+
+        ImageButton btnBack = findViewById(R.id.btnBack);
+        etQuery = findViewById(R.id.etQuery);
+        tvEmpty = findViewById(R.id.tvSearchEmpty);
+        RecyclerView rvResults = findViewById(R.id.rvResults);
+
+        btnBack.setOnClickListener(v -> finish());
+
+        adapter = new ResultAdapter();
+        rvResults.setLayoutManager(new LinearLayoutManager(this));
+        rvResults.setAdapter(adapter);
+
+        if (scopeConversationId != null) {
+            etQuery.setHint("Search in this chat");
+        }
+
+        etQuery.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) { }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) { }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                handler.removeCallbacks(searchRunnable);
+                handler.postDelayed(searchRunnable, TYPING_DELAY_MS);
+            }
+        });
+        etQuery.requestFocus();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        handler.removeCallbacks(searchRunnable);
+    }
+
+    private void runSearch() {
+        String query = etQuery.getText().toString().trim();
+        if (TextUtils.isEmpty(query)) {
+            adapter.submit(new ArrayList<>());
+            tvEmpty.setVisibility(View.GONE);
+            return;
+        }
+
+        index.search(query, scopeConversationId, MAX_RESULTS, (q, hits) -> {
+            if (isFinishing()) return;
+            // a newer query is already on its way
+            if (!q.equals(etQuery.getText().toString().trim())) return;
+
+            adapter.submit(hits);
+            tvEmpty.setVisibility(hits.isEmpty() ? View.VISIBLE : View.GONE);
+        });
+    }
+
+    private void openHit(MessageSearchIndex.Hit hit) {
+        if (scopeConversationId != null) {
+            Intent data = new Intent();
+            data.putExtra(RESULT_MESSAGE_ID, hit.messageId);
+            data.putExtra(RESULT_SECONDS, hit.createdAt.getSeconds());
+            data.putExtra(RESULT_NANOS, hit.createdAt.getNanoseconds());
+            setResult(RESULT_OK, data);
+            finish();
+            return;
+        }
+
+        UserProfile other = UserProfileRepository.get(this).peek(hit.otherUserId);
+        Intent i = new Intent(this, ChatActivity.class);
+        i.putExtra(ChatActivity.EXTRA_OTHER_USER_ID, hit.otherUserId);
+        if (other != null) {
+            i.putExtra(ChatActivity.EXTRA_OTHER_USER_NAME, other.name);
+            i.putExtra(ChatActivity.EXTRA_OTHER_PHOTO_URL, other.profileImageUrl);
+        }
+        i.putExtra(ChatActivity.EXTRA_ANCHOR_MESSAGE_ID, hit.messageId);
+        i.putExtra(ChatActivity.EXTRA_ANCHOR_SECONDS, hit.createdAt.getSeconds());
+        i.putExtra(ChatActivity.EXTRA_ANCHOR_NANOS, hit.createdAt.getNanoseconds());
+        startActivity(i);
+    }
+
+    /** Snippet with the matched words in bold. */
+    private static CharSequence highlight(@Nullable String snippet) {
+        SpannableStringBuilder sb = new SpannableStringBuilder();
+        if (snippet == null) return sb;
+
+        int boldStart = -1;
+        for (int i = 0; i < snippet.length(); i++) {
+            char ch = snippet.charAt(i);
+            if (ch == MessageSearchIndex.MATCH_START) {
+                boldStart = sb.length();
+            } else if (ch == MessageSearchIndex.MATCH_END) {
+                if (boldStart >= 0) {
+                    sb.setSpan(new StyleSpan(Typeface.BOLD), boldStart, sb.length(),
+                            Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+                }
+                boldStart = -1;
+            } else {
+                sb.append(ch);
+            }
+        }
+        return sb;
+    }
+
+    // ─────────────────────────────────────────────
+    //  Results list
+    // ─────────────────────────────────────────────
+    class ResultAdapter extends RecyclerView.Adapter<ResultAdapter.ResultVH> {
+
+        private final List<MessageSearchIndex.Hit> items = new ArrayList<>();
+        private final DateFormat dateFormat =
+                DateFormat.getDateInstance(DateFormat.MEDIUM);
+
+        void submit(List<MessageSearchIndex.Hit> hits) {
+            items.clear();
+            items.addAll(hits);
+            notifyDataSetChanged();
+        }
+
+        @NonNull
+        @Override
+        public ResultVH onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            View v = LayoutInflater.from(parent.getContext())
+                    .inflate(R.layout.item_search_result, parent, false);
+            return new ResultVH(v);
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull ResultVH holder, int position) {
+            holder.bind(items.get(position));
+        }
+
+        @Override
+        public int getItemCount() {
+            return items.size();
+        }
+
+        class ResultVH extends RecyclerView.ViewHolder {
+            TextView tvName, tvTime, tvSnippet;
+
+            ResultVH(@NonNull View itemView) {
+                super(itemView);
+                tvName    = itemView.findViewById(R.id.tvName);
+                tvTime    = itemView.findViewById(R.id.tvTime);
+                tvSnippet = itemView.findViewById(R.id.tvSnippet);
+            }
+
+            void bind(MessageSearchIndex.Hit hit) {
+                // cached profile only, search stays offline
+                UserProfile other = UserProfileRepository.get(itemView.getContext())
+                        .peek(hit.otherUserId);
+                tvName.setText(other != null && !TextUtils.isEmpty(other.name)
+                        ? other.name
+                        : "Conversation");
+                tvTime.setText(dateFormat.format(hit.createdAt.toDate()));
+                tvSnippet.setText(highlight(hit.snippet));
+
+                itemView.setOnClickListener(v -> openHit(hit));
+            }
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.example.lumiapp;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.TextUtils;
+
+import androidx.annotation.Nullable;
+
+import com.google.firebase.Timestamp;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * On-device full-text index of every chat message this device has seen.
+ *
+ * Messages are added as ChatActivity receives them (live page, older and
+ * newer pages, the user's own sends). Search runs entirely against the local
+ * SQLite FTS4 table, never against Firestore. One database per signed-in user.
+ *
+ * Results are ranked by term frequency / rarity (from matchinfo), newest
+ * first on ties.
+ */
+public class MessageSearchIndex extends SQLiteOpenHelper {
+
+    private static final int DB_VERSION = 1;
+    private static final int MAX_CANDIDATES = 500;    // rows scored per query
+
+    // markers around matched terms in Hit.snippet
+    public static final char MATCH_START = '\u0002';
+    public static final char MATCH_END   = '\u0003';
+
+    public static class Hit {
+        public String messageId;
+        public String conversationId;
+        public String otherUserId;
+        public String senderId;
+        public Timestamp createdAt;
+        public String snippet;
+        double score;
+    }
+
+    public interface Callback {
+        void onResults(String query, List<Hit> hits);
+    }
+
+    private static MessageSearchIndex instance;
+
+    /** Index for the signed-in user, or null when nobody is signed in. */
+    @Nullable
+    public static synchronized MessageSearchIndex get(Context context) {
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        if (user == null) return null;
+
+        if (instance == null || !instance.ownerUid.equals(user.getUid())) {
+            if (instance != null) instance.close();
+            instance = new MessageSearchIndex(context.getApplicationContext(), user.getUid());
+        }
+        return instance;
+    }
+
+    private final String ownerUid;
+    private final ExecutorService io = Executors.newSingleThreadExecutor();
+    private final Handler main = new Handler(Looper.getMainLooper());
+
+    private MessageSearchIndex(Context context, String ownerUid) {
+        super(context, "message_search_" + ownerUid + ".db", null, DB_VERSION);
+        this.ownerUid = ownerUid;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        // plain table holds the rows, the FTS table only the tokens (external content)
+        db.execSQL("CREATE TABLE messages ("
+                + "id INTEGER PRIMARY KEY, "
+                + "message_id TEXT NOT NULL UNIQUE, "
+                + "conversation_id TEXT NOT NULL, "
+                + "other_user_id TEXT, "
+                + "sender_id TEXT, "
+                + "created_seconds INTEGER NOT NULL, "
+                + "created_nanos INTEGER NOT NULL, "
+                + "text TEXT)");
+        db.execSQL("CREATE INDEX messages_conversation ON messages(conversation_id, created_seconds)");
+        db.execSQL("CREATE VIRTUAL TABLE messages_fts USING fts4("
+                + "content=\"messages\", text, tokenize=unicode61, prefix=\"2,3\")");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // first version, nothing to migrate yet
+    }
+
+    // ─────────────────────────────────────────────
+    //  Feeding
+    // ─────────────────────────────────────────────
+
+    /** Add or refresh messages of one conversation. Unchanged rows are skipped. */
+    public void index(String conversationId, String otherUserId, List<Message> messages) {
+        if (messages.isEmpty()) return;
+        List<Message> copy = new ArrayList<>(messages);
+
+        io.execute(() -> {
+            SQLiteDatabase db = getWritableDatabase();
+            db.beginTransaction();
+            try {
+                for (Message m : copy) {
+                    if (m.id == null || m.createdAt == null) continue;
+                    upsert(db, conversationId, otherUserId, m);
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        });
+    }
+
+    private void upsert(SQLiteDatabase db, String conversationId, String otherUserId, Message m) {
+        String text = m.text != null ? m.text : "";
+
+        long rowId = -1;
+        String oldText = null;
+        try (Cursor c = db.rawQuery("SELECT id, text FROM messages WHERE message_id = ?",
+                new String[]{m.id})) {
+            if (c.moveToFirst()) {
+                rowId = c.getLong(0);
+                oldText = c.getString(1);
+            }
+        }
+
+        if (rowId >= 0) {
+            if (text.equals(oldText)) return;
+            // external content: the old tokens have to be removed by hand
+            db.execSQL("INSERT INTO messages_fts(messages_fts, docid, text) VALUES('delete', ?, ?)",
+                    new Object[]{rowId, oldText != null ? oldText : ""});
+            ContentValues cv = new ContentValues();
+            cv.put("text", text);
+            db.update("messages", cv, "id = ?", new String[]{String.valueOf(rowId)});
+        } else {
+            ContentValues cv = new ContentValues();
+            cv.put("message_id", m.id);
+            cv.put("conversation_id", conversationId);
+            cv.put("other_user_id", otherUserId);
+            cv.put("sender_id", m.senderId);
+            cv.put("created_seconds", m.createdAt.getSeconds());
+            cv.put("created_nanos", m.createdAt.getNanoseconds());
+            cv.put("text", text);
+            rowId = db.insert("messages", null, cv);
+            if (rowId < 0) return;
+        }
+
+        db.execSQL("INSERT INTO messages_fts(docid, text) VALUES(?, ?)", new Object[]{rowId, text});
+    }
+
+    // ─────────────────────────────────────────────
+    //  Search
+    // ─────────────────────────────────────────────
+
+    /**
+     * Ranked matches for {@code query}; every word is matched as a prefix.
+     * Pass a conversationId to search within one thread only.
+     */
+    public void search(String query, @Nullable String conversationId, int limit, Callback callback) {
+        String match = toMatchExpression(query);
+        if (match == null) {
+            callback.onResults(query, new ArrayList<>());
+            return;
+        }
+
+        io.execute(() -> {
+            List<Hit> hits = runQuery(match, conversationId);
+            Collections.sort(hits, (a, b) -> {
+                int c = Double.compare(b.score, a.score);
+                return c != 0 ? c : b.createdAt.compareTo(a.createdAt);
+            });
+            List<Hit> top = hits.size() > limit ? new ArrayList<>(hits.subList(0, limit)) : hits;
+            main.post(() -> callback.onResults(query, top));
+        });
+    }
+
+    private List<Hit> runQuery(String match, @Nullable String conversationId) {
+        String sql = "SELECT m.message_id, m.conversation_id, m.other_user_id, m.sender_id, "
+                + "m.created_seconds, m.created_nanos, "
+                + "snippet(messages_fts, '" + MATCH_START + "', '" + MATCH_END + "', '…', -1, 12), "
+                + "matchinfo(messages_fts, 'pcnx') "
+                + "FROM messages_fts JOIN messages m ON m.id = messages_fts.docid "
+                + "WHERE messages_fts MATCH ?"
+                + (conversationId != null ? " AND m.conversation_id = ?" : "")
+                + " ORDER BY m.created_seconds DESC LIMIT " + MAX_CANDIDATES;
+        String[] args = conversationId != null
+                ? new String[]{match, conversationId}
+                : new String[]{match};
+
+        List<Hit> hits = new ArrayList<>();
+        try (Cursor c = getReadableDatabase().rawQuery(sql, args)) {
+            while (c.moveToNext()) {
+                Hit h = new Hit();
+                h.messageId      = c.getString(0);
+                h.conversationId = c.getString(1);
+                h.otherUserId    = c.getString(2);
+                h.senderId       = c.getString(3);
+                h.createdAt      = new Timestamp(c.getLong(4), c.getInt(5));
+                h.snippet        = c.getString(6);
+                h.score          = score(c.getBlob(7));
+                hits.add(h);
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * tf-idf style score from matchinfo('pcnx'): for every phrase, hits in
+     * this row (saturated) weighted by how rare the phrase is overall.
+     */
+    private static double score(byte[] blob) {
+        if (blob == null) return 0;
+        ByteBuffer buf = ByteBuffer.wrap(blob).order(ByteOrder.nativeOrder());
+        int phrases = buf.getInt();
+        int columns = buf.getInt();
+        int rows    = buf.getInt();
+
+        double score = 0;
+        for (int p = 0; p < phrases; p++) {
+            for (int col = 0; col < columns; col++) {
+                int hitsHere  = buf.getInt();
+                buf.getInt();                       // hits in all rows, unused
+                int rowsWithHit = buf.getInt();
+                if (hitsHere == 0 || rowsWithHit == 0) continue;
+
+                double tf  = hitsHere / (hitsHere + 1.2);
+                double idf = Math.log(1 + (double) rows / rowsWithHit);
+                score += tf * idf;
+            }
+        }
+        return score;
+    }
+
+    /** "Plumber, Tue?" → "plumber* tue*", or null if nothing searchable is left. */
+    @Nullable
+    static String toMatchExpression(String query) {
+        if (TextUtils.isEmpty(query)) return null;
+
+        StringBuilder sb = new StringBuilder();
+        for (String word : query.toLowerCase(Locale.ROOT).split("\\s+")) {
+            // drop FTS operators and punctuation; keep letters and digits in any script
+            String clean = word.replaceAll("[^\\p{L}\\p{N}]", "");
+            if (clean.isEmpty()) continue;
+            if (sb.length() > 0) sb.append(' ');
+            sb.append(clean).append('*');
+        }
+        return sb.length() > 0 ? sb.toString() : null;
+    }
+}
@@ -4,6 +4,7 @@ import android.content.Intent;
 import android.net.Uri;
 import android.os.Bundle;
 import android.text.TextUtils;
+import android.util.Log;
 import android.widget.ArrayAdapter;
 import android.widget.FrameLayout;
 import android.widget.ImageView;
@@ -25,14 +26,14 @@ import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.SetOptions;
-import com.google.firebase.storage.FirebaseStorage;
-import com.google.firebase.storage.StorageReference;
 
 import java.util.HashMap;
 import java.util.Map;
 
 public class PMAccSetup extends AppCompatActivity {
 
+    private static final String TAG = "PMAccSetup";
+
     private TextInputLayout tilName, tilAddress, tilType, tilRenter, tilParking;
     private TextInputEditText etName, etAddress, etRenter, etParking;
     private MaterialAutoCompleteTextView etType;
@@ -164,41 +165,25 @@ public class PMAccSetup extends AppCompatActivity {
         DocumentReference propRef = db.collection("properties").document();
         String propertyId = propRef.getId();
 
-        if (selectedImageUri != null) {
-            uploadImageAndSaveProperty(propertyId, propRef, uid, property);
-        } else {
-            // No image selected, just save property doc
+        if (selectedImageUri == null) {
             savePropertyDoc(propRef, uid, property);
+            return;
         }
-    }
-
-    private void uploadImageAndSaveProperty(String propertyId,
-                                            DocumentReference propRef,
-                                            String uid,
-                                            Map<String, Object> property) {
 
-        StorageReference storageRef = FirebaseStorage.getInstance()
-                .getReference()
-                .child("propertyImages")
-                .child(propertyId + ".jpg");
-
-        storageRef.putFile(selectedImageUri)
-                .continueWithTask(task -> {
-                    if (!task.isSuccessful()) {
-                        throw task.getException();
-                    }
-                    return storageRef.getDownloadUrl();
-                })
-                .addOnSuccessListener(uri -> {
-                    property.put("imageUrl", uri.toString());
+        // 🔹 photo uploads in the background; imageUrl is patched in when it's done.
+        //    It's copied first (off the main thread), so the queued work never
+        //    depends on the picker Uri
+        ImagePreparer.copyForUpload(this, selectedImageUri)
+                .addOnSuccessListener(copy -> {
+                    property.put("imagePending", true);
                     savePropertyDoc(propRef, uid, property);
+                    ImageUploadWorker.enqueue(this, copy, ImagePreparer.MAX_EDGE_PHOTO,
+                            "propertyImages/" + propertyId + ".jpg", propRef);
                 })
                 .addOnFailureListener(e -> {
+                    Log.e(TAG, "Couldn't read picked image", e);
+                    Toast.makeText(this, "Couldn't read the photo", Toast.LENGTH_LONG).show();
                     btnCreateProperty.setEnabled(true);
-                    Toast.makeText(this,
-                            "Image upload or URL failed: " + e.getMessage(),
-                            Toast.LENGTH_LONG
-                    ).show();
                 });
     }
 
@@ -14,7 +14,10 @@ import androidx.fragment.app.Fragment;
 
 public class PMDashboardContainer extends AppCompatActivity {
 
+    private static final int MESSAGE_TAB = 2;
+
     private LinearLayout[] navItems;
+    private UnreadBadge unreadBadge;
     private int[] icons = {
             R.drawable.ic_home,
             R.drawable.ic_property,
@@ -49,6 +52,14 @@ public class PMDashboardContainer extends AppCompatActivity {
         // Default
         replaceFragment(new PMDashboardFragment());
         setActiveItem(0);
+        unreadBadge = new UnreadBadge(navItems[MESSAGE_TAB].findViewById(R.id.navBadge));
+        unreadBadge.start();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        unreadBadge.stop();
     }
 
     private void setActiveItem(int index) {
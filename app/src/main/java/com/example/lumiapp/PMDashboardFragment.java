@@ -2,6 +2,7 @@ package com.example.lumiapp;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -14,7 +15,6 @@ import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.bumptech.glide.Glide;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.firestore.DocumentSnapshot;
@@ -23,13 +23,16 @@ import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.ListenerRegistration;
 import com.google.firebase.firestore.Query;
 
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 public class PMDashboardFragment extends Fragment {
 
+    private static final String TAG = "PMDashboard";
+    private static final int RECENT_PAGE_SIZE = 20;
+
     private ImageView headerImage;
     private TextView propertyNameText, addressText;
 
@@ -37,6 +40,14 @@ public class PMDashboardFragment extends Fragment {
     private FirebaseFirestore db;
     private ListenerRegistration userReg;
 
+    private TextView complaintCountText, fixCountText;
+    private String countPropertyId;   // property the counters show
+
+    private RecyclerView rvRecent;
+    private PMDashboardRecentItems_Adapter recentAdapter;
+    private TicketPager<PMDashboardRecentItems> recentPager;
+    private String recentPropertyId;  // property the activity feed shows
+
     public PMDashboardFragment() {
         // Required empty public constructor
     }
@@ -52,49 +63,18 @@ public class PMDashboardFragment extends Fragment {
         headerImage      = view.findViewById(R.id.headerImage);
         propertyNameText = view.findViewById(R.id.propertyNameText);
         addressText      = view.findViewById(R.id.addressText);
+        complaintCountText = view.findViewById(R.id.complaintCountText);
+        fixCountText       = view.findViewById(R.id.fixCountText);
 
         auth = FirebaseAuth.getInstance();
         db   = FirebaseFirestore.getInstance();
 
-        // Setup RecyclerView (demo data for now)
-        RecyclerView rv = view.findViewById(R.id.rvRecent);
-        rv.setLayoutManager(new LinearLayoutManager(requireContext()));
-
-        List<PMDashboardRecentItems> data = Arrays.asList(
-                new PMDashboardRecentItems(
-                        "Ahsan Habib",
-                        "520 Battle Street,\nKamloops, BC, V2C2M2",
-                        "900", getString(R.string.rent_paid)
-                ),
-                new PMDashboardRecentItems(
-                        "Ahsan Habib",
-                        "520 Battle Street,\nKamloops, BC, V2C2M2",
-                        "900", getString(R.string.rent_paid)
-                ),
-                new PMDashboardRecentItems(
-                        "Kareena Zaman",
-                        "531 Garibaldi Dr,\nKamloops, BC, V2C1E2",
-                        null, getString(R.string.complain_generated)
-                ),
-                new PMDashboardRecentItems(
-                        "Kareena Zaman",
-                        "531 Garibaldi Dr,\nKamloops, BC, V2C1E2",
-                        null, getString(R.string.complain_generated)
-                ),
-                new PMDashboardRecentItems(
-                        "Kareena Zaman",
-                        "531 Garibaldi Dr,\nKamloops, BC, V2C1E2",
-                        null, getString(R.string.maintenance_requested)
-                )
-        );
-
-        PMDashboardRecentItems_Adapter adapter = new PMDashboardRecentItems_Adapter(
-                data,
-                item -> {
-                    // later you can hook this to open complaint/fix detail if needed
-                }
-        );
-        rv.setAdapter(adapter);
+        // Recent activity for the active property (see ActivityLog)
+        rvRecent = view.findViewById(R.id.rvRecent);
+        rvRecent.setLayoutManager(new LinearLayoutManager(requireContext()));
+
+        recentAdapter = new PMDashboardRecentItems_Adapter(new ArrayList<>(), this::openActivityItem);
+        rvRecent.setAdapter(recentAdapter);
 
         // Buttons
         ImageView complaintsBtn = view.findViewById(R.id.complaint_page_btn);
@@ -140,12 +120,18 @@ public class PMDashboardFragment extends Fragment {
                 .addSnapshotListener((snapshot, e) -> {
                     if (snapshot == null || !snapshot.exists()) return;
 
-                    String name     = snapshot.getString("activePropertyName");
-                    String address  = snapshot.getString("activePropertyAddress");
-                    String imageUrl = snapshot.getString("activePropertyImageUrl");
+                    String name       = snapshot.getString("activePropertyName");
+                    String address    = snapshot.getString("activePropertyAddress");
+                    String propertyId = snapshot.getString("activePropertyId");
 
                     if (name != null && !name.isEmpty()) {
-                        applyPropertyToHeader(name, address, imageUrl);
+                        applyPropertyToHeader(propertyId, name, address);
+                        if (propertyId != null && !propertyId.equals(countPropertyId)) {
+                            loadCounts(propertyId);
+                        }
+                        if (propertyId != null && !propertyId.equals(recentPropertyId)) {
+                            listenRecentActivity(propertyId);
+                        }
                     } else {
                         // No active property set yet → pick first property for manager
                         loadFirstPropertyForUser(uid);
@@ -155,24 +141,128 @@ public class PMDashboardFragment extends Fragment {
 
     private void loadFirstPropertyForUser(String uid) {
         // For managers: use properties where ownerUid == uid
-        db.collection("properties")
+        // the pick is saved as activePropertyId, so only the first answer counts
+        boolean[] picked = {false};
+        CachedReads.get(db.collection("properties")
                 .whereEqualTo("ownerUid", uid)
                 .orderBy("name", Query.Direction.ASCENDING)
-                .limit(1)
-                .get()
-                .addOnSuccessListener(qs -> {
-                    if (!qs.isEmpty()) {
-                        DocumentSnapshot doc = qs.getDocuments().get(0);
-                        String id       = doc.getId();
-                        String name     = doc.getString("name");
-                        String address  = doc.getString("address");
-                        String type     = doc.getString("type");
-                        String imageUrl = doc.getString("imageUrl");
-
-                        applyPropertyToHeader(name, address, imageUrl);
-                        saveActivePropertyToUser(uid, id, name, address, type, imageUrl);
+                .limit(1), (qs, fromCache) -> {
+            if (picked[0] || !isAdded()) return;
+            picked[0] = true;
+            if (!qs.isEmpty()) {
+                DocumentSnapshot doc = qs.getDocuments().get(0);
+                String id       = doc.getId();
+                String name     = doc.getString("name");
+                String address  = doc.getString("address");
+                String type     = doc.getString("type");
+                String imageUrl = doc.getString("imageUrl");
+
+                applyPropertyToHeader(id, name, address);
+                loadCounts(id);
+                listenRecentActivity(id);
+                saveActivePropertyToUser(uid, id, name, address, type, imageUrl);
+            }
+        }, null);
+    }
+
+    @Override
+    public void onResume() {
+        super.onResume();
+        // cheap: answered from cache, re-counted only once the TTL ran out
+        if (countPropertyId != null) loadCounts(countPropertyId);
+    }
+
+    /** Open / pending counters under the shortcuts, without reading any ticket. */
+    private void loadCounts(String propertyId) {
+        if (!isAdded()) return;
+        countPropertyId = propertyId;
+
+        TicketCounter counter = TicketCounter.get(requireContext());
+        counter.load(TicketCounter.COMPLAINTS, "propertyId", propertyId, counts -> {
+            if (isAdded() && propertyId.equals(countPropertyId)) TicketCounter.bind(complaintCountText, counts);
+        });
+        counter.load(TicketCounter.FIX_REQUESTS, "propertyId", propertyId, counts -> {
+            if (isAdded() && propertyId.equals(countPropertyId)) TicketCounter.bind(fixCountText, counts);
+        });
+    }
+
+    /**
+     * Newest activity/{id} entries for the property: a live first page of
+     * {@link #RECENT_PAGE_SIZE}, older pages only when the list is scrolled,
+     * so opening the dashboard costs the same however long the history is.
+     */
+    private void listenRecentActivity(String propertyId) {
+        if (!isAdded() || rvRecent == null) return;
+        stopRecentActivity();
+        recentPropertyId = propertyId;
+
+        recentPager = new TicketPager<PMDashboardRecentItems>(
+                db.collection(ActivityLog.COLLECTION).whereEqualTo("propertyId", propertyId),
+                "createdAt", Query.Direction.DESCENDING,
+                this::toRecentItem,
+                new TicketPager.Listener<PMDashboardRecentItems>() {
+                    @Override
+                    public void onItems(List<PMDashboardRecentItems> items) {
+                        if (isAdded()) recentAdapter.setItems(items);
                     }
-                });
+
+                    @Override
+                    public void onError(Exception e) {
+                        Log.e(TAG, "Activity feed listen failed", e);
+                    }
+                })
+                .setPageSize(RECENT_PAGE_SIZE);
+        recentPager.attachTo(rvRecent);
+        recentPager.start();
+    }
+
+    private void stopRecentActivity() {
+        if (recentPager != null) {
+            recentPager.stop();
+            recentPager = null;
+        }
+        recentPropertyId = null;
+    }
+
+    @Nullable
+    private PMDashboardRecentItems toRecentItem(DocumentSnapshot d) {
+        if (!isAdded()) return null;
+        String type = d.getString("type");
+        String status = d.getString("status");
+
+        String label;
+        if (ActivityLog.TYPE_COMPLAINT.equals(type)) {
+            label = getString(R.string.complain_generated);
+        } else if (ActivityLog.TYPE_FIX_REQUEST.equals(type)) {
+            label = getString(R.string.maintenance_requested);
+        } else if (ActivityLog.TYPE_MESSAGE.equals(type)) {
+            label = getString(R.string.activity_message);
+        } else {
+            label = getString(R.string.activity_status_changed, status != null ? status : "—");
+        }
+
+        String name = d.getString("actorName");
+        PMDashboardRecentItems item = new PMDashboardRecentItems(
+                name != null ? name : "—", d.getString("subtitle"), null, label);
+        item.id    = d.getId();
+        item.type  = type;
+        item.refId = d.getString("refId");
+        return item;
+    }
+
+    private void openActivityItem(PMDashboardRecentItems item) {
+        if (item.type == null || item.refId == null) return;
+
+        Intent i = null;
+        if (item.type.startsWith(ActivityLog.TYPE_COMPLAINT)) {
+            i = new Intent(requireContext(), ComplaintDetailActivity.class);
+            i.putExtra(ComplaintDetailActivity.EXTRA_COMPLAINT_ID, item.refId);
+        } else if (item.type.startsWith(ActivityLog.TYPE_FIX_REQUEST)) {
+            i = new Intent(requireContext(), FixRequestDetailActivity.class);
+            i.putExtra(FixRequestDetailActivity.EXTRA_FIX_ID, item.refId);
+        }
+        // message rows: the Messages tab already lists the conversation
+        if (i != null) startActivity(i);
     }
 
     private void saveActivePropertyToUser(String uid,
@@ -192,34 +282,15 @@ public class PMDashboardFragment extends Fragment {
                 .set(updates, com.google.firebase.firestore.SetOptions.merge());
     }
 
-    private void applyPropertyToHeader(String name, String address, String imageUrl) {
-        if (propertyNameText != null) {
-            propertyNameText.setText(
-                    name != null && !name.isEmpty()
-                            ? name
-                            : getString(R.string.app_name)
-            );
-        }
-
-        if (addressText != null) {
-            addressText.setText(
-                    address != null && !address.isEmpty()
-                            ? address
-                            : getString(R.string.addr_line)
-            );
-        }
-
-        if (headerImage != null) {
-            if (imageUrl != null && !imageUrl.isEmpty()) {
-                Glide.with(this)
-                        .load(imageUrl)
-                        .centerCrop()
-                        .placeholder(R.drawable.img_dashboard_bg)
-                        .into(headerImage);
-            } else {
-                headerImage.setImageResource(R.drawable.img_dashboard_bg);
-            }
-        }
+    /**
+     * Photo, name and address from the cached property summary (PropertyHeader);
+     * {@code name} / {@code address} (the user doc's copy) show until it's in.
+     */
+    private void applyPropertyToHeader(@Nullable String propertyId, String name, String address) {
+        if (headerImage == null) return;
+        PropertyHeader.get(requireContext()).bind(headerImage, propertyNameText, addressText, propertyId,
+                name != null && !name.isEmpty() ? name : getString(R.string.app_name),
+                address != null && !address.isEmpty() ? address : getString(R.string.addr_line));
     }
 
     @Override
@@ -229,5 +300,7 @@ public class PMDashboardFragment extends Fragment {
             userReg.remove();
             userReg = null;
         }
+        stopRecentActivity();
+        rvRecent = null;
     }
 }
@@ -1,15 +1,41 @@
 package com.example.lumiapp;
 
+import java.util.Objects;
+
 public class PMDashboardRecentItems {
     public final String name;
     public final String address;
     public final String amount; // null or "" if not a payment row
     public final String status;
 
+    // activity/{id} the row came from, and what it points at (see ActivityLog)
+    public String id;
+    public String type;
+    public String refId;
+
     public PMDashboardRecentItems(String name, String address, String amount, String status) {
         this.name = name;
         this.address = address;
         this.amount = amount;
         this.status = status;
     }
-}
\ No newline at end of file
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PMDashboardRecentItems)) return false;
+        PMDashboardRecentItems r = (PMDashboardRecentItems) o;
+        return Objects.equals(id, r.id)
+                && Objects.equals(type, r.type)
+                && Objects.equals(refId, r.refId)
+                && Objects.equals(name, r.name)
+                && Objects.equals(address, r.address)
+                && Objects.equals(amount, r.amount)
+                && Objects.equals(status, r.status);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, name, status);
+    }
+}
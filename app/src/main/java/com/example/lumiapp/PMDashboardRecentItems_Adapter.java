@@ -5,29 +5,61 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * RecyclerView Adapter for the "Recent" section on the PM dashboard.
  * Expects a row layout named item_recent.xml with TextViews: tvName, tvAddress, tvAmount, tvStatus.
  */
 public class PMDashboardRecentItems_Adapter
-        extends RecyclerView.Adapter<PMDashboardRecentItems_Adapter.VH> {
+        extends ListAdapter<PMDashboardRecentItems, PMDashboardRecentItems_Adapter.VH> {
 
     // Optional click listener for rows.
     public interface OnItemClickListener {
         void onItemClick(PMDashboardRecentItems item);
     }
 
-    private final List<PMDashboardRecentItems> items;
+    // Same activity entry → same row; equals() decides whether it needs a rebind
+    private static final DiffUtil.ItemCallback<PMDashboardRecentItems> DIFF =
+            new DiffUtil.ItemCallback<PMDashboardRecentItems>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull PMDashboardRecentItems a,
+                                               @NonNull PMDashboardRecentItems b) {
+                    return Objects.equals(a.id, b.id);
+                }
+
+                @Override
+                public boolean areContentsTheSame(@NonNull PMDashboardRecentItems a,
+                                                  @NonNull PMDashboardRecentItems b) {
+                    return a.equals(b);
+                }
+            };
+
     private final OnItemClickListener listener;
 
     public PMDashboardRecentItems_Adapter(List<PMDashboardRecentItems> items,
                                           OnItemClickListener listener) {
-        this.items = items;
+        super(DIFF);
         this.listener = listener;
+        setHasStableIds(true);
+        setItems(items);
+    }
+
+    /** Diffed on a background thread; only rows that changed are rebound. */
+    public void setItems(@NonNull List<PMDashboardRecentItems> list) {
+        submitList(new ArrayList<>(list));
+    }
+
+    @Override
+    public long getItemId(int position) {
+        String id = getItem(position).id;
+        return id != null ? id.hashCode() : RecyclerView.NO_ID;
     }
 
     /** Simple ViewHolder caches view references for performance. */
@@ -55,7 +87,7 @@ public class PMDashboardRecentItems_Adapter
 
     @Override
     public void onBindViewHolder(@NonNull VH h, int position) {
-        PMDashboardRecentItems it = items.get(position);
+        PMDashboardRecentItems it = getItem(position);
 
         // Bind basic fields
         h.tvName.setText(it.name);
@@ -75,9 +107,4 @@ public class PMDashboardRecentItems_Adapter
             if (listener != null) listener.onItemClick(it);
         });
     }
-
-    @Override
-    public int getItemCount() {
-        return (items == null) ? 0 : items.size();
-    }
 }
@@ -1,6 +1,7 @@
 package com.example.lumiapp;
 
 import android.content.Intent;
+import android.graphics.drawable.Drawable;
 import android.os.Bundle;
 import android.text.TextUtils;
 import android.view.LayoutInflater;
@@ -13,15 +14,20 @@ import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.integration.recyclerview.RecyclerViewPreloader;
+import com.bumptech.glide.util.ViewPreloadSizeProvider;
 import com.google.android.material.button.MaterialButton;
 import com.google.firebase.Timestamp;
 import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FieldPath;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.ListenerRegistration;
 import com.google.firebase.firestore.Query;
@@ -29,11 +35,11 @@ import com.google.firebase.firestore.QueryDocumentSnapshot;
 
 import java.text.DateFormat;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 public class PMMessageFragment extends Fragment {
@@ -78,6 +84,12 @@ public class PMMessageFragment extends Fragment {
         rvConversations.setLayoutManager(new LinearLayoutManager(requireContext()));
         adapter = new ConversationAdapter();
         rvConversations.setAdapter(adapter);
+        rvConversations.addOnScrollListener(new RecyclerViewPreloader<>(
+                Glide.with(this), adapter, adapter.preloadSizes, LumiGlideModule.PRELOAD_ROWS));
+
+        // Local full-text search across all chats
+        view.findViewById(R.id.btnSearchMessages).setOnClickListener(v ->
+                startActivity(new Intent(requireContext(), MessageSearchActivity.class)));
 
         btnOpenContacts.setOnClickListener(v -> {
             Intent i = new Intent(requireContext(), ContactList.class);
@@ -147,13 +159,21 @@ public class PMMessageFragment extends Fragment {
                         Timestamp lastAt    = d.getTimestamp("lastMessageAt");
 
                         ConversationTile tile = new ConversationTile();
-                        tile.conversationId   = convoId;
-                        tile.otherUserId      = otherId;
-                        tile.lastMessageText  = lastText;
-                        tile.lastMessageAt    = lastAt;
+                        tile.conversationId    = convoId;
+                        tile.otherUserId       = otherId;
+                        tile.otherUserName     = ParticipantInfo.name(d, otherId);
+                        tile.otherUserPhotoUrl = ParticipantInfo.photoUrl(d, otherId);
+                        tile.lastMessageText   = lastText;
+                        tile.lastMessageAt     = lastAt;
+
+                        Long unread = d.getLong("unreadCounts." + currentUserId);
+                        tile.unreadCount = unread != null ? unread : 0;
 
                         tiles.add(tile);
-                        otherUserIds.add(otherId);
+                        // participantInfo covers most rows; only older docs need a profile join
+                        if (TextUtils.isEmpty(tile.otherUserName)) {
+                            otherUserIds.add(otherId);
+                        }
                     }
 
                     if (tiles.isEmpty()) {
@@ -175,32 +195,21 @@ public class PMMessageFragment extends Fragment {
             return;
         }
 
-        // NOTE: whereIn max 10 ids → in real app, batch if needed. For now we assume <= 10.
-        db.collection("users")
-                .whereIn(FieldPath.documentId(), new ArrayList<>(otherUserIds))
-                .get()
-                .addOnSuccessListener(qs -> {
-                    Map<String, DocumentSnapshot> map = new HashMap<>();
-                    for (DocumentSnapshot doc : qs) {
-                        map.put(doc.getId(), doc);
-                    }
+        // Shared cache: only users we haven't seen before hit Firestore, in whereIn batches
+        UserProfileRepository.get(requireContext()).getAll(otherUserIds, profiles -> {
+            if (!isAdded()) return;
 
-                    for (ConversationTile tile : tiles) {
-                        DocumentSnapshot userDoc = map.get(tile.otherUserId);
-                        if (userDoc != null && userDoc.exists()) {
-                            tile.otherUserName     = userDoc.getString("name");
-                            tile.otherUserPhotoUrl = userDoc.getString("profileImageUrl");
-                        }
-                    }
+            for (ConversationTile tile : tiles) {
+                UserProfile profile = profiles.get(tile.otherUserId);
+                if (profile != null && TextUtils.isEmpty(tile.otherUserName)) {
+                    tile.otherUserName     = profile.name;
+                    tile.otherUserPhotoUrl = profile.profileImageUrl;
+                }
+            }
 
-                    adapter.submitList(tiles);
-                    tvEmptyState.setVisibility(tiles.isEmpty() ? View.VISIBLE : View.GONE);
-                })
-                .addOnFailureListener(e -> {
-                    // Even if this fails, show tiles with unknown names
-                    adapter.submitList(tiles);
-                    tvEmptyState.setVisibility(tiles.isEmpty() ? View.VISIBLE : View.GONE);
-                });
+            adapter.submitList(tiles);
+            tvEmptyState.setVisibility(tiles.isEmpty() ? View.VISIBLE : View.GONE);
+        });
     }
 
     // ─────────────────────────────────────────────
@@ -213,21 +222,60 @@ public class PMMessageFragment extends Fragment {
         String otherUserPhotoUrl;
         String lastMessageText;
         Timestamp lastMessageAt;
+        long unreadCount;
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ConversationTile)) return false;
+            ConversationTile t = (ConversationTile) o;
+            return unreadCount == t.unreadCount
+                    && Objects.equals(conversationId, t.conversationId)
+                    && Objects.equals(otherUserId, t.otherUserId)
+                    && Objects.equals(otherUserName, t.otherUserName)
+                    && Objects.equals(otherUserPhotoUrl, t.otherUserPhotoUrl)
+                    && Objects.equals(lastMessageText, t.lastMessageText)
+                    && Objects.equals(lastMessageAt, t.lastMessageAt);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(conversationId, lastMessageText, lastMessageAt, unreadCount);
+        }
     }
 
+    private static final DiffUtil.ItemCallback<ConversationTile> TILE_DIFF =
+            new DiffUtil.ItemCallback<ConversationTile>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull ConversationTile a, @NonNull ConversationTile b) {
+                    return Objects.equals(a.conversationId, b.conversationId);
+                }
+
+                @Override
+                public boolean areContentsTheSame(@NonNull ConversationTile a, @NonNull ConversationTile b) {
+                    return a.equals(b);
+                }
+            };
+
     // ─────────────────────────────────────────────
     //  RecyclerView Adapter for conversation tiles
     // ─────────────────────────────────────────────
-    class ConversationAdapter extends RecyclerView.Adapter<ConversationAdapter.ConvoVH> {
+    class ConversationAdapter extends ListAdapter<ConversationTile, ConversationAdapter.ConvoVH>
+            implements ListPreloader.PreloadModelProvider<String> {
 
-        private final List<ConversationTile> items = new ArrayList<>();
         private final DateFormat timeFormat =
                 android.text.format.DateFormat.getTimeFormat(getContext());
+        private final RequestManager glide = Glide.with(PMMessageFragment.this);
+        private final ViewPreloadSizeProvider<String> preloadSizes = new ViewPreloadSizeProvider<>();
 
-        void submitList(List<ConversationTile> newItems) {
-            items.clear();
-            if (newItems != null) items.addAll(newItems);
-            notifyDataSetChanged();
+        ConversationAdapter() {
+            super(TILE_DIFF);
+            setHasStableIds(true);
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return getItem(position).conversationId.hashCode();
         }
 
         @NonNull
@@ -240,13 +288,30 @@ public class PMMessageFragment extends Fragment {
 
         @Override
         public void onBindViewHolder(@NonNull ConvoVH holder, int position) {
-            ConversationTile tile = items.get(position);
+            ConversationTile tile = getItem(position);
             holder.bind(tile);
         }
 
+        /** Same request for bind and preload, so the preloaded bitmap is a cache hit. */
+        private RequestBuilder<Drawable> avatar(String url) {
+            return glide.load(url)
+                    .apply(LumiGlideModule.SMALL)
+                    .centerCrop()
+                    .placeholder(R.drawable.ic_profile);
+        }
+
+        @NonNull
+        @Override
+        public List<String> getPreloadItems(int position) {
+            if (position >= getItemCount()) return Collections.emptyList();
+            String url = getItem(position).otherUserPhotoUrl;
+            return !TextUtils.isEmpty(url) ? Collections.singletonList(url) : Collections.emptyList();
+        }
+
+        @Nullable
         @Override
-        public int getItemCount() {
-            return items.size();
+        public RequestBuilder<?> getPreloadRequestBuilder(@NonNull String url) {
+            return avatar(url);
         }
 
         class ConvoVH extends RecyclerView.ViewHolder {
@@ -254,6 +319,7 @@ public class PMMessageFragment extends Fragment {
             TextView tvName;
             TextView tvLastMessage;
             TextView tvTime;
+            TextView tvUnread;
 
             ConvoVH(@NonNull View itemView) {
                 super(itemView);
@@ -261,6 +327,7 @@ public class PMMessageFragment extends Fragment {
                 tvName        = itemView.findViewById(R.id.tvName);
                 tvLastMessage = itemView.findViewById(R.id.tvLastMessage);
                 tvTime        = itemView.findViewById(R.id.tvTime);
+                tvUnread      = itemView.findViewById(R.id.tvUnread);
             }
 
             void bind(ConversationTile tile) {
@@ -280,12 +347,16 @@ public class PMMessageFragment extends Fragment {
                     tvTime.setText("");
                 }
 
+                if (tile.unreadCount > 0) {
+                    tvUnread.setVisibility(View.VISIBLE);
+                    tvUnread.setText(tile.unreadCount > 99 ? "99+" : String.valueOf(tile.unreadCount));
+                } else {
+                    tvUnread.setVisibility(View.GONE);
+                }
+
                 if (!TextUtils.isEmpty(tile.otherUserPhotoUrl)) {
-                    Glide.with(itemView.getContext())
-                            .load(tile.otherUserPhotoUrl)
-                            .centerCrop()
-                            .placeholder(R.drawable.ic_profile)
-                            .into(imgAvatar);
+                    preloadSizes.setView(imgAvatar);
+                    avatar(tile.otherUserPhotoUrl).into(imgAvatar);
                 } else {
                     imgAvatar.setImageResource(R.drawable.ic_profile);
                 }
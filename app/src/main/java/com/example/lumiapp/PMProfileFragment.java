@@ -3,6 +3,7 @@ package com.example.lumiapp;
 import android.content.Intent;
 import android.net.Uri;
 import android.os.Bundle;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -28,8 +29,12 @@ import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.storage.FirebaseStorage;
 import com.google.firebase.storage.StorageReference;
 
+import java.util.Collections;
+
 public class PMProfileFragment extends Fragment {
 
+    private static final String TAG = "PMProfile";
+
     private ImageView imgProfile;
     private ImageButton btnChangePhoto;
     private MaterialButton btnLogout;
@@ -164,6 +169,7 @@ public class PMProfileFragment extends Fragment {
         if (imageUrl != null && !imageUrl.isEmpty() && isAdded()) {
             Glide.with(PMProfileFragment.this)
                     .load(imageUrl)
+                    .apply(LumiGlideModule.SMALL)
                     .placeholder(android.R.drawable.sym_def_app_icon)
                     .into(imgProfile);
         }
@@ -180,7 +186,7 @@ public class PMProfileFragment extends Fragment {
                 .getReference()
                 .child("profilePictures/" + uid + ".jpg");
 
-        ref.putFile(imageUri)
+        ImagePreparer.upload(requireContext(), imageUri, ref, ImagePreparer.MAX_EDGE_AVATAR)
                 .continueWithTask(task -> {
                     if (!task.isSuccessful()) {
                         throw task.getException();
@@ -213,9 +219,11 @@ public class PMProfileFragment extends Fragment {
         updateTask
                 .addOnSuccessListener(unused -> {
                     showLoading(false);
+                    pushPhotoToConversations(uid, url);
                     if (isAdded()) {
                         Glide.with(PMProfileFragment.this)
                                 .load(url)
+                                .apply(LumiGlideModule.SMALL)
                                 .placeholder(android.R.drawable.sym_def_app_icon)
                                 .into(imgProfile);
                     }
@@ -231,6 +239,13 @@ public class PMProfileFragment extends Fragment {
                 });
     }
 
+    /** Conversations carry a copy of our avatar (participantInfo); refresh all of them. */
+    private void pushPhotoToConversations(String uid, String url) {
+        UserProfileRepository.get(imgProfile.getContext()).invalidate(uid);
+        ParticipantInfo.fanOut(db, uid, Collections.singletonMap(ParticipantInfo.PHOTO_URL, url))
+                .addOnFailureListener(e -> Log.w(TAG, "participantInfo fan-out failed", e));
+    }
+
     private void showLoading(boolean loading) {
         if (progressBar == null) return;
         progressBar.setVisibility(loading ? View.VISIBLE : View.GONE);
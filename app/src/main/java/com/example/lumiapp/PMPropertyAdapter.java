@@ -1,6 +1,7 @@
 package com.example.lumiapp;
 
 import android.content.Context;
+import android.graphics.drawable.Drawable;
 import android.text.TextUtils;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -9,32 +10,62 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.util.ViewPreloadSizeProvider;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 
-public class PMPropertyAdapter extends RecyclerView.Adapter<PMPropertyAdapter.PropertyViewHolder> {
+public class PMPropertyAdapter extends ListAdapter<Property, PMPropertyAdapter.PropertyViewHolder>
+        implements ListPreloader.PreloadModelProvider<String> {
 
     public interface OnPropertyClickListener {
         void onPropertyClick(Property property);
     }
 
+    private static final DiffUtil.ItemCallback<Property> DIFF = new DiffUtil.ItemCallback<Property>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Property a, @NonNull Property b) {
+            return Objects.equals(a.getId(), b.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Property a, @NonNull Property b) {
+            return a.equals(b);
+        }
+    };
+
     private final Context context;
     private final OnPropertyClickListener listener;
-    private final List<Property> propertyList = new ArrayList<>();
+    private final ViewPreloadSizeProvider<String> preloadSizes = new ViewPreloadSizeProvider<>();
+    private final RequestManager glide;
 
     public PMPropertyAdapter(Context context, OnPropertyClickListener listener) {
+        super(DIFF);
         this.context = context;
         this.listener = listener;
+        this.glide = Glide.with(context);
+        setHasStableIds(true);
     }
 
     public void setData(List<Property> newList) {
-        propertyList.clear();
-        propertyList.addAll(newList);
-        notifyDataSetChanged();
+        submitList(new ArrayList<>(newList));
+    }
+
+    @Override
+    public long getItemId(int position) {
+        String id = getItem(position).getId();
+        return id != null ? id.hashCode() : RecyclerView.NO_ID;
     }
 
     @NonNull
@@ -46,17 +77,14 @@ public class PMPropertyAdapter extends RecyclerView.Adapter<PMPropertyAdapter.Pr
 
     @Override
     public void onBindViewHolder(@NonNull PropertyViewHolder holder, int position) {
-        Property property = propertyList.get(position);
+        Property property = getItem(position);
 
         holder.tvName.setText(property.getName());
         holder.tvAddress.setText(property.getAddress());
 
         if (!TextUtils.isEmpty(property.getImageUrl())) {
-            Glide.with(context)
-                    .load(property.getImageUrl())
-                    .centerCrop()
-                    .placeholder(R.drawable.ic_property_placeholder)
-                    .into(holder.imgProperty);
+            preloadSizes.setView(holder.imgProperty);
+            thumbnail(property.thumbOrFull()).into(holder.imgProperty);
         } else {
             holder.imgProperty.setImageResource(R.drawable.ic_property_placeholder);
         }
@@ -68,9 +96,34 @@ public class PMPropertyAdapter extends RecyclerView.Adapter<PMPropertyAdapter.Pr
         });
     }
 
+    // ─────────────────────────────────────────────
+    //  Preloading (RecyclerViewPreloader)
+    // ─────────────────────────────────────────────
+
+    /** Same request for bind and preload, so the preloaded bitmap is a cache hit. */
+    private RequestBuilder<Drawable> thumbnail(String url) {
+        return glide.load(url)
+                .apply(LumiGlideModule.SMALL)
+                .centerCrop()
+                .placeholder(R.drawable.ic_property_placeholder);
+    }
+
+    public ViewPreloadSizeProvider<String> preloadSizes() {
+        return preloadSizes;
+    }
+
+    @NonNull
+    @Override
+    public List<String> getPreloadItems(int position) {
+        if (position >= getItemCount()) return Collections.emptyList();
+        String url = getItem(position).thumbOrFull();
+        return !TextUtils.isEmpty(url) ? Collections.singletonList(url) : Collections.emptyList();
+    }
+
+    @Nullable
     @Override
-    public int getItemCount() {
-        return propertyList.size();
+    public RequestBuilder<?> getPreloadRequestBuilder(@NonNull String url) {
+        return thumbnail(url);
     }
 
     static class PropertyViewHolder extends RecyclerView.ViewHolder {
@@ -16,6 +16,7 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.integration.recyclerview.RecyclerViewPreloader;
 import com.google.android.material.button.MaterialButton;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
@@ -40,7 +41,7 @@ public class PMPropertyFragment extends Fragment {
     private FirebaseAuth auth;
     private FirebaseFirestore db;
     private ListenerRegistration propertyReg;
-    private ListenerRegistration userReg;   // listen to active property changes
+    private final UserSession.Listener sessionListener = this::bindHeader;   // active property changes
 
     @Nullable
     @Override
@@ -82,6 +83,8 @@ public class PMPropertyFragment extends Fragment {
 
         rvProperties.setLayoutManager(new LinearLayoutManager(getContext()));
         rvProperties.setAdapter(adapter);
+        rvProperties.addOnScrollListener(new RecyclerViewPreloader<>(
+                Glide.with(this), adapter, adapter.preloadSizes(), LumiGlideModule.PRELOAD_ROWS));
 
         // 🔹 Create new property
         btnCreateProperty.setOnClickListener(v -> {
@@ -124,37 +127,19 @@ public class PMPropertyFragment extends Fragment {
     }
 
     /**
-     * Listen to the currently active property stored in the user doc and
-     * update the header background image to that property's image.
-     *
-     * Requires:
-     * users/{uid} has "activePropertyImageUrl" (set in PropertyDetailsActivity).
+     * Header photo of the active property (users/{uid}.activePropertyId),
+     * following the session so a new pick in PropertyDetailsActivity shows
+     * up here. The image comes from PropertyHeader's cache.
      */
     private void listenToActiveProperty() {
-        FirebaseUser user = auth.getCurrentUser();
-        if (user == null) return;
-
-        String uid = user.getUid();
-
-        userReg = db.collection("users").document(uid)
-                .addSnapshotListener((snapshot, e) -> {
-                    if (snapshot == null || !snapshot.exists()) return;
-
-                    String imageUrl = snapshot.getString("activePropertyImageUrl");
-
-                    if (headerImage == null) return;
+        UserSession session = UserSession.get();
+        session.whenReady(this::bindHeader);
+        session.addListener(sessionListener);
+    }
 
-                    if (imageUrl != null && !imageUrl.isEmpty()) {
-                        Glide.with(requireContext())
-                                .load(imageUrl)
-                                .centerCrop()
-                                .placeholder(R.drawable.img_dashboard_bg)
-                                .into(headerImage);
-                    } else {
-                        // fallback if no active property image
-                        headerImage.setImageResource(R.drawable.img_dashboard_bg);
-                    }
-                });
+    private void bindHeader(UserSession session) {
+        if (headerImage == null || getView() == null) return;
+        PropertyHeader.get(requireContext()).bind(headerImage, session.getActivePropertyId());
     }
 
     @Override
@@ -164,9 +149,6 @@ public class PMPropertyFragment extends Fragment {
             propertyReg.remove();
             propertyReg = null;
         }
-        if (userReg != null) {
-            userReg.remove();
-            userReg = null;
-        }
+        UserSession.get().removeListener(sessionListener);
     }
 }
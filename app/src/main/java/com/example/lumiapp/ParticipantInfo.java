@@ -0,0 +1,104 @@
+package com.example.lumiapp;
+
+import android.text.TextUtils;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Copy of each participant's name / photo / role stored on the conversation
+ * doc itself, under participantInfo.{uid}, so inbox lists can render a row
+ * without looking up users/{uid}.
+ *
+ * The outbox writes it with every send; profile screens push changes to all
+ * of a user's conversations with {@link #fanOut}.
+ */
+public final class ParticipantInfo {
+
+    public static final String FIELD = "participantInfo";
+
+    public static final String NAME      = "name";
+    public static final String PHOTO_URL = "photoUrl";
+    public static final String ROLE      = "role";
+
+    private static final int MAX_WRITES_PER_BATCH = 500;
+
+    private ParticipantInfo() {
+    }
+
+    /** Entry for one participant, or null if we don't know anything about them yet. */
+    @Nullable
+    public static Map<String, Object> of(@Nullable UserProfile profile) {
+        if (profile == null) return null;
+        Map<String, Object> info = new HashMap<>();
+        if (!TextUtils.isEmpty(profile.name))            info.put(NAME, profile.name);
+        if (!TextUtils.isEmpty(profile.profileImageUrl)) info.put(PHOTO_URL, profile.profileImageUrl);
+        if (!TextUtils.isEmpty(profile.userType))        info.put(ROLE, profile.userType);
+        return info.isEmpty() ? null : info;
+    }
+
+    @Nullable
+    public static String name(DocumentSnapshot conversation, String uid) {
+        return read(conversation, uid, NAME);
+    }
+
+    @Nullable
+    public static String photoUrl(DocumentSnapshot conversation, String uid) {
+        return read(conversation, uid, PHOTO_URL);
+    }
+
+    @Nullable
+    private static String read(DocumentSnapshot conversation, String uid, String key) {
+        Object all = conversation.get(FIELD);
+        if (!(all instanceof Map)) return null;
+        Object mine = ((Map<?, ?>) all).get(uid);
+        if (!(mine instanceof Map)) return null;
+        Object value = ((Map<?, ?>) mine).get(key);
+        return value instanceof String ? (String) value : null;
+    }
+
+    /**
+     * Write {@code fields} (e.g. photoUrl) into participantInfo.{uid} on every
+     * conversation {@code uid} is part of. Large inboxes are split over
+     * several batches.
+     */
+    public static Task<Void> fanOut(FirebaseFirestore db, String uid, Map<String, Object> fields) {
+        return db.collection("conversations")
+                .whereArrayContains("participants", uid)
+                .get()
+                .continueWithTask(task -> {
+                    if (!task.isSuccessful()) throw task.getException();
+
+                    List<Task<Void>> commits = new ArrayList<>();
+                    WriteBatch batch = db.batch();
+                    int writes = 0;
+
+                    for (DocumentSnapshot conv : task.getResult().getDocuments()) {
+                        Map<String, Object> updates = new HashMap<>();
+                        for (Map.Entry<String, Object> f : fields.entrySet()) {
+                            updates.put(FIELD + "." + uid + "." + f.getKey(), f.getValue());
+                        }
+                        batch.update(conv.getReference(), updates);
+
+                        if (++writes == MAX_WRITES_PER_BATCH) {
+                            commits.add(batch.commit());
+                            batch = db.batch();
+                            writes = 0;
+                        }
+                    }
+                    if (writes > 0) commits.add(batch.commit());
+
+                    return Tasks.whenAll(commits);
+                });
+    }
+}
@@ -1,11 +1,15 @@
 package com.example.lumiapp;
 
+import java.util.Objects;
+
 public class Property {
 
     private String id;
     private String name;
     private String address;
     private String imageUrl;
+    private String mediumUrl;   // 512 px rendition
+    private String thumbUrl;    // 128 px rendition
     private String managerId; // optional, not required for now
 
     // Required empty constructor for Firestore
@@ -51,6 +55,27 @@ public class Property {
         this.imageUrl = imageUrl;
     }
 
+    public String getMediumUrl() {
+        return mediumUrl;
+    }
+
+    public void setMediumUrl(String mediumUrl) {
+        this.mediumUrl = mediumUrl;
+    }
+
+    public String getThumbUrl() {
+        return thumbUrl;
+    }
+
+    public void setThumbUrl(String thumbUrl) {
+        this.thumbUrl = thumbUrl;
+    }
+
+    /** List thumbnail, falling back to the original for older properties. */
+    public String thumbOrFull() {
+        return thumbUrl != null && !thumbUrl.isEmpty() ? thumbUrl : imageUrl;
+    }
+
     public String getManagerId() {
         return managerId;
     }
@@ -58,4 +83,23 @@ public class Property {
     public void setManagerId(String managerId) {
         this.managerId = managerId;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Property)) return false;
+        Property other = (Property) o;
+        return Objects.equals(id, other.id)
+                && Objects.equals(name, other.name)
+                && Objects.equals(address, other.address)
+                && Objects.equals(imageUrl, other.imageUrl)
+                && Objects.equals(thumbUrl, other.thumbUrl)
+                && Objects.equals(mediumUrl, other.mediumUrl)
+                && Objects.equals(managerId, other.managerId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, name, address, imageUrl, thumbUrl, mediumUrl, managerId);
+    }
 }
@@ -1,6 +1,7 @@
 package com.example.lumiapp;
 
 import android.os.Bundle;
+import android.text.TextUtils;
 import android.widget.ImageButton;
 import android.widget.ImageView;
 import android.widget.TextView;
@@ -68,43 +69,43 @@ public class PropertyDetailsActivity extends AppCompatActivity {
     }
 
     private void loadProperty(String propertyId) {
-        db.collection("properties").document(propertyId)
-                .get()
-                .addOnSuccessListener(doc -> {
-                    if (!doc.exists()) {
-                        Toast.makeText(this, "Property not found", Toast.LENGTH_LONG).show();
-                        finish();
-                        return;
-                    }
-
-                    propertyName      = doc.getString("name");
-                    propertyAddress   = doc.getString("address");
-                    propertyType      = doc.getString("type");
-                    renterCap         = doc.getLong("renterCapacity");
-                    parkingCap        = doc.getLong("parkingCapacity");
-                    propertyImageUrl  = doc.getString("imageUrl");
-
-                    tvName.setText(propertyName != null ? propertyName : "Unnamed property");
-                    tvAddress.setText(propertyAddress != null ? propertyAddress : "No address");
-                    tvType.setText(propertyType != null ? propertyType : "N/A");
-                    tvRenter.setText("Renter capacity: " + (renterCap != null ? renterCap : 0));
-                    tvParking.setText("Parking capacity: " + (parkingCap != null ? parkingCap : 0));
-
-                    if (propertyImageUrl != null && !propertyImageUrl.isEmpty()) {
-                        Glide.with(this)
-                                .load(propertyImageUrl)
-                                .centerCrop()
-                                .placeholder(R.drawable.ic_property_placeholder)
-                                .into(imgPropertyDetail);
-                    } else {
-                        imgPropertyDetail.setImageResource(R.drawable.ic_property_placeholder);
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    Toast.makeText(this, "Failed to load property: " + e.getMessage(),
-                            Toast.LENGTH_LONG).show();
-                    finish();
-                });
+        // Cache first, then revalidated (re-binds only if the property changed)
+        CachedReads.get(db.collection("properties").document(propertyId), (doc, fromCache) -> {
+            if (isFinishing() || isDestroyed()) return;
+            if (!doc.exists()) {
+                Toast.makeText(this, "Property not found", Toast.LENGTH_LONG).show();
+                finish();
+                return;
+            }
+
+            propertyName      = doc.getString("name");
+            propertyAddress   = doc.getString("address");
+            propertyType      = doc.getString("type");
+            renterCap         = doc.getLong("renterCapacity");
+            parkingCap        = doc.getLong("parkingCapacity");
+            propertyImageUrl  = doc.getString("imageUrl");
+
+            tvName.setText(propertyName != null ? propertyName : "Unnamed property");
+            tvAddress.setText(propertyAddress != null ? propertyAddress : "No address");
+            tvType.setText(propertyType != null ? propertyType : "N/A");
+            tvRenter.setText("Renter capacity: " + (renterCap != null ? renterCap : 0));
+            tvParking.setText("Parking capacity: " + (parkingCap != null ? parkingCap : 0));
+
+            String mediumUrl = doc.getString("mediumUrl");
+            if (propertyImageUrl != null && !propertyImageUrl.isEmpty()) {
+                Glide.with(this)
+                        .load(!TextUtils.isEmpty(mediumUrl) ? mediumUrl : propertyImageUrl)
+                        .centerCrop()
+                        .placeholder(R.drawable.ic_property_placeholder)
+                        .into(imgPropertyDetail);
+            } else {
+                imgPropertyDetail.setImageResource(R.drawable.ic_property_placeholder);
+            }
+        }, e -> {
+            Toast.makeText(this, "Failed to load property: " + e.getMessage(),
+                    Toast.LENGTH_LONG).show();
+            finish();
+        });
     }
 
     private void setCurrentProperty() {
@@ -0,0 +1,287 @@
+package com.example.lumiapp;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.graphics.drawable.Drawable;
+import android.text.TextUtils;
+import android.util.DisplayMetrics;
+import android.util.Log;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * The property header (photo, name, address) every dashboard / list /
+ * create screen shows on top, from one place.
+ *
+ * Property summaries are kept in memory and in SharedPreferences, so a
+ * header paints instantly, even on a cold start. Each property that was
+ * shown once is followed by a single snapshot listener for the rest of the
+ * process; its changes update the cache and every header currently bound
+ * to it. Screens never read properties/{id} for a header themselves.
+ *
+ * The header photo is always decoded to the same size (screen width × the
+ * tallest header), so every screen's request is the same Glide memory-cache
+ * key. Whenever a summary arrives the bitmap is preloaded at that size:
+ * moving between screens shows it without decoding again.
+ *
+ * Main thread only.
+ */
+public final class PropertyHeader {
+
+    private static final String TAG = "PropertyHeader";
+    private static final String PREFS = "property_summaries";   // propertyId → JSON
+
+    private static final int HEADER_HEIGHT_DP = 320;   // tallest header (dashboards, lists)
+
+    /** What a header needs from properties/{id}. */
+    public static final class Summary {
+        public final String id;
+        @Nullable public final String name;
+        @Nullable public final String address;
+        @Nullable public final String imageUrl;
+        @Nullable public final String thumbUrl;
+
+        Summary(String id, @Nullable String name, @Nullable String address,
+                @Nullable String imageUrl, @Nullable String thumbUrl) {
+            this.id = id;
+            this.name = name;
+            this.address = address;
+            this.imageUrl = imageUrl;
+            this.thumbUrl = thumbUrl;
+        }
+    }
+
+    /** A bound header; texts are weak so the map never keeps a screen alive. */
+    private static final class Binding {
+        final String propertyId;
+        final WeakReference<TextView> name;
+        final WeakReference<TextView> address;
+        @Nullable final String fallbackName;
+        @Nullable final String fallbackAddress;
+
+        Binding(String propertyId, @Nullable TextView name, @Nullable TextView address,
+                @Nullable String fallbackName, @Nullable String fallbackAddress) {
+            this.propertyId = propertyId;
+            this.name = new WeakReference<>(name);
+            this.address = new WeakReference<>(address);
+            this.fallbackName = fallbackName;
+            this.fallbackAddress = fallbackAddress;
+        }
+    }
+
+    private static PropertyHeader instance;
+
+    public static synchronized PropertyHeader get(Context context) {
+        if (instance == null) {
+            instance = new PropertyHeader(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private final Context app;
+    private final SharedPreferences prefs;
+    private final int headerWidth;
+    private final int headerHeight;
+
+    private final Map<String, Summary> summaries = new HashMap<>();
+    private final Map<String, ListenerRegistration> watching = new HashMap<>();
+    private final WeakHashMap<ImageView, Binding> bound = new WeakHashMap<>();
+
+    private PropertyHeader(Context context) {
+        app = context;
+        prefs = context.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        DisplayMetrics dm = context.getResources().getDisplayMetrics();
+        headerWidth = dm.widthPixels;
+        headerHeight = Math.round(HEADER_HEIGHT_DP * dm.density);
+    }
+
+    // ─────────────────────────────────────────────
+    //  Binding
+    // ─────────────────────────────────────────────
+
+    /** Header photo only; {@code propertyId == null} shows the default background. */
+    public void bind(ImageView image, @Nullable String propertyId) {
+        bind(image, null, null, propertyId, null, null);
+    }
+
+    /**
+     * Photo, name and address. The fallbacks show while nothing is cached yet
+     * and wherever the property doc has no value (e.g. a renter's own
+     * propertyName / previousAddress).
+     */
+    public void bind(ImageView image,
+                     @Nullable TextView name,
+                     @Nullable TextView address,
+                     @Nullable String propertyId,
+                     @Nullable String fallbackName,
+                     @Nullable String fallbackAddress) {
+        if (TextUtils.isEmpty(propertyId)) {
+            bound.remove(image);
+            Glide.with(image).clear(image);
+            image.setImageResource(R.drawable.img_dashboard_bg);
+            setText(name, null, fallbackName);
+            setText(address, null, fallbackAddress);
+            return;
+        }
+
+        Binding binding = new Binding(propertyId, name, address, fallbackName, fallbackAddress);
+        bound.put(image, binding);
+        apply(image, binding, peek(propertyId));
+        watch(propertyId);
+    }
+
+    /** Cached summary (memory, then disk), or null if this property was never shown. */
+    @Nullable
+    public Summary peek(@Nullable String propertyId) {
+        if (propertyId == null) return null;
+        Summary s = summaries.get(propertyId);
+        if (s == null) {
+            s = readDisk(propertyId);
+            if (s != null) summaries.put(propertyId, s);
+        }
+        return s;
+    }
+
+    private void apply(ImageView image, Binding binding, @Nullable Summary s) {
+        setText(binding.name.get(), s != null ? s.name : null, binding.fallbackName);
+        setText(binding.address.get(), s != null ? s.address : null, binding.fallbackAddress);
+
+        if (s == null || TextUtils.isEmpty(s.imageUrl)) {
+            Glide.with(image).clear(image);
+            image.setImageResource(R.drawable.img_dashboard_bg);
+            return;
+        }
+        request(Glide.with(image), s).into(image);
+    }
+
+    private static void setText(@Nullable TextView view, @Nullable String value, @Nullable String fallback) {
+        if (view == null) return;
+        view.setText(!TextUtils.isEmpty(value) ? value : fallback);
+    }
+
+    /** One request shape for every screen and for the warm-up, so they share a cache key. */
+    private RequestBuilder<Drawable> request(RequestManager glide, Summary s) {
+        RequestBuilder<Drawable> r = glide.load(s.imageUrl)
+                .override(headerWidth, headerHeight)
+                .centerCrop()
+                .placeholder(R.drawable.img_dashboard_bg);
+        if (!TextUtils.isEmpty(s.thumbUrl)) {
+            // cold cache: the 128 px rendition is up almost at once, blurred in until the full one lands
+            r = r.thumbnail(glide.load(s.thumbUrl).override(headerWidth, headerHeight).centerCrop());
+        }
+        return r;
+    }
+
+    // ─────────────────────────────────────────────
+    //  Live updates
+    // ─────────────────────────────────────────────
+
+    private void watch(String propertyId) {
+        if (watching.containsKey(propertyId)) return;
+
+        ListenerRegistration reg = FirebaseFirestore.getInstance()
+                .collection("properties").document(propertyId)
+                .addSnapshotListener((snap, e) -> {
+                    if (e != null) {
+                        // dead listener: the next bind() tries again
+                        Log.w(TAG, "properties/" + propertyId + " listen failed", e);
+                        ListenerRegistration dead = watching.remove(propertyId);
+                        if (dead != null) dead.remove();
+                        return;
+                    }
+                    if (snap != null) onSnapshot(propertyId, snap);
+                });
+        watching.put(propertyId, reg);
+    }
+
+    private void onSnapshot(String propertyId, DocumentSnapshot snap) {
+        Summary s = snap.exists()
+                ? new Summary(propertyId,
+                        snap.getString("name"),
+                        snap.getString("address"),
+                        snap.getString("imageUrl"),
+                        snap.getString("thumbUrl"))
+                : null;
+
+        Summary old = summaries.get(propertyId);
+        if (s == null) {
+            summaries.remove(propertyId);
+            prefs.edit().remove(propertyId).apply();
+        } else {
+            summaries.put(propertyId, s);
+            writeDisk(s);
+            // 🔹 keep the decoded header warm for the next screen
+            if (!TextUtils.isEmpty(s.imageUrl)) request(Glide.with(app), s).preload();
+        }
+        if (same(old, s)) return;
+
+        List<ImageView> views = new ArrayList<>(bound.keySet());
+        for (ImageView image : views) {
+            Binding b = bound.get(image);
+            if (b == null || !b.propertyId.equals(propertyId)) continue;
+            if (!image.isAttachedToWindow()) continue;   // screen gone (or not shown): next bind() refreshes
+            apply(image, b, s);
+        }
+    }
+
+    private static boolean same(@Nullable Summary a, @Nullable Summary b) {
+        if (a == null || b == null) return a == b;
+        return TextUtils.equals(a.name, b.name)
+                && TextUtils.equals(a.address, b.address)
+                && TextUtils.equals(a.imageUrl, b.imageUrl)
+                && TextUtils.equals(a.thumbUrl, b.thumbUrl);
+    }
+
+    // ─────────────────────────────────────────────
+    //  Disk
+    // ─────────────────────────────────────────────
+
+    @Nullable
+    private Summary readDisk(String propertyId) {
+        String json = prefs.getString(propertyId, null);
+        if (json == null) return null;
+        try {
+            JSONObject o = new JSONObject(json);
+            return new Summary(propertyId,
+                    o.optString("name", null),
+                    o.optString("address", null),
+                    o.optString("imageUrl", null),
+                    o.optString("thumbUrl", null));
+        } catch (JSONException e) {
+            prefs.edit().remove(propertyId).apply();
+            return null;
+        }
+    }
+
+    private void writeDisk(Summary s) {
+        try {
+            JSONObject o = new JSONObject();
+            o.putOpt("name", s.name);
+            o.putOpt("address", s.address);
+            o.putOpt("imageUrl", s.imageUrl);
+            o.putOpt("thumbUrl", s.thumbUrl);
+            prefs.edit().putString(s.id, o.toString()).apply();
+        } catch (JSONException e) {
+            Log.w(TAG, "Summary not cached: " + s.id, e);
+        }
+    }
+}
@@ -235,7 +235,7 @@ public class RenterAccSetup extends AppCompatActivity {
                 .child("profile_photos")
                 .child(userId + ".jpg");
 
-        ref.putFile(selectedImageUri)
+        ImagePreparer.upload(this, selectedImageUri, ref, ImagePreparer.MAX_EDGE_AVATAR)
                 .continueWithTask(task -> {
                     if (!task.isSuccessful()) {
                         throw task.getException();
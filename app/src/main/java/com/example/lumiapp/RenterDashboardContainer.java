@@ -14,7 +14,10 @@ import androidx.fragment.app.Fragment;
 
 public class RenterDashboardContainer extends AppCompatActivity {
 
+    private static final int MESSAGE_TAB = 2;
+
     private LinearLayout[] navItems;
+    private UnreadBadge unreadBadge;
     private int[] icons = {
             R.drawable.ic_home,
             R.drawable.ic_property,
@@ -50,6 +53,14 @@ public class RenterDashboardContainer extends AppCompatActivity {
         // Default tab → renter home dashboard fragment
         replaceFragment(new RenterDashboardFragment());
         setActiveItem(0);
+        unreadBadge = new UnreadBadge(navItems[MESSAGE_TAB].findViewById(R.id.navBadge));
+        unreadBadge.start();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        unreadBadge.stop();
     }
 
     private void setActiveItem(int index) {
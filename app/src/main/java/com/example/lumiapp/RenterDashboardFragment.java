@@ -15,11 +15,9 @@ import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.bumptech.glide.Glide;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FirebaseFirestore;
 
 import java.util.Arrays;
 import java.util.List;
@@ -30,7 +28,8 @@ public class RenterDashboardFragment extends Fragment {
     private TextView propertyNameText, addressText;
 
     private FirebaseAuth auth;
-    private FirebaseFirestore db;
+
+    private TextView complaintCountText, fixCountText;
 
     public RenterDashboardFragment() {
         // Required empty public constructor
@@ -47,9 +46,10 @@ public class RenterDashboardFragment extends Fragment {
         headerImage      = view.findViewById(R.id.headerImage);
         propertyNameText = view.findViewById(R.id.propertyNameText);
         addressText      = view.findViewById(R.id.addressText);
+        complaintCountText = view.findViewById(R.id.complaintCountText);
+        fixCountText       = view.findViewById(R.id.fixCountText);
 
         auth = FirebaseAuth.getInstance();
-        db   = FirebaseFirestore.getInstance();
 
         // --- Recent list (demo for now, same as PM) ---
         RecyclerView rv = view.findViewById(R.id.rvRecent);
@@ -120,101 +120,43 @@ public class RenterDashboardFragment extends Fragment {
         return view;
     }
 
-    private void loadRenterPropertyHeader() {
-        FirebaseUser user = auth.getCurrentUser();
-        if (user == null) {
-            applyPropertyToHeader(null, null, null);
-            return;
-        }
-
-        String uid = user.getUid();
-
-        db.collection("renters")
-                .document(uid)
-                .get()
-                .addOnSuccessListener(renterDoc -> {
-                    if (!isAdded()) return; // fragment might be detached
-
-                    if (renterDoc == null || !renterDoc.exists()) {
-                        applyPropertyToHeader(null, null, null);
-                        return;
-                    }
-
-                    String propertyName = renterDoc.getString("propertyName");
-                    String propertyId   = renterDoc.getString("propertyId");
-                    String prevAddress  = renterDoc.getString("previousAddress");
-
-                    // If we have propertyId, get full details from /properties
-                    if (!TextUtils.isEmpty(propertyId)) {
-                        db.collection("properties")
-                                .document(propertyId)
-                                .get()
-                                .addOnSuccessListener(propDoc -> {
-                                    if (!isAdded()) return;
-
-                                    if (propDoc != null && propDoc.exists()) {
-                                        String name     = propDoc.getString("name");
-                                        String address  = propDoc.getString("address");
-                                        String imageUrl = propDoc.getString("imageUrl");
-
-                                        if (TextUtils.isEmpty(name)) {
-                                            name = propertyName;
-                                        }
-                                        if (TextUtils.isEmpty(address)) {
-                                            address = prevAddress;
-                                        }
-
-                                        applyPropertyToHeader(name, address, imageUrl);
-                                    } else {
-                                        applyPropertyToHeader(propertyName, prevAddress, null);
-                                    }
-                                })
-                                .addOnFailureListener(e -> {
-                                    if (!isAdded()) return;
-                                    applyPropertyToHeader(propertyName, prevAddress, null);
-                                });
-                    } else {
-                        // No propertyId yet → just use renter doc fields
-                        applyPropertyToHeader(propertyName, prevAddress, null);
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    if (!isAdded()) return;
-                    applyPropertyToHeader(null, null, null);
-                });
+    @Override
+    public void onResume() {
+        super.onResume();
+        loadCounts();
     }
 
-    private void applyPropertyToHeader(String name,
-                                       String address,
-                                       String imageUrl) {
-        if (!isAdded()) return; // fragment not attached → avoid crash
-
-        if (propertyNameText != null) {
-            propertyNameText.setText(
-                    !TextUtils.isEmpty(name)
-                            ? name
-                            : getString(R.string.app_name)
-            );
-        }
-
-        if (addressText != null) {
-            addressText.setText(
-                    !TextUtils.isEmpty(address)
-                            ? address
-                            : getString(R.string.addr_line)
-            );
-        }
+    /** Open / pending counts of the renter's own tickets (cached count() aggregations). */
+    private void loadCounts() {
+        FirebaseUser user = auth.getCurrentUser();
+        if (user == null) return;
+
+        TicketCounter counter = TicketCounter.get(requireContext());
+        counter.load(TicketCounter.COMPLAINTS, "createdById", user.getUid(), counts -> {
+            if (isAdded()) TicketCounter.bind(complaintCountText, counts);
+        });
+        counter.load(TicketCounter.FIX_REQUESTS, "createdById", user.getUid(), counts -> {
+            if (isAdded()) TicketCounter.bind(fixCountText, counts);
+        });
+    }
 
-        if (headerImage != null) {
-            if (!TextUtils.isEmpty(imageUrl)) {
-                Glide.with(requireContext())
-                        .load(imageUrl)
-                        .centerCrop()
-                        .placeholder(R.drawable.img_dashboard_bg)
-                        .into(headerImage);
-            } else {
-                headerImage.setImageResource(R.drawable.img_dashboard_bg);
-            }
-        }
+    /**
+     * The renter's property (renters/{uid}.propertyId) from PropertyHeader's
+     * cache; the renter doc's own propertyName / previousAddress fill in
+     * whatever the property doesn't have.
+     */
+    private void loadRenterPropertyHeader() {
+        UserSession.get().whenReady(session -> {
+            if (!isAdded() || headerImage == null) return; // fragment might be detached
+
+            DocumentSnapshot renter = session.getRenter();
+            String propertyName = renter != null ? renter.getString("propertyName") : null;
+            String prevAddress  = renter != null ? renter.getString("previousAddress") : null;
+
+            PropertyHeader.get(requireContext()).bind(headerImage, propertyNameText, addressText,
+                    session.getRenterPropertyId(),
+                    !TextUtils.isEmpty(propertyName) ? propertyName : getString(R.string.app_name),
+                    !TextUtils.isEmpty(prevAddress) ? prevAddress : getString(R.string.addr_line));
+        });
     }
 }
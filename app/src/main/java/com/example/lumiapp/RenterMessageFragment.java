@@ -171,30 +171,29 @@ public class RenterMessageFragment extends Fragment {
             return;
         }
 
-        // Step 3: load manager profile from /users/{managerUserId}
-        db.collection("users")
-                .document(managerUserId)
-                .get()
-                .addOnSuccessListener(userDoc -> {
-                    if (userDoc != null && userDoc.exists()) {
-                        managerName     = userDoc.getString("name");
-                        managerPhotoUrl = userDoc.getString("profileImageUrl");
-                    }
+        // Step 3: manager profile (name + avatar) from the shared profile cache
+        UserProfileRepository.get(requireContext()).get(managerUserId, profile -> {
+            if (!isAdded()) return;
 
-                    // Update button text to include manager name if available
-                    if (!TextUtils.isEmpty(managerName)) {
-                        btnMessageManager.setText("Message Manager: " + managerName);
-                    } else {
-                        btnMessageManager.setText("Message Property Manager");
-                    }
+            if (profile == null) {
+                btnMessageManager.setEnabled(false);
+                Toast.makeText(requireContext(),
+                        "Failed to load manager profile.",
+                        Toast.LENGTH_SHORT).show();
+                return;
+            }
 
-                    btnMessageManager.setEnabled(true);
-                })
-                .addOnFailureListener(e -> {
-                    btnMessageManager.setEnabled(false);
-                    Toast.makeText(requireContext(),
-                            "Failed to load manager profile.",
-                            Toast.LENGTH_SHORT).show();
-                });
+            managerName     = profile.name;
+            managerPhotoUrl = profile.profileImageUrl;
+
+            // Update button text to include manager name if available
+            if (!TextUtils.isEmpty(managerName)) {
+                btnMessageManager.setText("Message Manager: " + managerName);
+            } else {
+                btnMessageManager.setText("Message Property Manager");
+            }
+
+            btnMessageManager.setEnabled(true);
+        });
     }
 }
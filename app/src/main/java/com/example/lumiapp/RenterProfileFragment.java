@@ -26,6 +26,7 @@ import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.storage.FirebaseStorage;
 import com.google.firebase.storage.StorageReference;
+import java.util.Collections;
 
 public class RenterProfileFragment extends Fragment {
 
@@ -171,6 +172,7 @@ public class RenterProfileFragment extends Fragment {
                             if (isAdded()) {
                                 Glide.with(this)
                                         .load(profileUrl)
+                                        .apply(LumiGlideModule.SMALL)
                                         .centerCrop()
                                         .placeholder(R.drawable.ic_profile)
                                         .into(imgProfile);
@@ -201,7 +203,7 @@ public class RenterProfileFragment extends Fragment {
                 .getReference()
                 .child("profilePictures/" + uid + ".jpg");
 
-        ref.putFile(imageUri)
+        ImagePreparer.upload(requireContext(), imageUri, ref, ImagePreparer.MAX_EDGE_AVATAR)
                 .continueWithTask(task -> {
                     if (!task.isSuccessful()) {
                         throw task.getException();
@@ -216,16 +218,22 @@ public class RenterProfileFragment extends Fragment {
     }
 
     private void saveProfileImageUrl(String uid, String url) {
-        // Update both users/{uid} and renters/{uid} so all screens stay in sync
+        UserProfileRepository.get(imgProfile.getContext()).invalidate(uid);
+
+        // Update both users/{uid} and renters/{uid} so all screens stay in sync,
+        // plus the participantInfo copy on every conversation we're in
         Tasks.whenAllComplete(
                 db.collection("users").document(uid).update("profileImageUrl", url),
-                db.collection("renters").document(uid).update("profilePhotoUrl", url)
+                db.collection("renters").document(uid).update("profilePhotoUrl", url),
+                ParticipantInfo.fanOut(db, uid,
+                        Collections.singletonMap(ParticipantInfo.PHOTO_URL, url))
         ).addOnCompleteListener(task -> {
             progressBar.setVisibility(View.GONE);
             if (!isAdded()) return;
 
             Glide.with(this)
                     .load(url)
+                    .apply(LumiGlideModule.SMALL)
                     .centerCrop()
                     .placeholder(R.drawable.ic_profile)
                     .into(imgProfile);
@@ -64,14 +64,14 @@ public class RenterPropertyFragment extends Fragment {
         tvStatus.setText("Loading your property...");
 
         // RenterAccSetup writes /renters/{uid} with propertyName, propertyId, roomNumber, previousAddress etc.
-        db.collection("renters")
-                .document(uid)
-                .get()
-                .addOnSuccessListener(this::applyRenterDoc)
-                .addOnFailureListener(e -> {
-                    progressBar.setVisibility(View.GONE);
-                    tvStatus.setText("Failed to load property: " + e.getMessage());
-                });
+        // Cache first (instant on a warm start), then revalidated from the server
+        CachedReads.get(db.collection("renters").document(uid), (doc, fromCache) -> {
+            if (isAdded()) applyRenterDoc(doc);
+        }, e -> {
+            if (!isAdded()) return;
+            progressBar.setVisibility(View.GONE);
+            tvStatus.setText("Failed to load property: " + e.getMessage());
+        });
     }
 
     private void applyRenterDoc(DocumentSnapshot doc) {
@@ -0,0 +1,156 @@
+package com.example.lumiapp;
+
+import android.util.LruCache;
+
+import androidx.annotation.Nullable;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory complaints / fix requests shared by the list and detail screens.
+ *
+ * Lists put every row they show; a detail screen opened from the list
+ * renders from here right away and then follows the doc with its own live
+ * listener. Each snapshot that listener gets (including our own pending
+ * writes, and deletes) is handed back through {@link #publish}, so the list
+ * underneath patches that one row instead of re-querying.
+ *
+ * Status changes in flight are kept as pending overrides, so the list and
+ * the detail show the new status before the transaction commits.
+ *
+ * Cached models are shared: treat them as read-only.
+ */
+public final class TicketCache {
+
+    private static final int MAX_ENTRIES = 300;   // per collection
+
+    public static final String COMPLAINTS   = "complaints";
+    public static final String FIX_REQUESTS = "fixRequests";
+
+    public interface Listener {
+        /** {@code doc} may not exist (deleted). Main thread. */
+        void onTicketChanged(String collection, DocumentSnapshot doc);
+
+        /** An optimistic status was set or rolled back; re-map the rows. */
+        default void onPendingStatusChanged(String collection, String id) {
+        }
+    }
+
+    /** A status change that is being committed (or was, but no snapshot showed it yet). */
+    private static class PendingStatus {
+        final String status;
+        final long version;   // statusVersion the ticket will have once it's applied
+
+        PendingStatus(String status, long version) {
+            this.status = status;
+            this.version = version;
+        }
+    }
+
+    private static TicketCache instance;
+
+    public static synchronized TicketCache get() {
+        if (instance == null) instance = new TicketCache();
+        return instance;
+    }
+
+    private final LruCache<String, Complaint> complaints = new LruCache<>(MAX_ENTRIES);
+    private final LruCache<String, FixRequest> fixRequests = new LruCache<>(MAX_ENTRIES);
+    private final List<Listener> listeners = new ArrayList<>();
+    private final Map<String, PendingStatus> pending = new HashMap<>();   // collection/id →
+
+    private TicketCache() {
+    }
+
+    // ─────────────────────────────────────────────
+    //  Models
+    // ─────────────────────────────────────────────
+
+    @Nullable
+    public Complaint peekComplaint(@Nullable String id) {
+        return id != null ? complaints.get(id) : null;
+    }
+
+    @Nullable
+    public FixRequest peekFixRequest(@Nullable String id) {
+        return id != null ? fixRequests.get(id) : null;
+    }
+
+    public void putComplaint(@Nullable Complaint c) {
+        if (c != null && c.id != null) complaints.put(c.id, c);
+    }
+
+    public void putFixRequest(@Nullable FixRequest f) {
+        if (f != null && f.id != null) fixRequests.put(f.id, f);
+    }
+
+    public void putComplaints(List<Complaint> list) {
+        for (Complaint c : list) putComplaint(c);
+    }
+
+    public void putFixRequests(List<FixRequest> list) {
+        for (FixRequest f : list) putFixRequest(f);
+    }
+
+    // ─────────────────────────────────────────────
+    //  Optimistic status
+    // ─────────────────────────────────────────────
+
+    public void setPendingStatus(String collection, String id, String status, long version) {
+        pending.put(collection + "/" + id, new PendingStatus(status, version));
+        notifyPending(collection, id);
+    }
+
+    /** Roll back: the change was rejected or failed. */
+    public void clearPendingStatus(String collection, String id) {
+        if (pending.remove(collection + "/" + id) != null) notifyPending(collection, id);
+    }
+
+    /**
+     * Status to show for a ticket: the pending one until a snapshot at (or
+     * past) its version arrives, then the snapshot's own.
+     */
+    @Nullable
+    public String effectiveStatus(String collection, @Nullable String id,
+                                  @Nullable String status, long version) {
+        if (id == null) return status;
+        String key = collection + "/" + id;
+        PendingStatus p = pending.get(key);
+        if (p == null) return status;
+        if (version >= p.version) {
+            pending.remove(key);
+            return status;
+        }
+        return p.status;
+    }
+
+    private void notifyPending(String collection, String id) {
+        for (Listener l : new ArrayList<>(listeners)) l.onPendingStatusChanged(collection, id);
+    }
+
+    // ─────────────────────────────────────────────
+    //  Live updates
+    // ─────────────────────────────────────────────
+
+    public void addListener(Listener l) {
+        if (!listeners.contains(l)) listeners.add(l);
+    }
+
+    public void removeListener(Listener l) {
+        listeners.remove(l);
+    }
+
+    /** A fresh snapshot of one ticket (from a detail screen's listener). */
+    public void publish(String collection, DocumentSnapshot doc) {
+        if (!doc.exists()) {
+            if (COMPLAINTS.equals(collection)) complaints.remove(doc.getId());
+            else fixRequests.remove(doc.getId());
+        }
+        for (Listener l : new ArrayList<>(listeners)) l.onTicketChanged(collection, doc);
+    }
+}
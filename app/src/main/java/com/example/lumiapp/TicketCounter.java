@@ -0,0 +1,181 @@
+package com.example.lumiapp;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+import android.view.View;
+import android.widget.TextView;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.AggregateQuerySnapshot;
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Open / pending ticket counts for the dashboards, from Firestore count()
+ * aggregations, so no ticket documents are downloaded. Closed tickets are
+ * never shown on a dashboard, so they are not counted.
+ *
+ * Counts are kept in SharedPreferences. {@link #load} answers from there
+ * right away and re-counts in the background once the cached value is older
+ * than {@link #TTL_MS}.
+ */
+public class TicketCounter {
+
+    private static final String TAG = "TicketCounter";
+
+    private static final String PREFS = "ticket_counts";
+    private static final long TTL_MS = 2 * 60 * 1000L;
+
+    public static final String COMPLAINTS   = "complaints";
+    public static final String FIX_REQUESTS = "fixRequests";
+
+    private static final String[] STATUSES = {"open", "pending"};
+
+    public static class Counts {
+        public long open, pending;
+
+        public long active() {
+            return open + pending;
+        }
+    }
+
+    public interface Callback {
+        /** May be called twice: cached counts first, then fresh ones. */
+        void onCounts(Counts counts);
+    }
+
+    private static TicketCounter instance;
+
+    public static synchronized TicketCounter get(Context context) {
+        if (instance == null) {
+            instance = new TicketCounter(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private final FirebaseFirestore db = FirebaseFirestore.getInstance();
+    private final SharedPreferences prefs;
+
+    // keys with a count already running
+    private final Set<String> inFlight = new HashSet<>();
+    private final Map<String, List<Callback>> waiting = new HashMap<>();
+
+    private TicketCounter(Context context) {
+        prefs = context.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Counts for tickets in {@code collection} where {@code field == value},
+     * e.g. (complaints, propertyId, id) for a manager, (complaints,
+     * createdById, uid) for a renter.
+     */
+    public void load(String collection, String field, String value, Callback callback) {
+        String key = collection + "|" + field + "|" + value;
+
+        Counts cached = readCache(key);
+        if (cached != null) callback.onCounts(cached);
+
+        long age = System.currentTimeMillis() - prefs.getLong(key + "|at", 0L);
+        if (cached != null && age < TTL_MS) return;
+
+        refresh(key, collection, field, value, callback);
+    }
+
+    /** "3 open · 1 pending" under a dashboard shortcut. */
+    public static void bind(@Nullable TextView view, Counts counts) {
+        if (view == null) return;
+        view.setText(view.getContext().getString(R.string.ticket_counts, counts.open, counts.pending));
+        view.setVisibility(View.VISIBLE);
+    }
+
+    /** Mark the counts a ticket belongs to as stale (after create / status change / delete). */
+    public void invalidateTicket(String collection, @Nullable String propertyId, @Nullable String createdById) {
+        if (propertyId != null)  invalidate(collection, "propertyId", propertyId);
+        if (createdById != null) invalidate(collection, "createdById", createdById);
+    }
+
+    /** Drop the cached counts so the next {@link #load} re-counts (after a status change). */
+    public void invalidate(String collection, String field, String value) {
+        String key = collection + "|" + field + "|" + value;
+        if (prefs.contains(key + "|at")) prefs.edit().putLong(key + "|at", 0L).apply();
+    }
+
+    // ─────────────────────────────────────────────
+    //  Counting
+    // ─────────────────────────────────────────────
+
+    private void refresh(String key, String collection, String field, String value, Callback callback) {
+        List<Callback> callbacks = waiting.get(key);
+        if (callbacks == null) {
+            callbacks = new ArrayList<>();
+            waiting.put(key, callbacks);
+        }
+        callbacks.add(callback);
+        if (!inFlight.add(key)) return;
+
+        // one aggregation per status, all in parallel
+        List<Task<AggregateQuerySnapshot>> tasks = new ArrayList<>();
+        for (String status : STATUSES) {
+            tasks.add(db.collection(collection)
+                    .whereEqualTo(field, value)
+                    .whereEqualTo("status", status)
+                    .count()
+                    .get(AggregateSource.SERVER));
+        }
+
+        Tasks.whenAllComplete(tasks).addOnCompleteListener(done -> {
+            inFlight.remove(key);
+            List<Callback> ready = waiting.remove(key);
+
+            Counts counts = new Counts();
+            for (int i = 0; i < tasks.size(); i++) {
+                Task<AggregateQuerySnapshot> t = tasks.get(i);
+                if (!t.isSuccessful()) {
+                    // offline or no index: keep showing what we had
+                    Log.w(TAG, "count failed for " + key, t.getException());
+                    return;
+                }
+                long n = t.getResult().getCount();
+                if (i == 0) counts.open = n;
+                else counts.pending = n;
+            }
+
+            writeCache(key, counts);
+            if (ready != null) {
+                for (Callback c : ready) c.onCounts(counts);
+            }
+        });
+    }
+
+    // ─────────────────────────────────────────────
+    //  Cache
+    // ─────────────────────────────────────────────
+
+    @Nullable
+    private Counts readCache(String key) {
+        if (!prefs.contains(key + "|at")) return null;
+        Counts c = new Counts();
+        c.open    = prefs.getLong(key + "|open", 0L);
+        c.pending = prefs.getLong(key + "|pending", 0L);
+        return c;
+    }
+
+    private void writeCache(String key, Counts c) {
+        prefs.edit()
+                .putLong(key + "|open", c.open)
+                .putLong(key + "|pending", c.pending)
+                .putLong(key + "|at", System.currentTimeMillis())
+                .apply();
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.lumiapp;
+
+import android.view.Gravity;
+import android.widget.PopupMenu;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.material.button.MaterialButton;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.Query;
+
+/**
+ * Status filter + sort mode of a ticket list (complaints, fix requests).
+ *
+ * Both are part of the Firestore query (whereEqualTo("status") + orderBy),
+ * so only matching tickets are fetched, a page at a time. Every
+ * combination has a composite index in firestore.indexes.json.
+ */
+public class TicketFilter {
+
+    public static final int SORT_NEWEST = 0;
+    public static final int SORT_OLDEST = 1;
+    public static final int SORT_ROOM   = 2;
+
+    private static final String[] STATUSES = {"open", "pending", "closed"};
+    private static final String[] SORT_LABELS = {"Newest", "Oldest", "Room"};
+
+    @Nullable
+    private String status;   // null = all
+    private int sort = SORT_NEWEST;
+
+    /** {@code base} narrowed to the selected status (ordering is the pager's job). */
+    public Query apply(Query base) {
+        return status != null ? base.whereEqualTo("status", status) : base;
+    }
+
+    /** Whether a (changed) ticket still belongs in a list with this filter. */
+    public boolean matches(DocumentSnapshot doc) {
+        return status == null || status.equals(doc.getString("status"));
+    }
+
+    public String orderField() {
+        return sort == SORT_ROOM ? "roomNumber" : "createdAt";
+    }
+
+    public Query.Direction direction() {
+        return sort == SORT_NEWEST ? Query.Direction.DESCENDING : Query.Direction.ASCENDING;
+    }
+
+    /** Part of the lists' listKey: a different filter means a different query. */
+    public String key() {
+        return (status != null ? status : "all") + ":" + sort;
+    }
+
+    /**
+     * "All ▾" / "Newest ▾" buttons above a list; {@code onChanged} runs after
+     * a new choice so the list can re-query.
+     */
+    public void bind(@Nullable MaterialButton filterBtn,
+                     @Nullable MaterialButton sortBtn,
+                     Runnable onChanged) {
+        if (filterBtn != null) {
+            filterBtn.setText(filterLabel());
+            filterBtn.setOnClickListener(v -> {
+                PopupMenu menu = new PopupMenu(v.getContext(), v, Gravity.END);
+                menu.getMenu().add("all");
+                for (String s : STATUSES) menu.getMenu().add(s);
+                menu.setOnMenuItemClickListener(item -> {
+                    String sel = item.getTitle().toString();
+                    String next = "all".equals(sel) ? null : sel;
+                    if (next != null ? next.equals(status) : status == null) return true;
+                    status = next;
+                    filterBtn.setText(filterLabel());
+                    onChanged.run();
+                    return true;
+                });
+                menu.show();
+            });
+        }
+
+        if (sortBtn != null) {
+            sortBtn.setText(sortLabel());
+            sortBtn.setOnClickListener(v -> {
+                PopupMenu menu = new PopupMenu(v.getContext(), v, Gravity.END);
+                for (int i = 0; i < SORT_LABELS.length; i++) menu.getMenu().add(0, i, i, SORT_LABELS[i]);
+                menu.setOnMenuItemClickListener(item -> {
+                    if (item.getItemId() == sort) return true;
+                    sort = item.getItemId();
+                    sortBtn.setText(sortLabel());
+                    onChanged.run();
+                    return true;
+                });
+                menu.show();
+            });
+        }
+    }
+
+    private String filterLabel() {
+        return (status != null ? status : "all") + "  ▾";
+    }
+
+    private String sortLabel() {
+        return SORT_LABELS[sort] + "  ▾";
+    }
+}
@@ -0,0 +1,441 @@
+package com.example.lumiapp;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Paged window over a sorted ticket query (complaints, fix requests).
+ *
+ * The first page is a live listener; older pages are fetched with
+ * startAfter(last snapshot) as the list scrolls, a few rows before the end.
+ * The window never holds more than {@link #MAX_WINDOW} documents: scrolling
+ * far down drops the newest rows (and detaches the live page), scrolling
+ * back up fetches them again with endBefore(first snapshot) and re-attaches
+ * the live page once it is reached.
+ *
+ * @param <T> row model the adapter shows
+ */
+public class TicketPager<T> {
+
+    private static final String TAG = "TicketPager";
+
+    public static final int PAGE_SIZE = 25;
+    public static final int MAX_WINDOW = 150;
+    private static final int PREFETCH_DISTANCE = 8;   // rows from the edge before we fetch
+
+    public interface Mapper<T> {
+        @Nullable
+        T map(DocumentSnapshot doc);
+    }
+
+    public interface Listener<T> {
+        /** Current window, in query order. */
+        void onItems(List<T> items);
+
+        default void onError(Exception e) {
+        }
+    }
+
+    private final Query query;
+    private final String orderField;
+    private final Query.Direction direction;
+    private final Mapper<T> mapper;
+    private final Listener<T> listener;
+
+    // window = livePage (while attached) followed by the fetched pages
+    private final List<DocumentSnapshot> livePage = new ArrayList<>();
+    private final List<DocumentSnapshot> pages = new ArrayList<>();
+
+    @Nullable
+    private ListenerRegistration liveReg;
+    private boolean live = false;
+    private boolean stopped = false;
+    private boolean paused = false;
+    private boolean resumeLive = false;   // live page was attached when we paused
+    private boolean hasOlder = false;
+    private boolean loadingOlder = false;
+    private boolean loadingNewer = false;
+    private int maxWindow = MAX_WINDOW;
+    private int pageSize = PAGE_SIZE;
+
+    @Nullable
+    private RecyclerView recyclerView;
+    private final RecyclerView.OnScrollListener scrollListener = new RecyclerView.OnScrollListener() {
+        @Override
+        public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+            LinearLayoutManager lm = (LinearLayoutManager) rv.getLayoutManager();
+            if (lm == null) return;
+            int first = lm.findFirstVisibleItemPosition();
+            int last  = lm.findLastVisibleItemPosition();
+            if (first == RecyclerView.NO_POSITION) return;
+
+            if (dy > 0 && last >= size() - 1 - PREFETCH_DISTANCE) loadOlder();
+            if (dy < 0 && !live && first <= PREFETCH_DISTANCE) loadNewer();
+        }
+    };
+
+    /**
+     * @param base       filters only; ordering and limits are added here
+     * @param orderField field the list is sorted by, e.g. createdAt
+     */
+    public TicketPager(Query base,
+                       String orderField,
+                       Query.Direction direction,
+                       Mapper<T> mapper,
+                       Listener<T> listener) {
+        this.query = base.orderBy(orderField, direction);
+        this.orderField = orderField;
+        this.direction = direction;
+        this.mapper = mapper;
+        this.listener = listener;
+    }
+
+    /**
+     * Override the window cap. {@link MergedTicketFeed} passes
+     * Integer.MAX_VALUE: its chunks must slide together, so it bounds them
+     * with {@link #keepFirst(int)} and {@link #dropFirst(int)} instead.
+     */
+    public TicketPager<T> setMaxWindow(int maxWindow) {
+        this.maxWindow = maxWindow;
+        return this;
+    }
+
+    /** Rows per page, live page included (the dashboard feed uses a shorter one). */
+    public TicketPager<T> setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+        return this;
+    }
+
+    public boolean hasOlder() {
+        return hasOlder;
+    }
+
+    /** True while the live first page is attached, i.e. nothing newer is missing. */
+    public boolean isLive() {
+        return live;
+    }
+
+    public void attachTo(RecyclerView rv) {
+        recyclerView = rv;
+        rv.addOnScrollListener(scrollListener);
+    }
+
+    public void start() {
+        attachLive();
+    }
+
+    /**
+     * Screen went to the background: drop the live listener but keep the
+     * window, so coming back doesn't re-read the fetched pages.
+     */
+    public void pause() {
+        if (stopped || paused) return;
+        paused = true;
+        resumeLive = live;
+        detachLive();
+    }
+
+    public void resume() {
+        if (stopped || !paused) return;
+        paused = false;
+        if (resumeLive) attachLive();
+    }
+
+    /**
+     * Replace one row with a fresher snapshot (e.g. from a detail screen's
+     * listener, see {@link TicketCache}); a snapshot that doesn't exist
+     * removes the row. Rows not in the window are ignored.
+     */
+    public void patch(DocumentSnapshot doc) {
+        if (!doc.exists()) {
+            drop(doc.getId());
+            return;
+        }
+        if (stopped) return;
+        boolean changed = replaceIn(livePage, doc) | replaceIn(pages, doc);
+        if (changed) emit();
+    }
+
+    /**
+     * Keep only the first {@code n} rows of the window ({@link MergedTicketFeed}
+     * trims each chunk to what it shows). The live page is never cut; dropped
+     * rows come back through {@link #loadOlder()}. Doesn't call onItems.
+     *
+     * @return rows left in the window
+     */
+    public int keepFirst(int n) {
+        int keepPages = Math.max(0, n - livePage.size());
+        if (keepPages < pages.size()) {
+            pages.subList(keepPages, pages.size()).clear();
+            hasOlder = true;
+        }
+        return size();
+    }
+
+    /**
+     * Drop the first {@code n} rows of the window, detaching the live page
+     * since it is the head ({@link MergedTicketFeed} slides its chunks past a
+     * common cut). Dropped rows come back through {@link #loadNewer()}.
+     * Doesn't call onItems.
+     *
+     * @return rows left in the window
+     */
+    public int dropFirst(int n) {
+        if (n <= 0) return size();
+        if (live) {
+            pages.addAll(0, livePage);
+            livePage.clear();
+            detachLive();
+        }
+        resumeLive = false;
+        pages.subList(0, Math.min(n, pages.size())).clear();
+        return size();
+    }
+
+    /** Map the window again (the mapper's output changed, e.g. a pending status). */
+    public void remap() {
+        if (!stopped) emit();
+    }
+
+    /** Remove one row (deleted, or no longer matching the list's filter). */
+    public void drop(String id) {
+        if (stopped) return;
+        boolean changed = livePage.removeIf(d -> d.getId().equals(id))
+                | pages.removeIf(d -> d.getId().equals(id));
+        if (changed) emit();
+    }
+
+    public void stop() {
+        stopped = true;
+        detachLive();
+        if (recyclerView != null) {
+            recyclerView.removeOnScrollListener(scrollListener);
+            recyclerView = null;
+        }
+    }
+
+    // ─────────────────────────────────────────────
+    //  Live first page
+    // ─────────────────────────────────────────────
+
+    private void attachLive() {
+        if (liveReg != null) return;
+        live = true;
+        boolean[] first = {true};
+        boolean[] sizing = {false};   // hasOlder still follows the live page
+
+        liveReg = query.limit(pageSize).addSnapshotListener((qs, e) -> {
+            if (e != null) {
+                Log.e(TAG, "Live page listen failed", e);
+                listener.onError(e);
+                return;
+            }
+            if (qs == null) return;
+
+            if (first[0]) {
+                first[0] = false;
+                // re-attaching (resume): tickets created meanwhile may have pushed
+                // the old live rows below the new page; they stay as history, and
+                // the id dedupe below drops the ones still in the live page
+                pages.addAll(0, livePage);
+                sizing[0] = pages.isEmpty();
+            } else {
+                keepSlidOutRows(qs);
+            }
+
+            // a page from the cache can be short only because the cache is;
+            // keep deciding until a snapshot comes from the server
+            if (sizing[0]) {
+                if (pages.isEmpty()) hasOlder = qs.size() >= pageSize;
+                if (!qs.getMetadata().isFromCache()) sizing[0] = false;
+            }
+
+            livePage.clear();
+            livePage.addAll(qs.getDocuments());
+
+            // a row can move up into the live page (delete above it, or the
+            // page re-attaching after paging back up); never show it twice
+            Set<String> ids = idsOf(livePage);
+            pages.removeIf(d -> ids.contains(d.getId()));
+            emit();
+        });
+    }
+
+    /**
+     * A new ticket pushes the oldest row out of the limited live page. That
+     * row is still history, so it moves to the head of the fetched pages
+     * instead of disappearing. Rows removed from further up were deleted (or
+     * no longer match) and are dropped.
+     */
+    private void keepSlidOutRows(QuerySnapshot qs) {
+        List<DocumentSnapshot> docs = qs.getDocuments();
+        if (docs.size() < pageSize) return;
+        DocumentSnapshot lastLive = docs.get(docs.size() - 1);
+
+        int insertAt = 0;
+        for (DocumentChange dc : qs.getDocumentChanges()) {
+            if (dc.getType() != DocumentChange.Type.REMOVED) continue;
+            if (!isAfter(dc.getDocument(), lastLive)) continue;
+            pages.add(insertAt++, dc.getDocument());
+            hasOlder = true;
+        }
+    }
+
+    /** True if {@code a} sorts after (or level with) {@code b} in this query's order. */
+    @SuppressWarnings("unchecked")
+    private boolean isAfter(DocumentSnapshot a, DocumentSnapshot b) {
+        Object va = a.get(orderField);
+        Object vb = b.get(orderField);
+        if (!(va instanceof Comparable) || vb == null) return false;
+        int c = ((Comparable<Object>) va).compareTo(vb);
+        return direction == Query.Direction.DESCENDING ? c <= 0 : c >= 0;
+    }
+
+    private void detachLive() {
+        if (liveReg != null) {
+            liveReg.remove();
+            liveReg = null;
+        }
+        live = false;
+    }
+
+    // ─────────────────────────────────────────────
+    //  Older / newer pages
+    // ─────────────────────────────────────────────
+
+    /** Fetch the next older page (no-op while one is loading or at the end). */
+    public void loadOlder() {
+        DocumentSnapshot last = lastSnapshot();
+        if (loadingOlder || !hasOlder || last == null) return;
+        loadingOlder = true;
+
+        query.startAfter(last)
+                .limit(pageSize)
+                .get()
+                .addOnSuccessListener(qs -> {
+                    loadingOlder = false;
+                    if (stopped) return;
+
+                    pages.addAll(qs.getDocuments());
+                    hasOlder = qs.size() >= pageSize;
+                    trimHead();
+                    emit();
+                })
+                .addOnFailureListener(e -> {
+                    loadingOlder = false;
+                    Log.e(TAG, "Loading older page failed", e);
+                });
+    }
+
+    /** Fetch the page before the window (no-op while live or already loading). */
+    public void loadNewer() {
+        if (loadingNewer || live || pages.isEmpty()) return;
+        loadingNewer = true;
+
+        query.endBefore(pages.get(0))
+                .limitToLast(pageSize)
+                .get()
+                .addOnSuccessListener(qs -> {
+                    loadingNewer = false;
+                    if (stopped) return;
+
+                    pages.addAll(0, qs.getDocuments());
+                    trimTail();
+
+                    // back at the top → the live page takes over from here
+                    if (qs.size() < pageSize && !paused) {
+                        attachLive();
+                    } else {
+                        if (qs.size() < pageSize) resumeLive = true;
+                        emit();
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    loadingNewer = false;
+                    Log.e(TAG, "Loading newer page failed", e);
+                });
+    }
+
+    /** Window too big after scrolling down: drop the newest rows. */
+    private void trimHead() {
+        if (size() <= maxWindow) return;
+        if (live) {
+            // the live page is the head of the window; dropping from it means detaching
+            pages.addAll(0, livePage);
+            livePage.clear();
+            detachLive();
+        }
+        int extra = pages.size() - maxWindow;
+        if (extra > 0) pages.subList(0, extra).clear();
+    }
+
+    /** Window too big after scrolling up: drop the oldest rows. */
+    private void trimTail() {
+        int extra = size() - maxWindow;
+        if (extra <= 0) return;
+        pages.subList(pages.size() - extra, pages.size()).clear();
+        hasOlder = true;
+    }
+
+    // ─────────────────────────────────────────────
+    //  Helpers
+    // ─────────────────────────────────────────────
+
+    private int size() {
+        return livePage.size() + pages.size();
+    }
+
+    @Nullable
+    private DocumentSnapshot lastSnapshot() {
+        if (!pages.isEmpty()) return pages.get(pages.size() - 1);
+        if (!livePage.isEmpty()) return livePage.get(livePage.size() - 1);
+        return null;
+    }
+
+    /**
+     * Hands the window to the listener. Rows added or dropped above the
+     * viewport keep the visible rows in place as long as the adapter diffs
+     * (ListAdapter) instead of calling notifyDataSetChanged().
+     */
+    private void emit() {
+        List<T> items = new ArrayList<>(size());
+        for (DocumentSnapshot d : livePage) addMapped(items, d);
+        for (DocumentSnapshot d : pages) addMapped(items, d);
+        listener.onItems(items);
+    }
+
+    private void addMapped(List<T> out, DocumentSnapshot d) {
+        T item = mapper.map(d);
+        if (item != null) out.add(item);
+    }
+
+    private static boolean replaceIn(List<DocumentSnapshot> docs, DocumentSnapshot doc) {
+        for (int i = 0; i < docs.size(); i++) {
+            if (!docs.get(i).getId().equals(doc.getId())) continue;
+            docs.set(i, doc);
+            return true;
+        }
+        return false;
+    }
+
+    private static Set<String> idsOf(List<DocumentSnapshot> docs) {
+        Set<String> ids = new HashSet<>();
+        for (DocumentSnapshot d : docs) ids.add(d.getId());
+        return ids;
+    }
+}
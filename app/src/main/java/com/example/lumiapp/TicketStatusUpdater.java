@@ -0,0 +1,145 @@
+package com.example.lumiapp;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Ticket status changes (complaints, fix requests) as compare-and-set
+ * transactions.
+ *
+ * The change shows right away: it is set as a pending status in
+ * {@link TicketCache}, which the lists and the detail screen apply on top
+ * of what they have. The transaction then checks the ticket still has the
+ * status and statusVersion the user was looking at; only then it writes the
+ * new status with statusVersion + 1, appends a statusHistory/{id} entry and
+ * the dashboard activity entry, all in one commit. If someone else changed
+ * the ticket first nothing is written and the pending status is rolled back.
+ */
+public final class TicketStatusUpdater {
+
+    private static final String TAG = "TicketStatusUpdater";
+
+    public interface Callback {
+        void onUpdated();
+
+        /**
+         * The ticket changed since it was shown; nothing was written.
+         * {@code currentStatus} is null if it was deleted.
+         */
+        void onConflict(@Nullable String currentStatus);
+
+        /** Not committed (offline, permissions); nothing was written. */
+        void onFailed(Exception e);
+    }
+
+    private TicketStatusUpdater() {
+    }
+
+    public static void update(Context context, Complaint c, String newStatus, Callback callback) {
+        update(context, TicketCache.COMPLAINTS, ActivityLog.TYPE_COMPLAINT_STATUS,
+                c.id, c.status, c.statusVersion, newStatus,
+                c.propertyId, c.createdById, c.roomNumber, callback);
+    }
+
+    public static void update(Context context, FixRequest f, String newStatus, Callback callback) {
+        update(context, TicketCache.FIX_REQUESTS, ActivityLog.TYPE_FIX_REQUEST_STATUS,
+                f.id, f.status, f.statusVersion, newStatus,
+                f.propertyId, f.createdById, f.roomNumber, callback);
+    }
+
+    private static void update(Context context,
+                               String collection,
+                               String activityType,
+                               String id,
+                               @Nullable String expectedStatus,
+                               long expectedVersion,
+                               String newStatus,
+                               @Nullable String propertyId,
+                               @Nullable String createdById,
+                               @Nullable String roomNumber,
+                               Callback callback) {
+        Context app = context.getApplicationContext();
+        FirebaseFirestore db = FirebaseFirestore.getInstance();
+        DocumentReference ref = db.collection(collection).document(id);
+        String expected = normalize(expectedStatus);
+        long nextVersion = expectedVersion + 1;
+
+        UserSession session = UserSession.get();
+        String uid = session.getUid();
+        String name = session.getName();
+
+        // 🔹 optimistic: lists + detail show the new status from here on
+        TicketCache.get().setPendingStatus(collection, id, newStatus, nextVersion);
+
+        db.runTransaction(tx -> {
+            DocumentSnapshot current = tx.get(ref);
+            if (!current.exists()) return Conflict.DELETED;
+
+            String status = normalize(current.getString("status"));
+            Long v = current.getLong("statusVersion");
+            long version = v != null ? v : 0L;
+            if (!status.equals(expected) || version != expectedVersion) {
+                return new Conflict(status);
+            }
+
+            Map<String, Object> update = new HashMap<>();
+            update.put("status", newStatus);
+            update.put("statusVersion", nextVersion);
+            tx.update(ref, update);
+
+            Map<String, Object> history = new HashMap<>();
+            history.put("from", status);
+            history.put("to", newStatus);
+            history.put("version", nextVersion);
+            history.put("changedById", uid);
+            history.put("changedByName", name);
+            history.put("changedAt", FieldValue.serverTimestamp());
+            tx.set(ref.collection("statusHistory").document(), history);
+
+            ActivityLog.addTo(tx, ActivityLog.entry(propertyId, activityType, id,
+                    uid, name, roomNumber, newStatus));
+            return Conflict.NONE;
+        }).addOnSuccessListener(conflict -> {
+            if (conflict != Conflict.NONE) {
+                TicketCache.get().clearPendingStatus(collection, id);
+                callback.onConflict(conflict.currentStatus);
+                return;
+            }
+            // the pending status stays until a snapshot at nextVersion replaces it
+            TicketCounter.get(app).invalidateTicket(collection, propertyId, createdById);
+            callback.onUpdated();
+        }).addOnFailureListener(e -> {
+            Log.e(TAG, "Status update failed for " + ref.getPath(), e);
+            TicketCache.get().clearPendingStatus(collection, id);
+            callback.onFailed(e);
+        });
+    }
+
+    /** Tickets without a status are treated as open everywhere else, too. */
+    private static String normalize(@Nullable String status) {
+        return status != null ? status : "open";
+    }
+
+    /** Transaction result: what the ticket was when the check failed. */
+    private static final class Conflict {
+        static final Conflict NONE = new Conflict("");
+        static final Conflict DELETED = new Conflict(null);
+
+        @Nullable
+        final String currentStatus;
+
+        Conflict(@Nullable String currentStatus) {
+            this.currentStatus = currentStatus;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.lumiapp;
+
+import android.view.View;
+import android.widget.TextView;
+
+/**
+ * Message tab badge for both dashboard containers: users/{uid}.unreadTotal,
+ * read from {@link UserSession}'s listener on that doc (no listener of its
+ * own). The chat writes keep the counter current.
+ */
+public final class UnreadBadge implements UserSession.Listener {
+
+    private final TextView badge;
+
+    public UnreadBadge(TextView badge) {
+        this.badge = badge;
+    }
+
+    public void start() {
+        UserSession session = UserSession.get();
+        session.whenReady(this::onChanged);
+        session.addListener(this);
+    }
+
+    public void stop() {
+        UserSession.get().removeListener(this);
+    }
+
+    @Override
+    public void onChanged(UserSession session) {
+        long unread = session.getUnreadTotal();
+        if (unread > 0) {
+            badge.setVisibility(View.VISIBLE);
+            badge.setText(unread > 99 ? "99+" : String.valueOf(unread));
+        } else {
+            badge.setVisibility(View.GONE);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.lumiapp;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+
+/**
+ * The few users/{uid} fields other screens need to show a person:
+ * name + avatar for chats, phone/email for contacts.
+ */
+public class UserProfile {
+    public String id;
+    public String name;
+    public String profileImageUrl;
+    public String phone;
+    public String email;
+    public String userType;       // "manager" | "renter"
+    public long fetchedAt;        // millis, used by the disk cache
+
+    public UserProfile() {
+    }
+
+    public static UserProfile fromDoc(DocumentSnapshot doc) {
+        UserProfile p = new UserProfile();
+        p.id              = doc.getId();
+        p.name            = doc.getString("name");
+        p.profileImageUrl = doc.getString("profileImageUrl");
+        p.phone           = doc.getString("phone");
+        p.email           = doc.getString("email");
+        p.userType        = doc.getString("userType");
+        p.fetchedAt       = System.currentTimeMillis();
+        return p;
+    }
+}
@@ -0,0 +1,323 @@
+package com.example.lumiapp;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.text.TextUtils;
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Process-wide cache for users/{uid} profiles (name, avatar, contact info).
+ *
+ * Lookups go memory (LRU) → disk (SharedPreferences) → Firestore. Missing ids
+ * are fetched together with whereIn, and an id that is already being fetched
+ * is never requested twice. Screens that keep a profile on screen can
+ * {@link #observe} it; the snapshot listener keeps the cache current.
+ *
+ * The disk tier is bounded: every {@link #PRUNE_EVERY} writes, profiles
+ * older than {@link #DISK_MAX_AGE_MS} are dropped, then the oldest ones
+ * until at most {@link #DISK_ENTRIES} remain.
+ *
+ * All callbacks run on the main thread.
+ */
+public class UserProfileRepository {
+
+    private static final String TAG = "UserProfiles";
+
+    private static final String PREFS = "user_profile_cache";
+    private static final int MEMORY_ENTRIES = 300;
+    private static final long DISK_TTL_MS = 24 * 60 * 60 * 1000L;  // refetch after a day
+    private static final long DISK_MAX_AGE_MS = 30 * DISK_TTL_MS;   // too old to even show while refetching
+    private static final int DISK_ENTRIES = 500;
+    private static final int PRUNE_EVERY = 50;
+
+    public interface Callback {
+        void onLoaded(@Nullable UserProfile profile);
+    }
+
+    public interface BatchCallback {
+        void onLoaded(@NonNull Map<String, UserProfile> profiles);
+    }
+
+    private static UserProfileRepository instance;
+
+    public static synchronized UserProfileRepository get(Context context) {
+        if (instance == null) {
+            instance = new UserProfileRepository(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private final FirebaseFirestore db = FirebaseFirestore.getInstance();
+    private final SharedPreferences disk;
+    private final LruCache<String, UserProfile> memory = new LruCache<>(MEMORY_ENTRIES);
+
+    // uid → callbacks waiting for the fetch that's already running
+    private final Map<String, List<Callback>> inFlight = new HashMap<>();
+
+    // shared snapshot listeners, ref-counted per uid
+    private final Map<String, ListenerRegistration> watchers = new HashMap<>();
+    private final Map<String, List<Callback>> observers = new HashMap<>();
+
+    private int writesSincePrune = PRUNE_EVERY;   // first write of the process prunes
+
+    private UserProfileRepository(Context context) {
+        disk = context.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+    }
+
+    // ─────────────────────────────────────────────
+    //  Reads
+    // ─────────────────────────────────────────────
+
+    /** Cached profile if we have one (memory or disk), without touching the network. */
+    @Nullable
+    public UserProfile peek(String uid) {
+        if (TextUtils.isEmpty(uid)) return null;
+
+        UserProfile p = memory.get(uid);
+        if (p != null) return p;
+
+        p = readDisk(uid);
+        if (p != null) memory.put(uid, p);
+        return p;
+    }
+
+    public void get(String uid, Callback callback) {
+        List<String> one = new ArrayList<>();
+        one.add(uid);
+        getAll(one, profiles -> callback.onLoaded(profiles.get(uid)));
+    }
+
+    /**
+     * Resolve many profiles at once. Cached ones are served immediately, the
+     * rest go through {@link BatchedDocumentLoader}. Ids that don't exist are left out
+     * of the result map.
+     */
+    public void getAll(Collection<String> uids, BatchCallback callback) {
+        Map<String, UserProfile> result = new HashMap<>();
+        Set<String> waitingFor = new LinkedHashSet<>();
+        List<String> toFetch = new ArrayList<>();
+
+        for (String uid : new LinkedHashSet<>(uids)) {
+            if (TextUtils.isEmpty(uid)) continue;
+
+            UserProfile cached = peek(uid);
+            if (cached != null) {
+                result.put(uid, cached);
+                // stale on disk → still serve it, refresh quietly
+                if (isStale(cached) && !inFlight.containsKey(uid)) {
+                    inFlight.put(uid, new ArrayList<>());
+                    toFetch.add(uid);
+                }
+                continue;
+            }
+
+            waitingFor.add(uid);
+            if (!inFlight.containsKey(uid)) {
+                inFlight.put(uid, new ArrayList<>());
+                toFetch.add(uid);
+            }
+        }
+
+        if (waitingFor.isEmpty()) {
+            callback.onLoaded(result);
+        } else {
+            int[] remaining = {waitingFor.size()};
+            for (String uid : waitingFor) {
+                inFlight.get(uid).add(profile -> {
+                    if (profile != null) result.put(uid, profile);
+                    if (--remaining[0] == 0) callback.onLoaded(result);
+                });
+            }
+        }
+
+        fetch(toFetch);
+    }
+
+    private void fetch(List<String> uids) {
+        if (uids.isEmpty()) return;
+
+        BatchedDocumentLoader.load(db.collection("users"), uids, result -> {
+            for (DocumentSnapshot doc : result.documents) {
+                UserProfile p = UserProfile.fromDoc(doc);
+                store(p);
+                resolve(p.id, p);
+            }
+            for (String uid : result.missingIds) resolve(uid, null);
+
+            // failed chunk → fall back to whatever we had cached
+            if (result.isPartial()) Log.e(TAG, "Profile fetch failed for " + result.failedIds.size() + " users");
+            for (String uid : result.failedIds) resolve(uid, peek(uid));
+        });
+    }
+
+    private void resolve(String uid, @Nullable UserProfile profile) {
+        List<Callback> waiting = inFlight.remove(uid);
+        if (waiting == null) return;
+        for (Callback cb : waiting) cb.onLoaded(profile);
+    }
+
+    // ─────────────────────────────────────────────
+    //  Live updates
+    // ─────────────────────────────────────────────
+
+    /**
+     * Deliver the cached profile now and again whenever users/{uid} changes,
+     * until {@code owner} is destroyed.
+     */
+    public void observe(LifecycleOwner owner, String uid, Callback callback) {
+        if (TextUtils.isEmpty(uid)) return;
+        if (owner.getLifecycle().getCurrentState() == Lifecycle.State.DESTROYED) return;
+
+        UserProfile cached = peek(uid);
+        if (cached != null) callback.onLoaded(cached);
+
+        List<Callback> list = observers.get(uid);
+        if (list == null) {
+            list = new ArrayList<>();
+            observers.put(uid, list);
+        }
+        list.add(callback);
+
+        if (!watchers.containsKey(uid)) {
+            watchers.put(uid, db.collection("users").document(uid)
+                    .addSnapshotListener((snap, e) -> {
+                        if (e != null || snap == null || !snap.exists()) return;
+                        UserProfile p = UserProfile.fromDoc(snap);
+                        store(p);
+                        List<Callback> current = observers.get(uid);
+                        if (current == null) return;
+                        for (Callback cb : new ArrayList<>(current)) cb.onLoaded(p);
+                    }));
+        }
+
+        owner.getLifecycle().addObserver((LifecycleEventObserver) (source, event) -> {
+            if (event == Lifecycle.Event.ON_DESTROY) stopObserving(uid, callback);
+        });
+    }
+
+    private void stopObserving(String uid, Callback callback) {
+        List<Callback> list = observers.get(uid);
+        if (list == null) return;
+        list.remove(callback);
+        if (list.isEmpty()) {
+            observers.remove(uid);
+            ListenerRegistration reg = watchers.remove(uid);
+            if (reg != null) reg.remove();
+        }
+    }
+
+    /** Forget a profile, e.g. after the current user edits their own. */
+    public void invalidate(String uid) {
+        memory.remove(uid);
+        disk.edit().remove(uid).apply();
+    }
+
+    // ─────────────────────────────────────────────
+    //  Storage
+    // ─────────────────────────────────────────────
+
+    private void store(UserProfile p) {
+        memory.put(p.id, p);
+        try {
+            JSONObject json = new JSONObject();
+            json.put("name", p.name);
+            json.put("profileImageUrl", p.profileImageUrl);
+            json.put("phone", p.phone);
+            json.put("email", p.email);
+            json.put("userType", p.userType);
+            json.put("fetchedAt", p.fetchedAt);
+            disk.edit().putString(p.id, json.toString()).apply();
+        } catch (JSONException e) {
+            Log.w(TAG, "Could not persist profile " + p.id, e);
+        }
+
+        if (++writesSincePrune >= PRUNE_EVERY) {
+            writesSincePrune = 0;
+            pruneDisk();
+        }
+    }
+
+    /** Drop expired profiles, then the least recently fetched beyond {@link #DISK_ENTRIES}. */
+    private void pruneDisk() {
+        long now = System.currentTimeMillis();
+        List<Map.Entry<String, Long>> kept = new ArrayList<>();
+        SharedPreferences.Editor edit = disk.edit();
+        boolean changed = false;
+
+        for (Map.Entry<String, ?> e : disk.getAll().entrySet()) {
+            long fetchedAt = 0L;
+            if (e.getValue() instanceof String) {
+                try {
+                    fetchedAt = new JSONObject((String) e.getValue()).optLong("fetchedAt", 0L);
+                } catch (JSONException ignored) {
+                    // unreadable → fetchedAt 0, dropped below
+                }
+            }
+            if (now - fetchedAt > DISK_MAX_AGE_MS) {
+                edit.remove(e.getKey());
+                changed = true;
+            } else {
+                kept.add(new AbstractMap.SimpleEntry<>(e.getKey(), fetchedAt));
+            }
+        }
+
+        if (kept.size() > DISK_ENTRIES) {
+            Collections.sort(kept, (a, b) -> Long.compare(b.getValue(), a.getValue()));
+            for (Map.Entry<String, Long> e : kept.subList(DISK_ENTRIES, kept.size())) {
+                edit.remove(e.getKey());
+            }
+            changed = true;
+        }
+
+        if (changed) edit.apply();
+    }
+
+    @Nullable
+    private UserProfile readDisk(String uid) {
+        String raw = disk.getString(uid, null);
+        if (raw == null) return null;
+        try {
+            JSONObject json = new JSONObject(raw);
+            UserProfile p = new UserProfile();
+            p.id              = uid;
+            p.name            = json.optString("name", null);
+            p.profileImageUrl = json.optString("profileImageUrl", null);
+            p.phone           = json.optString("phone", null);
+            p.email           = json.optString("email", null);
+            p.userType        = json.optString("userType", null);
+            p.fetchedAt       = json.optLong("fetchedAt", 0L);
+            return p;
+        } catch (JSONException e) {
+            disk.edit().remove(uid).apply();
+            return null;
+        }
+    }
+
+    private static boolean isStale(UserProfile p) {
+        return System.currentTimeMillis() - p.fetchedAt > DISK_TTL_MS;
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.lumiapp;
+
+import android.text.TextUtils;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The signed-in user's own users/{uid} and renters/{uid} docs, loaded once
+ * per sign-in and kept current by one snapshot listener each.
+ *
+ * Screens ask for role, name, managerOf, activePropertyId, renter property
+ * etc. here instead of fetching the docs again. Once the first snapshots
+ * are in, {@link #whenReady} answers synchronously.
+ *
+ * Both docs are listened to in parallel (a manager's renters doc simply
+ * doesn't exist). All callbacks run on the main thread.
+ */
+public final class UserSession {
+
+    private static final String TAG = "UserSession";
+
+    public interface Callback {
+        /** {@link #getUser()} is null if the profile couldn't be loaded. */
+        void onReady(UserSession session);
+    }
+
+    public interface Listener {
+        void onChanged(UserSession session);
+    }
+
+    private static UserSession instance;
+
+    public static synchronized UserSession get() {
+        if (instance == null) instance = new UserSession();
+        return instance;
+    }
+
+    private final FirebaseFirestore db = FirebaseFirestore.getInstance();
+    private final FirebaseAuth auth = FirebaseAuth.getInstance();
+
+    @Nullable private String uid;
+    @Nullable private DocumentSnapshot user;
+    @Nullable private DocumentSnapshot renter;
+    private boolean userLoaded, renterLoaded;
+    @Nullable private Exception error;
+
+    @Nullable private ListenerRegistration userReg, renterReg;
+
+    private final List<Callback> waiting = new ArrayList<>();
+    private final List<Listener> listeners = new ArrayList<>();
+
+    private UserSession() {
+    }
+
+    /** Follow sign-in / sign-out; called once from {@link LumiApplication}. */
+    public void start() {
+        auth.addAuthStateListener(a -> {
+            FirebaseUser u = a.getCurrentUser();
+            attach(u != null ? u.getUid() : null);
+        });
+    }
+
+    // ─────────────────────────────────────────────
+    //  Access
+    // ─────────────────────────────────────────────
+
+    /**
+     * Run {@code callback} once the session for the current user is loaded;
+     * immediately if it already is.
+     */
+    public void whenReady(Callback callback) {
+        FirebaseUser u = auth.getCurrentUser();
+        attach(u != null ? u.getUid() : null);
+
+        if (isReady()) {
+            callback.onReady(this);
+        } else {
+            waiting.add(callback);
+        }
+    }
+
+    /** Called whenever either doc changes while the session is loaded. */
+    public void addListener(Listener l) {
+        if (!listeners.contains(l)) listeners.add(l);
+    }
+
+    public void removeListener(Listener l) {
+        listeners.remove(l);
+    }
+
+    public boolean isReady() {
+        return uid != null && userLoaded && renterLoaded;
+    }
+
+    @Nullable
+    public String getUid() {
+        return uid;
+    }
+
+    @Nullable
+    public Exception getError() {
+        return error;
+    }
+
+    /** users/{uid}, or null before the first load / if it failed or doesn't exist. */
+    @Nullable
+    public DocumentSnapshot getUser() {
+        return user != null && user.exists() ? user : null;
+    }
+
+    /** renters/{uid}, or null for managers and renters without setup. */
+    @Nullable
+    public DocumentSnapshot getRenter() {
+        return renter != null && renter.exists() ? renter : null;
+    }
+
+    /** "manager", "renter", or null if no role was picked yet. */
+    @Nullable
+    public String getUserType() {
+        DocumentSnapshot u = getUser();
+        return u != null ? u.getString("userType") : null;
+    }
+
+    public boolean isManager() {
+        return "manager".equalsIgnoreCase(getUserType());
+    }
+
+    @Nullable
+    public String getName() {
+        DocumentSnapshot u = getUser();
+        return u != null ? u.getString("name") : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<String> getManagerOf() {
+        DocumentSnapshot u = getUser();
+        Object v = u != null ? u.get("managerOf") : null;
+        return v instanceof List ? (List<String>) v : Collections.emptyList();
+    }
+
+    @Nullable
+    public String getActivePropertyId() {
+        DocumentSnapshot u = getUser();
+        String id = u != null ? u.getString("activePropertyId") : null;
+        return TextUtils.isEmpty(id) ? null : id;
+    }
+
+    @Nullable
+    public String getActivePropertyImageUrl() {
+        DocumentSnapshot u = getUser();
+        return u != null ? u.getString("activePropertyImageUrl") : null;
+    }
+
+    /** Unread messages across all conversations (users/{uid}.unreadTotal). */
+    public long getUnreadTotal() {
+        DocumentSnapshot u = getUser();
+        Long v = u != null ? u.getLong("unreadTotal") : null;
+        return v != null ? v : 0L;
+    }
+
+    /** The property a renter lives in (renters/{uid}.propertyId). */
+    @Nullable
+    public String getRenterPropertyId() {
+        DocumentSnapshot r = getRenter();
+        String id = r != null ? r.getString("propertyId") : null;
+        return TextUtils.isEmpty(id) ? null : id;
+    }
+
+    // ─────────────────────────────────────────────
+    //  Listening
+    // ─────────────────────────────────────────────
+
+    private void attach(@Nullable String newUid) {
+        boolean same = newUid != null ? newUid.equals(uid) : uid == null;
+        // a failed listener is dead; the next caller gets a fresh attempt
+        if (same && (newUid == null || userReg != null)) return;
+
+        detach();
+        uid = newUid;
+        if (newUid == null) return;
+
+        userReg = db.collection("users").document(newUid)
+                .addSnapshotListener((snap, e) -> {
+                    if (!newUid.equals(uid)) return;
+                    if (e != null) {
+                        fail(e);
+                        return;
+                    }
+                    user = snap;
+                    userLoaded = true;
+                    dispatch();
+                });
+
+        renterReg = db.collection("renters").document(newUid)
+                .addSnapshotListener((snap, e) -> {
+                    if (!newUid.equals(uid)) return;
+                    if (e != null) {
+                        // renter details are optional for every screen
+                        Log.w(TAG, "renters/" + newUid + " listen failed", e);
+                        renter = null;
+                    } else {
+                        renter = snap;
+                    }
+                    renterLoaded = true;
+                    dispatch();
+                });
+    }
+
+    private void detach() {
+        if (userReg != null)   userReg.remove();
+        if (renterReg != null) renterReg.remove();
+        userReg = renterReg = null;
+        user = renter = null;
+        userLoaded = renterLoaded = false;
+        error = null;
+    }
+
+    private void fail(Exception e) {
+        Log.e(TAG, "users/" + uid + " listen failed", e);
+        String failedUid = uid;
+        detach();
+        uid = failedUid;
+        error = e;
+        // waiters still get an answer (with no profile) so screens can fall back
+        userLoaded = renterLoaded = true;
+        dispatch();
+    }
+
+    private void dispatch() {
+        if (!isReady()) return;
+
+        if (!waiting.isEmpty()) {
+            List<Callback> ready = new ArrayList<>(waiting);
+            waiting.clear();
+            for (Callback c : ready) c.onReady(this);
+        }
+        for (Listener l : new ArrayList<>(listeners)) l.onChanged(this);
+    }
+}
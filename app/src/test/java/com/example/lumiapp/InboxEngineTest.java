@@ -0,0 +1,130 @@
+package com.example.lumiapp;
+
+import com.google.firebase.Timestamp;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Ordering of the inbox: newest first, ties by conversation id, rows without
+ * a timestamp at the bottom, and rows that only slid out of the live page.
+ */
+public class InboxEngineTest {
+
+    private InboxEngine engine;
+
+    @Before
+    public void setUp() {
+        engine = new InboxEngine("me", items -> { });
+    }
+
+    @Test
+    public void newestFirst() {
+        engine.put(item("a", 10));
+        engine.put(item("b", 30));
+        engine.put(item("c", 20));
+
+        assertEquals(ids("b", "c", "a"), ids(engine.getItems()));
+    }
+
+    @Test
+    public void tiesAreOrderedById() {
+        engine.put(item("c", 10));
+        engine.put(item("a", 10));
+        engine.put(item("b", 10));
+
+        assertEquals(ids("a", "b", "c"), ids(engine.getItems()));
+    }
+
+    @Test
+    public void missingTimestampSinksToTheBottom() {
+        engine.put(item("z", null));
+        engine.put(item("a", 10));
+        engine.put(item("y", null));
+
+        assertEquals(ids("a", "y", "z"), ids(engine.getItems()));
+    }
+
+    @Test
+    public void newMessageMovesRowToTop() {
+        engine.put(item("a", 10));
+        engine.put(item("b", 20));
+        engine.put(item("c", 30));
+
+        assertTrue(engine.put(item("a", 40)));
+        assertEquals(ids("a", "c", "b"), ids(engine.getItems()));
+    }
+
+    @Test
+    public void tiedRowsCanBeReplacedAndRemoved() {
+        engine.put(item("a", 10));
+        engine.put(item("b", 10));
+        engine.put(item("c", 10));
+
+        ConversationItem unread = item("b", 10);
+        unread.setUnreadCount(3);
+        assertTrue(engine.put(unread));
+        assertFalse(engine.put(unread.copy()));
+        assertEquals(3, engine.get("b").getUnreadCount());
+
+        assertTrue(engine.remove("b"));
+        assertFalse(engine.remove("b"));
+        assertEquals(ids("a", "c"), ids(engine.getItems()));
+    }
+
+    @Test
+    public void replacementKeepsResolvedProfile() {
+        ConversationItem first = item("a", 10);
+        first.setOtherUserName("Dana");
+        engine.put(first);
+
+        engine.put(item("a", 20));
+
+        assertEquals("Dana", engine.get("a").getOtherUserName());
+    }
+
+    @Test
+    public void removedFromFullPageOnlySlidOut() {
+        // the page is full and the removed row is older than its last row
+        assertTrue(InboxEngine.slidOut(ts(5), ts(10), 20, 20));
+        // same time as the last row: the tie went the other way
+        assertTrue(InboxEngine.slidOut(ts(10), ts(10), 20, 20));
+        // no timestamp to compare: keep the row
+        assertTrue(InboxEngine.slidOut(null, ts(10), 20, 20));
+    }
+
+    @Test
+    public void removedFromShortPageOrNewerIsARealRemoval() {
+        assertFalse(InboxEngine.slidOut(ts(5), ts(10), 19, 20));
+        assertFalse(InboxEngine.slidOut(ts(15), ts(10), 20, 20));
+    }
+
+    // ─────────────────────────────────────────────
+    //  Helpers
+    // ─────────────────────────────────────────────
+
+    private static ConversationItem item(String id, Integer seconds) {
+        return new ConversationItem(id, "other-" + id, null, null, "hi",
+                seconds != null ? ts(seconds) : null);
+    }
+
+    private static Timestamp ts(long seconds) {
+        return new Timestamp(seconds, 0);
+    }
+
+    private static List<String> ids(String... ids) {
+        return Arrays.asList(ids);
+    }
+
+    private static List<String> ids(List<ConversationItem> items) {
+        List<String> list = new ArrayList<>();
+        for (ConversationItem i : items) list.add(i.getConversationId());
+        return list;
+    }
+}
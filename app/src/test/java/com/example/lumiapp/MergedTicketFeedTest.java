@@ -0,0 +1,286 @@
+package com.example.lumiapp;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * The k-way merge behind {@link MergedTicketFeed}: Firestore's order with
+ * ties by id, holding rows back while a chunk that hasn't reached them
+ * could still have something that sorts first, and sliding the window past
+ * {@link TicketPager#MAX_WINDOW} rows.
+ */
+public class MergedTicketFeedTest {
+
+    /** Newest first, like the ticket lists (orderBy createdAt DESCENDING). */
+    private static final Comparator<Row> NEWEST_FIRST =
+            (a, b) -> MergedTicketFeed.compareKeys(a.key, b.key, a.id, b.id, true);
+
+    @Test
+    public void tiesAreOrderedByIdInTheQueryDirection() {
+        assertTrue(MergedTicketFeed.compareKeys(5L, 5L, "a", "b", false) < 0);
+        assertTrue(MergedTicketFeed.compareKeys(5L, 5L, "a", "b", true) > 0);
+        assertTrue(MergedTicketFeed.compareKeys(5L, 5L, "a", "a", true) == 0);
+    }
+
+    @Test
+    public void missingValueSortsFirstAscendingAndLastDescending() {
+        assertTrue(MergedTicketFeed.compareKeys(null, 5L, "a", "b", false) < 0);
+        assertTrue(MergedTicketFeed.compareKeys(null, 5L, "a", "b", true) > 0);
+    }
+
+    @Test
+    public void mergesFinishedLanesWithTiesAcrossLanes() {
+        Lane a = new Lane(false, row("a1", 9), row("a3", 5), row("a2", 5));
+        Lane b = new Lane(false, row("b1", 9), row("b2", 7), row("b3", 5));
+
+        List<Row> out = merge(Arrays.asList(a, b), Integer.MAX_VALUE, new int[2]);
+
+        // equal keys come out by id, descending like the key
+        assertEquals(ids("b1", "a1", "b2", "b3", "a3", "a2"), ids(out));
+    }
+
+    @Test
+    public void holdsBackRowsPastAnOpenLane() {
+        Lane done = new Lane(false, row("d9", 9), row("d7", 7), row("d5", 5), row("d3", 3), row("d1", 1));
+        Lane open = new Lane(true, row("o8", 8), row("o6", 6));
+        List<Lane> lanes = Arrays.asList(done, open);
+
+        assertSame(open.rows.get(1), MergedTicketFeed.bound(lanes, NEWEST_FIRST));
+
+        int[] taken = new int[2];
+        List<Row> out = merge(lanes, Integer.MAX_VALUE, taken);
+        assertEquals(ids("d9", "o8", "d7", "o6"), ids(out));
+        assertArrayEquals(new int[]{2, 2}, taken);
+
+        // the open lane loads its last page: everything can be merged
+        open.rows.add(row("o4", 4));
+        open.rows.add(row("o2", 2));
+        open.open = false;
+        out = merge(lanes, Integer.MAX_VALUE, taken);
+        assertEquals(ids("d9", "o8", "d7", "o6", "d5", "o4", "d3", "o2", "d1"), ids(out));
+    }
+
+    @Test
+    public void shallowestOpenLaneSetsTheBound() {
+        Lane deep = new Lane(true, row("x9", 9), row("x6", 6), row("x3", 3));
+        Lane shallow = new Lane(true, row("y8", 8), row("y7", 7));
+        Lane empty = new Lane(true);   // nothing loaded yet can't hold anything back
+        List<Lane> lanes = Arrays.asList(deep, shallow, empty);
+
+        assertEquals("y7", MergedTicketFeed.bound(lanes, NEWEST_FIRST).id);
+        assertEquals(ids("x9", "y8", "y7"), ids(merge(lanes, Integer.MAX_VALUE, new int[3])));
+    }
+
+    @Test
+    public void trimmedLaneIsCompleteDownToItsCut() {
+        Lane done = new Lane(false, row("d9", 9), row("d7", 7), row("d5", 5), row("d3", 3));
+        Lane trimmed = new Lane(true, row("t8", 8));
+        trimmed.trimmedAt = row("cut", 4);
+        List<Lane> lanes = Arrays.asList(done, trimmed);
+
+        assertEquals("cut", MergedTicketFeed.edge(trimmed, NEWEST_FIRST).id);
+        assertEquals(ids("d9", "t8", "d7", "d5"), ids(merge(lanes, Integer.MAX_VALUE, new int[2])));
+
+        // a cut above the last row doesn't move the edge up
+        trimmed.trimmedAt = row("cut", 10);
+        assertEquals("t8", MergedTicketFeed.edge(trimmed, NEWEST_FIRST).id);
+    }
+
+    @Test
+    public void stopsAtTheLimit() {
+        Lane a = new Lane(false, row("a9", 9), row("a7", 7), row("a5", 5));
+        Lane b = new Lane(false, row("b8", 8), row("b6", 6));
+
+        int[] taken = new int[2];
+        List<Row> out = merge(Arrays.asList(a, b), 3, taken);
+
+        assertEquals(ids("a9", "b8", "a7"), ids(out));
+        assertArrayEquals(new int[]{2, 1}, taken);
+    }
+
+    @Test
+    public void rowsAboveTheLatestCutArePassedOver() {
+        Lane a = new Lane(true, row("a9", 9), row("a7", 7), row("a5", 5), row("a3", 3));
+        Lane b = new Lane(true, row("b8", 8), row("b6", 6), row("b4", 4));
+        a.top = new MergedTicketFeed.Cut<>(row("cut", 8), false);
+        b.top = new MergedTicketFeed.Cut<>(row("b6", 6), true);
+        List<Lane> lanes = Arrays.asList(a, b);
+
+        // newest first: the cut at 6 sorts after the one at 8, so it wins
+        assertEquals("b6", MergedTicketFeed.top(lanes, NEWEST_FIRST).row.id);
+
+        int[] taken = new int[2];
+        List<Row> out = merge(lanes, Integer.MAX_VALUE, taken);
+        assertEquals(ids("b6", "a5", "b4"), ids(out));
+        // passed-over rows still count, so trimming keeps them as the head
+        assertArrayEquals(new int[]{3, 3}, taken);
+    }
+
+    @Test
+    public void headRowsThroughTheCutKeepACursor() {
+        Lane a = new Lane(true, row("a9", 9), row("a7", 7), row("a5", 5));
+        Lane b = new Lane(true, row("b8", 8), row("b6", 6));
+        Lane c = new Lane(true, row("c4", 4));
+
+        int[] n = MergedTicketFeed.rowsThrough(Arrays.asList(a, b, c), NEWEST_FIRST, row("cut", 6));
+
+        // b is cut entirely, but keeps its last row to page on from
+        assertArrayEquals(new int[]{2, 1, 0}, n);
+    }
+
+    @Test
+    public void slidesPastTheWindow() {
+        Random random = new Random(7);
+        List<Source> sources = new ArrayList<>();
+        List<Row> all = new ArrayList<>();
+        for (int s = 0; s < 3; s++) {
+            List<Row> rows = new ArrayList<>();
+            for (int i = 0; i < 120; i++) {
+                // few distinct keys, so there are plenty of ties across chunks
+                rows.add(row("s" + s + "-" + i, random.nextInt(40)));
+            }
+            Collections.sort(rows, NEWEST_FIRST);
+            all.addAll(rows);
+            sources.add(new Source(rows));
+        }
+        Collections.sort(all, NEWEST_FIRST);
+        assertTrue(all.size() > TicketPager.MAX_WINDOW);
+
+        // scroll to the end the way the feed does: merge, page in the chunk
+        // holding the bound, and once the window is full drop its first page
+        List<Row> scrolledPast = new ArrayList<>();
+        for (int step = 0; ; step++) {
+            assertTrue("no progress", step < 1000);
+
+            int[] taken = new int[sources.size()];
+            List<Row> out = new ArrayList<>();
+            MergedTicketFeed.merge(sources, NEWEST_FIRST, MergedTicketFeed.top(sources, NEWEST_FIRST),
+                    MergedTicketFeed.bound(sources, NEWEST_FIRST), TicketPager.MAX_WINDOW, out, taken);
+            boolean full = out.size() >= TicketPager.MAX_WINDOW;
+            if (full) {
+                for (int i = 0; i < sources.size(); i++) {
+                    sources.get(i).keepFirst(Math.max(taken[i], 1), out.get(out.size() - 1));
+                }
+            }
+            Row bound = MergedTicketFeed.bound(sources, NEWEST_FIRST);
+
+            if (full && bound != null) {
+                Row cut = out.get(TicketPager.PAGE_SIZE - 1);
+                scrolledPast.addAll(out.subList(0, TicketPager.PAGE_SIZE));
+                int[] drop = MergedTicketFeed.rowsThrough(sources, NEWEST_FIRST, cut);
+                for (int i = 0; i < sources.size(); i++) {
+                    if (drop[i] == 0) continue;
+                    sources.get(i).dropFirst(drop[i]);
+                    sources.get(i).top = new MergedTicketFeed.Cut<>(cut, false);
+                }
+            } else if (bound != null) {
+                for (Source src : sources) {
+                    if (src.open() && MergedTicketFeed.edge(src, NEWEST_FIRST) == bound) src.loadOlder();
+                }
+            } else {
+                scrolledPast.addAll(out);
+                break;
+            }
+
+            for (Source src : sources) {
+                assertTrue(src.window().size() <= TicketPager.MAX_WINDOW + TicketPager.PAGE_SIZE);
+            }
+        }
+
+        // every row exactly once, in order, although the window never held them all
+        assertEquals(ids(all), ids(scrolledPast));
+    }
+
+    // ─────────────────────────────────────────────
+    //  Helpers
+    // ─────────────────────────────────────────────
+
+    private static class Row {
+        final String id;
+        final Long key;
+
+        Row(String id, Long key) {
+            this.id = id;
+            this.key = key;
+        }
+    }
+
+    private static class Lane implements MergedTicketFeed.Lane<Row> {
+        final List<Row> rows;
+        boolean open;
+        Row trimmedAt;
+        MergedTicketFeed.Cut<Row> top;
+
+        Lane(boolean open, Row... rows) {
+            this.open = open;
+            this.rows = new ArrayList<>(Arrays.asList(rows));
+        }
+
+        @Override public List<Row> window() { return rows; }
+        @Override public boolean open() { return open; }
+        @Override public Row trimmedAt() { return trimmedAt; }
+        @Override public MergedTicketFeed.Cut<Row> top() { return top; }
+    }
+
+    /** A chunk paging through a sorted list: first page loaded, older ones on demand. */
+    private static class Source implements MergedTicketFeed.Lane<Row> {
+        final List<Row> rows;
+        int start = 0;
+        int end;
+        Row trimmedAt;
+        MergedTicketFeed.Cut<Row> top;
+
+        Source(List<Row> rows) {
+            this.rows = rows;
+            this.end = Math.min(TicketPager.PAGE_SIZE, rows.size());
+        }
+
+        void loadOlder() {
+            end = Math.min(end + TicketPager.PAGE_SIZE, rows.size());
+        }
+
+        void dropFirst(int n) {
+            start += n;
+        }
+
+        void keepFirst(int n, Row cutoff) {
+            if (start + n >= end) return;
+            end = start + n;
+            trimmedAt = cutoff;
+        }
+
+        @Override public List<Row> window() { return rows.subList(start, end); }
+        @Override public boolean open() { return end < rows.size(); }
+        @Override public Row trimmedAt() { return trimmedAt; }
+        @Override public MergedTicketFeed.Cut<Row> top() { return top; }
+    }
+
+    private static Row row(String id, long key) {
+        return new Row(id, key);
+    }
+
+    private static List<Row> merge(List<Lane> lanes, int limit, int[] taken) {
+        List<Row> out = new ArrayList<>();
+        MergedTicketFeed.merge(lanes, NEWEST_FIRST, MergedTicketFeed.top(lanes, NEWEST_FIRST),
+                MergedTicketFeed.bound(lanes, NEWEST_FIRST), limit, out, taken);
+        return out;
+    }
+
+    private static List<String> ids(String... ids) {
+        return Arrays.asList(ids);
+    }
+
+    private static List<String> ids(List<Row> rows) {
+        List<String> list = new ArrayList<>();
+        for (Row r : rows) list.add(r.id);
+        return list;
+    }
+}